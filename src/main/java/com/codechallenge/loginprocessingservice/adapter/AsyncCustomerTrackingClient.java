@@ -0,0 +1,108 @@
+package com.codechallenge.loginprocessingservice.adapter;
+
+import com.codechallenge.loginprocessingservice.config.RestClientConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.UnknownHttpStatusCodeException;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Non-blocking counterpart of {@link CustomerTrackingClient} built on {@link HttpClient#sendAsync}.
+ * The returned future fails with the same exception types {@code RestClient} throws
+ * ({@link HttpClientErrorException}, {@link HttpServerErrorException}, {@link ResourceAccessException}),
+ * so the {@code customerTracking} retry configuration applies to both clients unchanged.
+ */
+@Component
+public class AsyncCustomerTrackingClient {
+
+    private static final String TRACK_LOGIN_PATH = "/v1/api/trackLoging/{customerId}";
+
+    private final Logger logger = LoggerFactory.getLogger(AsyncCustomerTrackingClient.class);
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final String authorization;
+    private final Duration requestTimeout;
+
+    public AsyncCustomerTrackingClient(@Qualifier("customerTrackingHttpClient") HttpClient httpClient,
+                                       @Value("${app.customer-tracking.base-url}") String baseUrl,
+                                       @Value("${app.customer-tracking.username}") String username,
+                                       @Value("${app.customer-tracking.password}") String password,
+                                       @Value("${app.customer-tracking.http.request-timeout-ms:5000}") long requestTimeoutMs) {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl;
+        this.authorization = RestClientConfig.basicAuthorization(username, password);
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+    }
+
+    public CompletableFuture<Boolean> notifyLoginAsync(UUID customerId) {
+        URI uri = UriComponentsBuilder.fromUriString(baseUrl).path(TRACK_LOGIN_PATH).buildAndExpand(customerId).toUri();
+        logger.info("[DEBUG_LOG] Sending async login tracking request for customerId={} to URL: {}", customerId, TRACK_LOGIN_PATH);
+
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .GET()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .timeout(requestTimeout)
+                .build();
+
+        // completed by hand so callers see the mapped exception itself rather than a CompletionException
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).whenComplete((response, error) -> {
+            if (error != null) {
+                result.completeExceptionally(toResourceAccessException(uri, unwrap(error)));
+            } else if (response.statusCode() >= 400) {
+                result.completeExceptionally(toStatusException(response));
+            } else {
+                logger.info("[DEBUG_LOG] Login tracking request successful for customerId={}", customerId);
+                result.complete(true);
+            }
+        });
+        return result;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static RuntimeException toResourceAccessException(URI uri, Throwable error) {
+        String message = "I/O error on GET request for \"" + uri + "\": " + error.getMessage();
+        return error instanceof IOException io
+                ? new ResourceAccessException(message, io)
+                : new ResourceAccessException(message, new IOException(error));
+    }
+
+    private static RuntimeException toStatusException(HttpResponse<byte[]> response) {
+        HttpStatusCode status = HttpStatusCode.valueOf(response.statusCode());
+        HttpHeaders headers = new HttpHeaders();
+        response.headers().map().forEach(headers::addAll);
+        byte[] body = response.body();
+        String statusText = "HTTP " + status.value();
+
+        if (status.is4xxClientError()) {
+            return HttpClientErrorException.create(status, statusText, headers, body, StandardCharsets.UTF_8);
+        }
+        if (status.is5xxServerError()) {
+            return HttpServerErrorException.create(status, statusText, headers, body, StandardCharsets.UTF_8);
+        }
+        return new UnknownHttpStatusCodeException(status.value(), statusText, headers, body, StandardCharsets.UTF_8);
+    }
+}
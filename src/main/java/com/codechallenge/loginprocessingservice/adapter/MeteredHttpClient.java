@@ -0,0 +1,155 @@
+package com.codechallenge.loginprocessingservice.adapter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.http.Outcome;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import java.io.IOException;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link HttpClient} that records every exchange of the delegate as {@code customer.tracking.http.requests},
+ * tagged with the protocol version the server actually negotiated and the outcome. Used by both customer-tracking
+ * clients, so blocking ({@code RestClient}) and async calls share one connection pool and show up in one metric.
+ * The timer tells how many exchanges ran over HTTP/2 and how many fell back to HTTP/1.1; set against the TLS
+ * connections counted by {@link MeteredSslContext} it gives the requests served per connection.
+ */
+public class MeteredHttpClient extends HttpClient {
+
+    private static final String IO_ERROR = "IO_ERROR";
+
+    private final HttpClient delegate;
+    private final MeterRegistry meterRegistry;
+
+    public MeteredHttpClient(HttpClient delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler)
+            throws IOException, InterruptedException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            HttpResponse<T> response = delegate.send(request, responseBodyHandler);
+            record(sample, response.version().name(), Outcome.forStatus(response.statusCode()).name());
+            return response;
+        } catch (IOException ex) {
+            record(sample, version(request), IO_ERROR);
+            throw ex;
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler) {
+        return sendAsync(request, responseBodyHandler, null);
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler,
+                                                            HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return delegate.sendAsync(request, responseBodyHandler, pushPromiseHandler).whenComplete((response, error) -> {
+            if (error != null) {
+                record(sample, version(request), IO_ERROR);
+            } else {
+                record(sample, response.version().name(), Outcome.forStatus(response.statusCode()).name());
+            }
+        });
+    }
+
+    private void record(Timer.Sample sample, String version, String outcome) {
+        sample.stop(Timer.builder("customer.tracking.http.requests")
+                .description("Customer-tracking HTTP exchanges by negotiated protocol version and outcome")
+                .tag("version", version)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    private String version(HttpRequest request) {
+        return request.version().orElse(delegate.version()).name();
+    }
+
+    @Override
+    public Optional<CookieHandler> cookieHandler() {
+        return delegate.cookieHandler();
+    }
+
+    @Override
+    public Optional<Duration> connectTimeout() {
+        return delegate.connectTimeout();
+    }
+
+    @Override
+    public Redirect followRedirects() {
+        return delegate.followRedirects();
+    }
+
+    @Override
+    public Optional<ProxySelector> proxy() {
+        return delegate.proxy();
+    }
+
+    @Override
+    public SSLContext sslContext() {
+        return delegate.sslContext();
+    }
+
+    @Override
+    public SSLParameters sslParameters() {
+        return delegate.sslParameters();
+    }
+
+    @Override
+    public Optional<Authenticator> authenticator() {
+        return delegate.authenticator();
+    }
+
+    @Override
+    public Version version() {
+        return delegate.version();
+    }
+
+    @Override
+    public Optional<Executor> executor() {
+        return delegate.executor();
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public boolean awaitTermination(Duration duration) throws InterruptedException {
+        return delegate.awaitTermination(duration);
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public void shutdownNow() {
+        delegate.shutdownNow();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
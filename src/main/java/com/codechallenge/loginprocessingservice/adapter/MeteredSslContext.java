@@ -0,0 +1,91 @@
+package com.codechallenge.loginprocessingservice.adapter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLContextSpi;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLServerSocketFactory;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import java.net.http.HttpClient;
+import java.security.KeyManagementException;
+import java.security.SecureRandom;
+
+/**
+ * {@link SSLContext} that counts the TLS connections opened through it as {@code customer.tracking.http.connections}.
+ * The JDK {@link HttpClient} creates one {@link SSLEngine} per connection it opens, so next to the exchanges of
+ * {@link MeteredHttpClient} this gives the requests served per connection. Plain {@code http://} connections do
+ * not go through the context and are not counted.
+ */
+public class MeteredSslContext extends SSLContext {
+
+    public MeteredSslContext(SSLContext delegate, MeterRegistry meterRegistry) {
+        super(new CountingSpi(delegate, Counter.builder("customer.tracking.http.connections")
+                        .description("TLS connections opened by the customer-tracking HttpClient")
+                        .register(meterRegistry)),
+                delegate.getProvider(), delegate.getProtocol());
+    }
+
+    private static final class CountingSpi extends SSLContextSpi {
+
+        private final SSLContext delegate;
+        private final Counter connections;
+
+        private CountingSpi(SSLContext delegate, Counter connections) {
+            this.delegate = delegate;
+            this.connections = connections;
+        }
+
+        @Override
+        protected void engineInit(KeyManager[] km, TrustManager[] tm, SecureRandom sr) throws KeyManagementException {
+            delegate.init(km, tm, sr);
+        }
+
+        @Override
+        protected SSLSocketFactory engineGetSocketFactory() {
+            return delegate.getSocketFactory();
+        }
+
+        @Override
+        protected SSLServerSocketFactory engineGetServerSocketFactory() {
+            return delegate.getServerSocketFactory();
+        }
+
+        @Override
+        protected SSLEngine engineCreateSSLEngine() {
+            connections.increment();
+            return delegate.createSSLEngine();
+        }
+
+        @Override
+        protected SSLEngine engineCreateSSLEngine(String host, int port) {
+            connections.increment();
+            return delegate.createSSLEngine(host, port);
+        }
+
+        @Override
+        protected SSLSessionContext engineGetServerSessionContext() {
+            return delegate.getServerSessionContext();
+        }
+
+        @Override
+        protected SSLSessionContext engineGetClientSessionContext() {
+            return delegate.getClientSessionContext();
+        }
+
+        @Override
+        protected SSLParameters engineGetDefaultSSLParameters() {
+            return delegate.getDefaultSSLParameters();
+        }
+
+        @Override
+        protected SSLParameters engineGetSupportedSSLParameters() {
+            return delegate.getSupportedSSLParameters();
+        }
+    }
+}
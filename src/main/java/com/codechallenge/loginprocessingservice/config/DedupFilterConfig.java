@@ -0,0 +1,74 @@
+package com.codechallenge.loginprocessingservice.config;
+
+import com.codechallenge.loginprocessingservice.repository.LoginTrackingResultRepository;
+import com.codechallenge.loginprocessingservice.service.BloomMessageIdFilter;
+import com.codechallenge.loginprocessingservice.service.MessageIdFilter;
+import com.codechallenge.loginprocessingservice.service.PartitionHandoverTracker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * In-memory messageId filter in front of the duplicate check.
+ * {@code app.dedup.filter.type}:
+ * - {@value #FILTER_BLOOM}: {@link BloomMessageIdFilter}, warmed with the messageIds of the latest
+ *   {@code warm-up-rows} results of the last {@code warm-up-window-ms} before the listeners start. It only knows
+ *   what this JVM processed (and found at startup), so records another replica may have processed are checked
+ *   against the database regardless ({@link PartitionHandoverTracker})
+ * - {@value #FILTER_NONE}: every event is checked against the database
+ */
+@Configuration
+public class DedupFilterConfig {
+
+    public static final String FILTER_BLOOM = "bloom";
+    public static final String FILTER_NONE = "none";
+
+    private static final Logger logger = LoggerFactory.getLogger(DedupFilterConfig.class);
+
+    @Bean
+    public MessageIdFilter messageIdFilter(
+            @Value("${app.dedup.filter.type:" + FILTER_NONE + "}") String type,
+            @Value("${app.dedup.filter.expected-insertions:1000000}") long expectedInsertions,
+            @Value("${app.dedup.filter.fpp:0.01}") double fpp,
+            @Value("${app.dedup.filter.warm-up-rows:200000}") int warmUpRows,
+            @Value("${app.dedup.filter.warm-up-window-ms:86400000}") long warmUpWindowMs,
+            LoginTrackingResultRepository resultRepository,
+            MeterRegistry meterRegistry) {
+
+        if (FILTER_NONE.equals(type)) {
+            return MessageIdFilter.ALWAYS_CHECK;
+        }
+        if (!FILTER_BLOOM.equals(type)) {
+            throw new IllegalArgumentException("Unsupported app.dedup.filter.type: " + type);
+        }
+
+        BloomMessageIdFilter filter = new BloomMessageIdFilter(expectedInsertions, fpp);
+
+        List<UUID> recent = resultRepository.findRecentMessageIds(warmUpWindowMs, warmUpRows);
+        // oldest first, so the newest ids end up in the current generation if the warm-up rotates
+        for (int i = recent.size() - 1; i >= 0; i--) {
+            filter.put(recent.get(i));
+        }
+        logger.info("Dedup filter warmed with {} messageIds, memoryBytes={}", recent.size(), filter.memoryBytes());
+
+        Gauge.builder("login.processing.dedup.filter.memory", filter, BloomMessageIdFilter::memoryBytes)
+                .description("Bytes held by the messageId Bloom filter")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("login.processing.dedup.filter.entries", filter, BloomMessageIdFilter::approximateEntries)
+                .description("MessageIds held by the messageId Bloom filter")
+                .register(meterRegistry);
+        Gauge.builder("login.processing.dedup.filter.expected-fpp", filter, BloomMessageIdFilter::expectedFpp)
+                .description("False-positive probability implied by the filter's fill ratio")
+                .register(meterRegistry);
+
+        return filter;
+    }
+}
@@ -1,23 +1,53 @@
 package com.codechallenge.loginprocessingservice.config;
 
 import com.codechallenge.loginprocessingservice.dto.CustomerLoginEvent;
+import com.codechallenge.loginprocessingservice.service.KeyOrderedExecutor;
+import com.codechallenge.loginprocessingservice.service.PartitionHandoverTracker;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.BackOff;
+import org.springframework.util.backoff.FixedBackOff;
 
 @Configuration
 public class KafkaConsumerConfig {
 
+    public static final String LISTENER_MODE_RECORD = "record";
+    public static final String LISTENER_MODE_BATCH = "batch";
+    public static final String LISTENER_MODE_KEY_ORDERED = "key-ordered";
+
+    /**
+     * Listener container for the customer-login topic.
+     * {@code app.kafka.listener.mode} selects between one record per listener call ({@code record}, default),
+     * one poll per listener call ({@code batch}) and records fanned out to per-customer lanes ({@code key-ordered});
+     * in all modes offsets are acknowledged manually. In {@code key-ordered} mode acks arrive out of order from
+     * the lanes, so async acks are enabled: only the contiguous acknowledged prefix of a partition is committed.
+     * With virtual threads enabled ({@link ProcessingExecutionConfig}) the consumer threads are virtual threads.
+     * A failed record is redelivered by the container's {@link DefaultErrorHandler} following
+     * {@link #customerLoginRetryBackOff}, then logged and skipped (in {@code batch} mode the listener names the
+     * failed record of the poll, so the records before it are committed and the others are not charged); an {@link IllegalArgumentException}
+     * (invalid event) is skipped right away. The key-ordered lanes apply the same policy themselves.
+     * {@link PartitionHandoverTracker} records on every assignment which records the previous owner may have processed.
+     */
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, CustomerLoginEvent> customerLoginKafkaListenerContainerFactory(
-            KafkaProperties kafkaProperties
+            KafkaProperties kafkaProperties,
+            BackOff customerLoginRetryBackOff,
+            PartitionHandoverTracker partitionHandoverTracker,
+            @Value("${app.kafka.listener.mode:" + LISTENER_MODE_RECORD + "}") String listenerMode,
+            @Value(ProcessingExecutionConfig.VIRTUAL_THREADS_ENABLED) boolean virtualThreads
     ) {
         var props = kafkaProperties.buildConsumerProperties();
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
@@ -35,10 +65,50 @@ public class KafkaConsumerConfig {
 
         var factory = new ConcurrentKafkaListenerContainerFactory<String, CustomerLoginEvent>();
         factory.setConsumerFactory(consumerFactory);
-
+        factory.setBatchListener(LISTENER_MODE_BATCH.equalsIgnoreCase(listenerMode));
 
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setAsyncAcks(LISTENER_MODE_KEY_ORDERED.equalsIgnoreCase(listenerMode));
+        factory.getContainerProperties().setConsumerRebalanceListener(partitionHandoverTracker);
+
+        var errorHandler = new DefaultErrorHandler(customerLoginRetryBackOff);
+        errorHandler.addNotRetryableExceptions(IllegalArgumentException.class);
+        factory.setCommonErrorHandler(errorHandler);
+
+        if (virtualThreads) {
+            var listenerExecutor = new SimpleAsyncTaskExecutor("login-consumer-");
+            listenerExecutor.setVirtualThreads(true);
+            factory.getContainerProperties().setListenerTaskExecutor(listenerExecutor);
+        }
 
         return factory;
     }
+
+    /**
+     * Redelivery policy for a record that failed: {@code max-attempts} deliveries in total,
+     * {@code backoff-ms} apart. The defaults match a plain {@link DefaultErrorHandler}.
+     */
+    @Bean
+    public BackOff customerLoginRetryBackOff(
+            @Value("${app.kafka.listener.retry.max-attempts:10}") int maxAttempts,
+            @Value("${app.kafka.listener.retry.backoff-ms:0}") long backoffMs
+    ) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Unsupported app.kafka.listener.retry.max-attempts: " + maxAttempts);
+        }
+        return new FixedBackOff(backoffMs, maxAttempts - 1L);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.kafka.listener.mode", havingValue = LISTENER_MODE_KEY_ORDERED)
+    public KeyOrderedExecutor keyOrderedExecutor(
+            @Value("${app.kafka.listener.key-ordered.lanes:16}") int lanes,
+            @Value(ProcessingExecutionConfig.VIRTUAL_THREADS_ENABLED) boolean virtualThreads,
+            MeterRegistry meterRegistry
+    ) {
+        var threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("login-lane-", 0).factory()
+                : Thread.ofPlatform().name("login-lane-", 0).factory();
+        return new KeyOrderedExecutor(lanes, threadFactory, meterRegistry);
+    }
 }
\ No newline at end of file
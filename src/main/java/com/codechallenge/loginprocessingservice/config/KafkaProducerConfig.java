@@ -1,8 +1,10 @@
 package com.codechallenge.loginprocessingservice.config;
 
+import com.codechallenge.loginprocessingservice.service.OutboxPublisher;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -14,12 +16,38 @@ import java.util.Map;
 @Configuration
 public class KafkaProducerConfig {
 
+    /**
+     * {@code app.outbox.producer.mode=transactional} makes the outbox producer idempotent (no duplicates from
+     * producer retries) and transactional, so {@link OutboxPublisher} can send each batch in one Kafka transaction.
+     * The publisher flushes each batch explicitly once every record is handed over, so nothing waits for linger
+     * and it is raised to let the records of a batch accumulate into fewer, larger (better compressed) requests.
+     * The transaction id prefix must be unique per instance: two instances sharing it fence each other.
+     */
     @Bean
-    public ProducerFactory<String, byte[]> outboxProducerFactory(KafkaProperties kafkaProperties) {
+    public ProducerFactory<String, byte[]> outboxProducerFactory(
+            KafkaProperties kafkaProperties,
+            @Value("${app.outbox.producer.mode:" + OutboxPublisher.PRODUCER_MODE_PLAIN + "}") String producerMode,
+            @Value("${app.outbox.producer.transaction-id-prefix:login-processing-outbox-}") String transactionIdPrefix,
+            @Value("${app.outbox.producer.transactional-linger-ms:20}") int transactionalLingerMs
+    ) {
         Map<String, Object> props = new HashMap<>(kafkaProperties.buildProducerProperties());
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
-        return new DefaultKafkaProducerFactory<>(props);
+
+        if (!OutboxPublisher.PRODUCER_MODE_TRANSACTIONAL.equals(producerMode)) {
+            return new DefaultKafkaProducerFactory<>(props);
+        }
+
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        // idempotence keeps retries duplicate-free and ordered; delivery.timeout.ms bounds them instead
+        props.put(ProducerConfig.RETRIES_CONFIG, Integer.MAX_VALUE);
+        props.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, transactionalLingerMs);
+
+        DefaultKafkaProducerFactory<String, byte[]> factory = new DefaultKafkaProducerFactory<>(props);
+        factory.setTransactionIdPrefix(transactionIdPrefix);
+        return factory;
     }
 
     @Bean
@@ -29,4 +57,3 @@ public class KafkaProducerConfig {
         return new KafkaTemplate<>(outboxProducerFactory);
     }
 }
-
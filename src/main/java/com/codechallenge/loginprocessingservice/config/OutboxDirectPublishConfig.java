@@ -0,0 +1,58 @@
+package com.codechallenge.loginprocessingservice.config;
+
+import com.codechallenge.loginprocessingservice.repository.OutboxRepository;
+import com.codechallenge.loginprocessingservice.service.KafkaOutboxDirectPublisher;
+import com.codechallenge.loginprocessingservice.service.OutboxDirectPublisher;
+import com.codechallenge.loginprocessingservice.service.OutboxPublisher;
+import com.codechallenge.loginprocessingservice.service.OutboxWalRelay;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaTemplate;
+
+/**
+ * Direct-publish fast path for new outbox rows ({@link OutboxDirectPublisher}).
+ * With {@code app.outbox.direct-publish.enabled=true} rows are sent right after their transaction commits and
+ * {@link OutboxPublisher} only claims them after {@code claim-delay-ms}; otherwise rows wait for the next drain.
+ * Requires {@code app.outbox.producer.mode=plain} (a transactional producer cannot send outside a transaction)
+ * and {@code app.outbox.relay.mode=poll} (the WAL relay publishes every insert, it does not look at the rows).
+ */
+@Configuration
+public class OutboxDirectPublishConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDirectPublishConfig.class);
+
+    @Bean
+    public OutboxDirectPublisher outboxDirectPublisher(
+            @Value("${app.outbox.direct-publish.enabled:false}") boolean enabled,
+            @Value("${app.outbox.direct-publish.claim-delay-ms:10000}") long claimDelayMs,
+            @Value("${app.outbox.direct-publish.queue-capacity:10000}") int queueCapacity,
+            @Value("${app.outbox.producer.mode:" + OutboxPublisher.PRODUCER_MODE_PLAIN + "}") String producerMode,
+            @Value("${app.outbox.relay.mode:" + OutboxWalRelay.MODE_POLL + "}") String relayMode,
+            KafkaTemplate<String, byte[]> outboxKafkaTemplate,
+            OutboxRepository outboxRepository,
+            MeterRegistry meterRegistry) {
+
+        if (!OutboxWalRelay.MODE_POLL.equals(relayMode) && !OutboxWalRelay.MODE_WAL.equals(relayMode)) {
+            throw new IllegalArgumentException("Unsupported app.outbox.relay.mode: " + relayMode);
+        }
+        if (!enabled) {
+            return OutboxDirectPublisher.NONE;
+        }
+        if (!OutboxPublisher.PRODUCER_MODE_PLAIN.equals(producerMode)) {
+            throw new IllegalArgumentException(
+                    "app.outbox.direct-publish.enabled requires app.outbox.producer.mode=plain, was: " + producerMode);
+        }
+        if (!OutboxWalRelay.MODE_POLL.equals(relayMode)) {
+            throw new IllegalArgumentException(
+                    "app.outbox.direct-publish.enabled requires app.outbox.relay.mode=poll, was: " + relayMode);
+        }
+
+        logger.info("Direct-publish fast path enabled, claimDelayMs={}, queueCapacity={}", claimDelayMs, queueCapacity);
+        return new KafkaOutboxDirectPublisher(
+                outboxKafkaTemplate, outboxRepository, claimDelayMs, queueCapacity, meterRegistry);
+    }
+}
@@ -0,0 +1,58 @@
+package com.codechallenge.loginprocessingservice.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Execution mode of the login pipeline.
+ * With {@code app.processing.virtual-threads.enabled=true} the Kafka listener threads, the key-ordered lanes and
+ * the customer-tracking calls of a batch run on virtual threads; {@code max-concurrency} caps how many tracking
+ * calls run at once (submitters block once the limit is reached). Otherwise tracking calls run on the caller thread.
+ */
+@Configuration
+public class ProcessingExecutionConfig {
+
+    public static final String VIRTUAL_THREADS_ENABLED = "${app.processing.virtual-threads.enabled:false}";
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessingExecutionConfig.class);
+
+    @Bean
+    @Qualifier("trackingTaskExecutor")
+    public TaskExecutor trackingTaskExecutor(
+            @Value(VIRTUAL_THREADS_ENABLED) boolean virtualThreads,
+            @Value("${app.processing.virtual-threads.max-concurrency:256}") int maxConcurrency) {
+
+        if (!virtualThreads) {
+            return new SyncTaskExecutor();
+        }
+
+        logger.info("Running customer-tracking calls on virtual threads, maxConcurrency={}", maxConcurrency);
+
+        var executor = new SimpleAsyncTaskExecutor("login-tracking-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(maxConcurrency);
+        executor.setTaskTerminationTimeout(30_000);
+        return executor;
+    }
+
+    /**
+     * Timer thread for the async customer-tracking retries: waits between attempts are scheduled here instead of
+     * sleeping on the caller thread. It only fires the next attempt, the HTTP work runs on the HttpClient executor.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    @Qualifier("trackingRetryScheduler")
+    public ScheduledExecutorService trackingRetryScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("login-tracking-retry").daemon().factory());
+    }
+}
@@ -1,17 +1,45 @@
 package com.codechallenge.loginprocessingservice.config;
 
+import com.codechallenge.loginprocessingservice.adapter.AsyncCustomerTrackingClient;
+import com.codechallenge.loginprocessingservice.adapter.CustomerTrackingClient;
+import com.codechallenge.loginprocessingservice.adapter.MeteredHttpClient;
+import com.codechallenge.loginprocessingservice.adapter.MeteredSslContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
 
+import javax.net.ssl.SSLContext;
 import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * Transport of the customer-tracking clients, tuned under {@code app.customer-tracking.http}.
+ * {@link CustomerTrackingClient} ({@code RestClient}) and {@link AsyncCustomerTrackingClient} share one
+ * {@link MeteredHttpClient}, so they share its connection pool:
+ * <ul>
+ *     <li>{@code version}: {@code HTTP_2} (default) multiplexes concurrent requests on one connection when the
+ *     server supports it (ALPN over TLS, {@code h2c} upgrade otherwise) and falls back to HTTP/1.1;
+ *     {@code HTTP_1_1} opens one connection per concurrent request</li>
+ *     <li>{@code connect-timeout-ms}, {@code request-timeout-ms}: per connection attempt and per request
+ *     (until the response headers arrive); a timeout surfaces as {@code ResourceAccessException} and is retried</li>
+ *     <li>{@code executor-threads}: dedicated pool for the client's response handling and async completions</li>
+ * </ul>
+ * TLS connections go through a {@link MeteredSslContext} over the JVM default context, which counts the
+ * connections the client opens.
+ */
 @Configuration
 public class RestClientConfig {
 
@@ -20,20 +48,75 @@ public class RestClientConfig {
     @Bean
     @Qualifier("customerTrackingRestClient")
     public RestClient customerTrackingRestClient(
+            @Qualifier("customerTrackingHttpClient") HttpClient httpClient,
             @Value("${app.customer-tracking.base-url}") String baseUrl,
             @Value("${app.customer-tracking.username}") String username,
-            @Value("${app.customer-tracking.password}") String password) {
+            @Value("${app.customer-tracking.password}") String password,
+            @Value("${app.customer-tracking.http.request-timeout-ms:5000}") long requestTimeoutMs) {
 
         logger.info("Configuring CustomerTracking RestClient with baseUrl={}", baseUrl);
 
-        var httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(3))
-                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(requestTimeoutMs));
 
         return RestClient.builder()
                 .baseUrl(baseUrl)
-                .defaultHeaders(h -> h.setBasicAuth(username, password))
-                .requestFactory(new JdkClientHttpRequestFactory(httpClient))
+                .defaultHeader(HttpHeaders.AUTHORIZATION, basicAuthorization(username, password))
+                .requestFactory(requestFactory)
+                .build();
+    }
+
+    /**
+     * HttpClient behind both customer-tracking clients; the async one uses it directly (via {@code sendAsync}).
+     */
+    @Bean
+    @Qualifier("customerTrackingHttpClient")
+    public HttpClient customerTrackingHttpClient(
+            @Value("${app.customer-tracking.http.version:HTTP_2}") String version,
+            @Value("${app.customer-tracking.http.connect-timeout-ms:3000}") long connectTimeoutMs,
+            @Qualifier("customerTrackingHttpExecutor") ExecutorService executor,
+            MeterRegistry meterRegistry) {
+
+        HttpClient.Version httpVersion = switch (version) {
+            case "HTTP_2" -> HttpClient.Version.HTTP_2;
+            case "HTTP_1_1" -> HttpClient.Version.HTTP_1_1;
+            default -> throw new IllegalArgumentException("Unsupported app.customer-tracking.http.version: " + version);
+        };
+
+        logger.info("Configuring CustomerTracking HttpClient with version={}, connectTimeoutMs={}", httpVersion, connectTimeoutMs);
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(httpVersion)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .sslContext(new MeteredSslContext(defaultSslContext(), meterRegistry))
+                .executor(executor)
                 .build();
+        return new MeteredHttpClient(httpClient, meterRegistry);
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    @Qualifier("customerTrackingHttpExecutor")
+    public ExecutorService customerTrackingHttpExecutor(
+            @Value("${app.customer-tracking.http.executor-threads:4}") int threads,
+            MeterRegistry meterRegistry) {
+        ExecutorService executor = Executors.newFixedThreadPool(
+                threads, Thread.ofPlatform().name("customer-tracking-http-", 0).daemon().factory());
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "customer.tracking.http");
+    }
+
+    private static SSLContext defaultSslContext() {
+        try {
+            return SSLContext.getDefault();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("No default SSLContext for the customer-tracking HttpClient", ex);
+        }
+    }
+
+    /**
+     * {@code Authorization} header value, encoded once per client rather than per request.
+     */
+    public static String basicAuthorization(String username, String password) {
+        return "Basic " + Base64.getEncoder()
+                .encodeToString((username + ":" + password).getBytes(StandardCharsets.ISO_8859_1));
     }
 }
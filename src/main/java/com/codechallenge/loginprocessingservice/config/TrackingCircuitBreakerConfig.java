@@ -0,0 +1,53 @@
+package com.codechallenge.loginprocessingservice.config;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Circuit breaker around the customer-tracking requests, configured as {@code resilience4j.circuitbreaker}
+ * instance {@code customerTracking}. While it is open every attempt fails right away with
+ * {@link io.github.resilience4j.circuitbreaker.CallNotPermittedException}, which the {@code customerTracking} retry
+ * does not retry, so events are recorded as {@code UNSUCCESSFUL} without waiting; after
+ * {@code wait-duration-in-open-state} a few half-open probe requests decide whether it closes again.
+ * With {@code app.customer-tracking.circuit-breaker.enabled=false} the breaker is kept in the DISABLED state,
+ * where it permits and records nothing.
+ */
+@Configuration
+public class TrackingCircuitBreakerConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrackingCircuitBreakerConfig.class);
+
+    @Bean
+    @Qualifier("customerTrackingCircuitBreaker")
+    public CircuitBreaker customerTrackingCircuitBreaker(
+            @Value("${app.customer-tracking.circuit-breaker.enabled:false}") boolean enabled,
+            CircuitBreakerRegistry circuitBreakerRegistry,
+            MeterRegistry meterRegistry) {
+
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker("customerTracking");
+        circuitBreaker.getEventPublisher().onStateTransition(event -> {
+            CircuitBreaker.StateTransition transition = event.getStateTransition();
+            logger.warn("[DEBUG_LOG] Customer-tracking circuit breaker {} -> {}",
+                    transition.getFromState(), transition.getToState());
+            Counter.builder("customer.tracking.circuit-breaker.transitions")
+                    .description("State transitions of the customer-tracking circuit breaker")
+                    .tag("from", transition.getFromState().name())
+                    .tag("to", transition.getToState().name())
+                    .register(meterRegistry)
+                    .increment();
+        });
+
+        if (!enabled) {
+            circuitBreaker.transitionToDisabledState();
+        }
+        return circuitBreaker;
+    }
+}
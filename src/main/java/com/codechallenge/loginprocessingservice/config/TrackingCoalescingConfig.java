@@ -0,0 +1,43 @@
+package com.codechallenge.loginprocessingservice.config;
+
+import com.codechallenge.loginprocessingservice.service.InFlightTrackingCallCoalescer;
+import com.codechallenge.loginprocessingservice.service.TrackingCallCoalescer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Per-customer coalescing of customer-tracking calls ({@link TrackingCallCoalescer}).
+ * With {@code app.customer-tracking.coalescing.enabled=true} a call shares the request of the same customer that
+ * is in flight, or that succeeded less than {@code window-ms} ago (0, the default: in flight only); otherwise every
+ * event sends its own request.
+ */
+@Configuration
+public class TrackingCoalescingConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrackingCoalescingConfig.class);
+
+    @Bean
+    public TrackingCallCoalescer trackingCallCoalescer(
+            @Value("${app.customer-tracking.coalescing.enabled:false}") boolean enabled,
+            @Value("${app.customer-tracking.coalescing.window-ms:0}") long windowMs,
+            @Qualifier("trackingRetryScheduler") ScheduledExecutorService scheduler,
+            MeterRegistry meterRegistry) {
+
+        if (!enabled) {
+            return TrackingCallCoalescer.NONE;
+        }
+        if (windowMs < 0) {
+            throw new IllegalArgumentException("Unsupported app.customer-tracking.coalescing.window-ms: " + windowMs);
+        }
+
+        logger.info("Customer-tracking call coalescing enabled, windowMs={}", windowMs);
+        return new InFlightTrackingCallCoalescer(windowMs, scheduler, meterRegistry);
+    }
+}
@@ -0,0 +1,47 @@
+package com.codechallenge.loginprocessingservice.config;
+
+import com.codechallenge.loginprocessingservice.service.AimdConcurrencyLimiter;
+import com.codechallenge.loginprocessingservice.service.TrackingConcurrencyLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Adaptive cap on concurrent customer-tracking requests ({@link TrackingConcurrencyLimiter}).
+ * With {@code app.customer-tracking.concurrency-limit.enabled=true} requests go through an
+ * {@link AimdConcurrencyLimiter}; otherwise nothing limits them beyond the caller's own concurrency.
+ */
+@Configuration
+public class TrackingConcurrencyLimitConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrackingConcurrencyLimitConfig.class);
+
+    @Bean
+    public TrackingConcurrencyLimiter trackingConcurrencyLimiter(
+            @Value("${app.customer-tracking.concurrency-limit.enabled:false}") boolean enabled,
+            @Value("${app.customer-tracking.concurrency-limit.initial-limit:20}") int initialLimit,
+            @Value("${app.customer-tracking.concurrency-limit.min-limit:1}") int minLimit,
+            @Value("${app.customer-tracking.concurrency-limit.max-limit:200}") int maxLimit,
+            @Value("${app.customer-tracking.concurrency-limit.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${app.customer-tracking.concurrency-limit.latency-threshold-ms:1000}") long latencyThresholdMs,
+            @Value("${app.customer-tracking.concurrency-limit.max-queue:1000}") int maxQueue,
+            @Value("${app.customer-tracking.concurrency-limit.max-wait-ms:2000}") long maxWaitMs,
+            @Qualifier("trackingRetryScheduler") ScheduledExecutorService scheduler,
+            MeterRegistry meterRegistry) {
+
+        if (!enabled) {
+            return TrackingConcurrencyLimiter.NONE;
+        }
+
+        logger.info("Customer-tracking concurrency limit enabled, initialLimit={}, minLimit={}, maxLimit={}, latencyThresholdMs={}",
+                initialLimit, minLimit, maxLimit, latencyThresholdMs);
+        return new AimdConcurrencyLimiter(initialLimit, minLimit, maxLimit, backoffRatio, latencyThresholdMs,
+                maxQueue, maxWaitMs, scheduler, meterRegistry);
+    }
+}
@@ -1,6 +1,7 @@
 package com.codechallenge.loginprocessingservice.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.UuidGenerator;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
@@ -17,17 +18,17 @@ import java.util.UUID;
                 @Index(name = "ix_login_tracking_result_event_timestamp", columnList = "event_timestamp")
         },
         uniqueConstraints = {
-                @UniqueConstraint(name = "ux_login_tracking_result_message_id", columnNames = "message_id")
+                @UniqueConstraint(name = "ux_login_tracking_result_message_id", columnNames = {"message_id", "event_timestamp"})
         },
         schema = "login_processing"
 )
 public class LoginTrackingResultEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     private UUID id;
 
-    @Column(name = "message_id", nullable = false, unique = true)
+    @Column(name = "message_id", nullable = false)
     private UUID messageId;
 
     @Column(name = "customer_id", nullable = false)
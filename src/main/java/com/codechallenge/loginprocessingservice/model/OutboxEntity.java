@@ -2,6 +2,7 @@ package com.codechallenge.loginprocessingservice.model;
 
 import jakarta.persistence.*;
 import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.UuidGenerator;
 import org.hibernate.type.SqlTypes;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -15,7 +16,6 @@ import java.util.UUID;
 @Table(
         name = "outbox_event",
         indexes = {
-                @Index(name = "ix_outbox_event_status_created_at", columnList = "status, created_at"),
                 @Index(name = "ix_outbox_event_aggregate_id", columnList = "aggregate_id"),
                 @Index(name = "ix_outbox_event_created_at", columnList = "created_at")
         },
@@ -30,7 +30,7 @@ import java.util.UUID;
 public class OutboxEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     private UUID id;
 
     @Enumerated(EnumType.STRING)
@@ -78,6 +78,10 @@ public class OutboxEntity {
     @Column(name = "sent_at")
     private Instant sentAt;
 
+    // defaults to now() in the database; moved forward by OutboxRepository#markAttemptsFailed
+    @Column(name = "next_attempt_at", insertable = false)
+    private Instant nextAttemptAt;
+
     public UUID getId() {
         return id;
     }
@@ -190,6 +194,14 @@ public class OutboxEntity {
         this.sentAt = sentAt;
     }
 
+    public Instant getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(Instant nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
     public static OutboxEntity newEvent(
             AggregateType aggregateType,
             UUID aggregateId,
@@ -210,25 +222,6 @@ public class OutboxEntity {
         return e;
     }
 
-    public void markSent() {
-        this.status = PublicationStatus.SENT;
-        this.sentAt = Instant.now();
-        this.lastAttemptAt = this.sentAt;
-        this.lastError = null;
-    }
-
-    public void markAttemptFailed(String error) {
-        this.retryCount += 1;
-        this.lastAttemptAt = Instant.now();
-        this.lastError = error;
-    }
-
-    public void markFailedPermanently(String error) {
-        this.status = PublicationStatus.FAILED;
-        this.lastAttemptAt = Instant.now();
-        this.lastError = error;
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -255,6 +248,7 @@ public class OutboxEntity {
                 ", createdAt=" + createdAt +
                 ", lastAttemptAt=" + lastAttemptAt +
                 ", sentAt=" + sentAt +
+                ", nextAttemptAt=" + nextAttemptAt +
                 '}';
     }
 }
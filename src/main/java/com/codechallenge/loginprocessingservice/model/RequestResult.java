@@ -2,5 +2,9 @@ package com.codechallenge.loginprocessingservice.model;
 
 public enum RequestResult {
     SUCCESSFUL,
-    UNSUCCESSFUL
+    UNSUCCESSFUL,
+    /**
+     * Tracking failed transiently and is re-attempted later (deferred re-tracking); never published.
+     */
+    PENDING
 }
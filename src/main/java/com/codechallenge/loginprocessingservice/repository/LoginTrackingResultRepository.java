@@ -6,25 +6,101 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface LoginTrackingResultRepository extends JpaRepository<LoginTrackingResultEntity, UUID> {
 
-    Optional<LoginTrackingResultEntity> findByMessageId(UUID messageId);
+    /**
+     * The result of a messageId, found through its {@code processed_message} key: one primary-key lookup and a read
+     * of the one partition the key points at.
+     */
+    @Query(value = """
+        select r.id, r.message_id, r.customer_id, r.username, r.client, r.event_timestamp, r.customer_ip,
+               r.request_result, r.created_at
+        from login_processing.processed_message p
+        join login_processing.login_tracking_result r
+          on r.id = p.result_id
+         and r.event_timestamp = p.event_timestamp
+        where p.message_id = :messageId
+        """, nativeQuery = true)
+    Optional<LoginTrackingResultEntity> findByMessageId(@Param("messageId") UUID messageId);
 
-    @Modifying(clearAutomatically = true, flushAutomatically = true)
     @Query(value = """
-        insert into login_processing.login_tracking_result
-          (id, message_id, customer_id, username, client, event_timestamp, customer_ip, request_result, created_at)
-        values
-          (:id, :messageId, :customerId, :username, :client, :eventTimestamp, :customerIp, :requestResult, now())
-        on conflict (message_id) do nothing
+        select message_id
+        from login_processing.processed_message
+        where message_id in (:messageIds)
+        """, nativeQuery = true)
+    List<UUID> findExistingMessageIds(@Param("messageIds") Collection<UUID> messageIds);
+
+    /**
+     * MessageIds processed within the last {@code windowMs}, newest first, at most {@code limit}; used to warm the
+     * in-memory dedup filter. The window bounds the read to the recent block ranges of the V10 BRIN index.
+     */
+    @Query(value = """
+        select message_id
+        from login_processing.processed_message
+        where created_at > now() - make_interval(secs => :windowMs / 1000.0)
+        order by created_at desc
+        limit :limit
+        """, nativeQuery = true)
+    List<UUID> findRecentMessageIds(@Param("windowMs") long windowMs, @Param("limit") int limit);
+
+    /**
+     * Writes a result row and its outbox row with one data-modifying CTE. The messageId is claimed first in
+     * {@code processed_message}, which is unique on messageId alone whatever the event timestamp; the result and
+     * outbox rows are inserted only when the claim succeeded (a conflicting messageId already has both, written in
+     * the transaction that claimed it).
+     * Reports the outcome in the same round trip: the inserted row's id with {@code inserted = true}, or the
+     * existing row's id with {@code inserted = false}.
+     * The outbox row becomes claimable {@code claimDelayMs} after now (see {@code OutboxDirectPublisher}).
+     * A {@code PENDING} result gets no outbox row; it is due for re-tracking right away ({@link #claimDuePending}).
+     * Empty if a concurrent transaction committed the same messageId after this statement took its snapshot
+     * (the conflict is detected, but the row is not visible to the statement yet); callers re-read it then.
+     * Not {@code @Modifying}, so the persistence context is left alone.
+     */
+    @Transactional
+    @Query(value = """
+        with claim as (
+          insert into login_processing.processed_message (message_id, result_id, event_timestamp, created_at)
+          values (:messageId, :id, :eventTimestamp, now())
+          on conflict (message_id) do nothing
+          returning result_id
+        ),
+        ins as (
+          insert into login_processing.login_tracking_result
+            (id, message_id, customer_id, username, client, event_timestamp, customer_ip, request_result, created_at,
+             next_tracking_at)
+          select :id, :messageId, :customerId, :username, :client, :eventTimestamp, :customerIp, :requestResult, now(),
+                 case when :requestResult = 'PENDING' then now() end
+          from claim
+          on conflict (message_id, event_timestamp) do nothing
+          returning id
+        ),
+        outbox as (
+          insert into login_processing.outbox_event
+            (id, aggregate_type, aggregate_id, event_type, topic, key, payload, status, retry_count, last_error, last_attempt_at, sent_at, version, created_at,
+             next_attempt_at)
+          select :outboxId, :aggregateType, ins.id, :eventType, :topic, :key, :payload, 'NEW', 0, null, null, null, 0, now(),
+                 now() + cast(:claimDelayMs as bigint) * interval '1 millisecond'
+          from ins
+          where :requestResult <> 'PENDING'
+          on conflict (aggregate_type, aggregate_id, event_type) do nothing
+        )
+        select id, true as inserted from ins
+        union all
+        select p.result_id, false as inserted
+        from login_processing.processed_message p
+        where p.message_id = :messageId
+          and not exists (select 1 from claim)
         """, nativeQuery = true)
-    int insertIgnore(
+    Optional<InsertOutcome> insertIgnoreWithOutbox(
             @Param("id") UUID id,
             @Param("messageId") UUID messageId,
             @Param("customerId") UUID customerId,
@@ -32,6 +108,226 @@ public interface LoginTrackingResultRepository extends JpaRepository<LoginTracki
             @Param("client") String client,
             @Param("eventTimestamp") Instant eventTimestamp,
             @Param("customerIp") String customerIp,
-            @Param("requestResult") String requestResult
+            @Param("requestResult") String requestResult,
+            @Param("outboxId") UUID outboxId,
+            @Param("aggregateType") String aggregateType,
+            @Param("eventType") String eventType,
+            @Param("topic") String topic,
+            @Param("key") String key,
+            @Param("payload") byte[] payload,
+            @Param("claimDelayMs") long claimDelayMs
     );
+
+    /**
+     * Set-based variant of {@link #insertIgnoreWithOutbox} used by the batch listener: all result rows of a poll
+     * and the outbox rows of those that were inserted are written with one statement. Arrays are positional, i.e.
+     * index {@code i} of every array describes the same row, and messageIds must be distinct. Returns the ids of the
+     * result rows that were actually inserted (rows whose messageId was already claimed are skipped);
+     * {@code PENDING} rows among them have no outbox row.
+     */
+    @Transactional
+    @Query(value = """
+        with input as (
+          select *
+          from unnest(
+                 cast(:ids as uuid[]),
+                 cast(:messageIds as uuid[]),
+                 cast(:customerIds as uuid[]),
+                 cast(:usernames as varchar[]),
+                 cast(:clients as varchar[]),
+                 cast(:eventTimestamps as timestamptz[]),
+                 cast(:customerIps as varchar[]),
+                 cast(:requestResults as varchar[]),
+                 cast(:outboxIds as uuid[]),
+                 cast(:keys as text[]),
+                 cast(:payloads as bytea[])
+               ) as r(id, message_id, customer_id, username, client, event_timestamp, customer_ip, request_result,
+                      outbox_id, key, payload)
+        ),
+        claim as (
+          insert into login_processing.processed_message (message_id, result_id, event_timestamp, created_at)
+          select message_id, id, event_timestamp, now()
+          from input
+          on conflict (message_id) do nothing
+          returning result_id
+        ),
+        ins as (
+          insert into login_processing.login_tracking_result
+            (id, message_id, customer_id, username, client, event_timestamp, customer_ip, request_result, created_at,
+             next_tracking_at)
+          select i.id, i.message_id, i.customer_id, i.username, i.client, i.event_timestamp, i.customer_ip,
+                 i.request_result, now(),
+                 case when i.request_result = 'PENDING' then now() end
+          from input i
+          join claim c on c.result_id = i.id
+          on conflict (message_id, event_timestamp) do nothing
+          returning id
+        ),
+        outbox as (
+          insert into login_processing.outbox_event
+            (id, aggregate_type, aggregate_id, event_type, topic, key, payload, status, retry_count, last_error, last_attempt_at, sent_at, version, created_at,
+             next_attempt_at)
+          select i.outbox_id, :aggregateType, i.id, :eventType, :topic, i.key, i.payload, 'NEW', 0, null, null, null, 0, now(),
+                 now() + cast(:claimDelayMs as bigint) * interval '1 millisecond'
+          from input i
+          join ins on ins.id = i.id
+          where i.request_result <> 'PENDING'
+          on conflict (aggregate_type, aggregate_id, event_type) do nothing
+        )
+        select id from ins
+        """, nativeQuery = true)
+    List<UUID> insertIgnoreAllWithOutbox(
+            @Param("ids") UUID[] ids,
+            @Param("messageIds") UUID[] messageIds,
+            @Param("customerIds") UUID[] customerIds,
+            @Param("usernames") String[] usernames,
+            @Param("clients") String[] clients,
+            @Param("eventTimestamps") Instant[] eventTimestamps,
+            @Param("customerIps") String[] customerIps,
+            @Param("requestResults") String[] requestResults,
+            @Param("outboxIds") UUID[] outboxIds,
+            @Param("aggregateType") String aggregateType,
+            @Param("eventType") String eventType,
+            @Param("topic") String topic,
+            @Param("keys") String[] keys,
+            @Param("payloads") byte[][] payloads,
+            @Param("claimDelayMs") long claimDelayMs
+    );
+
+    /**
+     * Claims up to {@code limit} PENDING results that are due ({@code next_tracking_at <= now()}), earliest first,
+     * and leases them: {@code next_tracking_at} moves {@code leaseMs} ahead, so the claim commits right away and no
+     * transaction stays open during the tracking calls, while other retriers (threads or replicas) skip the rows.
+     * If the claimer dies before recording an outcome, the rows are claimed again once the lease has run out.
+     * Served by the partial index {@code ix_login_tracking_result_pending_next_tracking_at}.
+     */
+    @Transactional
+    @Query(value = """
+        update login_processing.login_tracking_result r
+        set next_tracking_at = now() + cast(:leaseMs as bigint) * interval '1 millisecond'
+        from (
+          select id, event_timestamp
+          from login_processing.login_tracking_result
+          where request_result = 'PENDING'
+            and next_tracking_at <= now()
+          order by next_tracking_at
+          limit :limit
+          for update skip locked
+        ) due
+        where r.id = due.id
+          and r.event_timestamp = due.event_timestamp
+        returning r.id, r.message_id as messageId, r.customer_id as customerId, r.username, r.client,
+                  r.event_timestamp as eventTimestamp, r.customer_ip as customerIp,
+                  r.tracking_attempts as trackingAttempts
+        """, nativeQuery = true)
+    List<PendingResult> claimDuePending(@Param("limit") int limit, @Param("leaseMs") long leaseMs);
+
+    /**
+     * Records the final result of re-tracked PENDING rows and writes their outbox rows with one statement, like
+     * {@link #insertIgnoreAllWithOutbox}. Rows that are no longer PENDING (finished by another retrier after a lease
+     * ran out) are left alone and get no second outbox row. Arrays are positional. Returns the ids of the rows
+     * that were updated.
+     */
+    @Query(value = """
+        with input as (
+          select *
+          from unnest(
+                 cast(:ids as uuid[]),
+                 cast(:eventTimestamps as timestamptz[]),
+                 cast(:requestResults as varchar[]),
+                 cast(:outboxIds as uuid[]),
+                 cast(:keys as text[]),
+                 cast(:payloads as bytea[])
+               ) as f(id, event_timestamp, request_result, outbox_id, key, payload)
+        ),
+        upd as (
+          update login_processing.login_tracking_result r
+          set request_result = f.request_result,
+              tracking_attempts = r.tracking_attempts + 1,
+              next_tracking_at = null
+          from input f
+          where r.id = f.id
+            and r.event_timestamp = f.event_timestamp
+            and r.request_result = 'PENDING'
+          returning r.id
+        ),
+        outbox as (
+          insert into login_processing.outbox_event
+            (id, aggregate_type, aggregate_id, event_type, topic, key, payload, status, retry_count, last_error, last_attempt_at, sent_at, version, created_at,
+             next_attempt_at)
+          select f.outbox_id, :aggregateType, upd.id, :eventType, :topic, f.key, f.payload, 'NEW', 0, null, null, null, 0, now(),
+                 now() + cast(:claimDelayMs as bigint) * interval '1 millisecond'
+          from input f
+          join upd on upd.id = f.id
+          on conflict (aggregate_type, aggregate_id, event_type) do nothing
+        )
+        select id from upd
+        """, nativeQuery = true)
+    List<UUID> completePendingWithOutbox(
+            @Param("ids") UUID[] ids,
+            @Param("eventTimestamps") Instant[] eventTimestamps,
+            @Param("requestResults") String[] requestResults,
+            @Param("outboxIds") UUID[] outboxIds,
+            @Param("aggregateType") String aggregateType,
+            @Param("eventType") String eventType,
+            @Param("topic") String topic,
+            @Param("keys") String[] keys,
+            @Param("payloads") byte[][] payloads,
+            @Param("claimDelayMs") long claimDelayMs
+    );
+
+    /**
+     * Records another failed attempt for PENDING rows and schedules the next one after
+     * {@code min(maxBackoffMs, baseBackoffMs * 2^(attempts - 1))} with equal jitter, like
+     * {@code OutboxRepository.markAttemptsFailed}. With {@code countAttempt = false} (the circuit breaker or the
+     * concurrency limiter refused the call) the rows are only rescheduled and {@code tracking_attempts} is kept.
+     * {@code ids} and {@code eventTimestamps} are positional.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query(value = """
+        update login_processing.login_tracking_result r
+        set tracking_attempts = r.tracking_attempts + case when :countAttempt then 1 else 0 end,
+            next_tracking_at = now()
+                + least(:maxBackoffMs, :baseBackoffMs * power(2, least(r.tracking_attempts - 1, 30)))
+                  * (0.5 + random() * 0.5)
+                  * interval '1 millisecond'
+        from unnest(
+               cast(:ids as uuid[]),
+               cast(:eventTimestamps as timestamptz[])
+             ) as f(id, event_timestamp)
+        where r.id = f.id
+          and r.event_timestamp = f.event_timestamp
+          and r.request_result = 'PENDING'
+        """, nativeQuery = true)
+    int reschedulePending(
+            @Param("ids") UUID[] ids,
+            @Param("eventTimestamps") Instant[] eventTimestamps,
+            @Param("baseBackoffMs") long baseBackoffMs,
+            @Param("maxBackoffMs") long maxBackoffMs,
+            @Param("countAttempt") boolean countAttempt
+    );
+
+    interface PendingResult {
+        UUID getId();
+
+        UUID getMessageId();
+
+        UUID getCustomerId();
+
+        String getUsername();
+
+        String getClient();
+
+        Instant getEventTimestamp();
+
+        String getCustomerIp();
+
+        int getTrackingAttempts();
+    }
+
+    interface InsertOutcome {
+        UUID getId();
+
+        boolean isInserted();
+    }
 }
@@ -8,28 +8,229 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
 public interface OutboxRepository extends JpaRepository<OutboxEntity, UUID> {
     List<OutboxEntity> findByStatusOrderByCreatedAtAsc(PublicationStatus status, Pageable pageable);
 
+    /**
+     * Claims the NEW rows that are due ({@code next_attempt_at <= now()}), earliest first, for the current
+     * transaction: the rows stay locked until it ends and rows already locked by another publisher are skipped,
+     * so concurrent publishers (threads or replicas) get disjoint batches.
+     * If a claimer dies, its transaction is rolled back and the rows become claimable again.
+     * Served by the partial index {@code ix_outbox_event_new_next_attempt_at}.
+     * Returns a read-only projection of the columns the send loop needs, not managed entities: nothing is
+     * dirty-checked or flushed, and the outcome is written by {@link #markSent} / {@link #markAttemptsFailed}.
+     */
+    @Query(value = """
+        select id, topic, key, payload, retry_count as retryCount, created_at as createdAt
+        from login_processing.outbox_event
+        where status = 'NEW'
+          and next_attempt_at <= now()
+        order by next_attempt_at
+        limit :limit
+        for update skip locked
+        """, nativeQuery = true)
+    List<ClaimedEvent> claimNextBatch(@Param("limit") int limit);
+
+    /**
+     * Number of NEW rows that are due, counted on the partial index {@code ix_outbox_event_new_next_attempt_at}
+     * and capped at {@code limit}: a deep backlog reads as {@code limit} instead of costing a full count.
+     */
+    @Query(value = """
+        select count(*)
+        from (
+            select 1
+            from login_processing.outbox_event
+            where status = 'NEW'
+              and next_attempt_at <= now()
+            limit :limit
+        ) due
+        """, nativeQuery = true)
+    long countDueNew(@Param("limit") int limit);
+
+    /**
+     * Marks a whole published batch as SENT with one statement.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query(value = """
+        update login_processing.outbox_event
+        set status = 'SENT',
+            sent_at = :sentAt,
+            last_attempt_at = :sentAt,
+            last_error = null,
+            version = version + 1
+        where id = any(cast(:ids as uuid[]))
+        """, nativeQuery = true)
+    int markSent(@Param("ids") UUID[] ids, @Param("sentAt") Instant sentAt);
+
+    /**
+     * Marks rows acknowledged by the direct-publish fast path as SENT, in its own transaction. Rows no longer NEW
+     * (already published by {@code OutboxPublisher} after the claim delay) are left alone.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+        update login_processing.outbox_event
+        set status = 'SENT',
+            sent_at = :sentAt,
+            last_attempt_at = :sentAt,
+            version = version + 1
+        where id = any(cast(:ids as uuid[]))
+          and status = 'NEW'
+        """, nativeQuery = true)
+    int markSentIfNew(@Param("ids") UUID[] ids, @Param("sentAt") Instant sentAt);
+
+    /**
+     * Whether an outbox row with the same key as {@code id}, created no later than it, is still waiting to be
+     * published. The direct-publish fast path asks this before sending a row of a key whose earlier row it failed
+     * to send, so the row does not overtake it.
+     */
+    @Query(value = """
+        select exists (
+            select 1
+            from login_processing.outbox_event o
+            join login_processing.outbox_event self on self.id = :id
+            where o.key = :key
+              and o.status = 'NEW'
+              and o.id <> self.id
+              and o.created_at <= self.created_at
+        )
+        """, nativeQuery = true)
+    boolean existsEarlierNew(@Param("key") String key, @Param("id") UUID id);
+
+    /**
+     * The keys among {@code keys} that still have NEW outbox rows.
+     */
+    @Query(value = """
+        select distinct o.key
+        from login_processing.outbox_event o
+        where o.key = any(cast(:keys as text[]))
+          and o.status = 'NEW'
+        """, nativeQuery = true)
+    List<String> findKeysWithNew(@Param("keys") String[] keys);
+
+    /**
+     * Records a failed publish attempt for every row of a batch with one statement:
+     * increments {@code retry_count}, moves rows that reach {@code maxRetries} to FAILED and schedules the next
+     * attempt of the others after {@code min(maxBackoffMs, baseBackoffMs * 2^retry_count)}, randomised to
+     * 50-100% of that ("equal jitter") so rows failed by the same outage do not all come back at once.
+     * Computed with the database clock, like the {@code now()} the claim query compares against.
+     * {@code ids} and {@code errors} are positional.
+     */
     @Modifying(clearAutomatically = true, flushAutomatically = true)
     @Query(value = """
-        insert into login_processing.outbox_event
-          (id, aggregate_type, aggregate_id, event_type, topic, key, payload, status, retry_count, last_error, last_attempt_at, sent_at, version, created_at)
-        values
-          (:id, :aggregateType, :aggregateId, :eventType, :topic, :key, :payload, 'NEW', 0, null, null, null, 0, now())
-        on conflict (aggregate_type, aggregate_id, event_type) do nothing
-        """, nativeQuery = true)
-    int insertIgnore(
-            @Param("id") UUID id,
-            @Param("aggregateType") String aggregateType,
-            @Param("aggregateId") UUID aggregateId,
-            @Param("eventType") String eventType,
-            @Param("topic") String topic,
-            @Param("key") String key,
-            @Param("payload") byte[] payload
+        update login_processing.outbox_event o
+        set retry_count = o.retry_count + 1,
+            last_attempt_at = :attemptAt,
+            last_error = f.error,
+            status = case when o.retry_count + 1 >= :maxRetries then 'FAILED' else o.status end,
+            next_attempt_at = now()
+                + least(:maxBackoffMs, :baseBackoffMs * power(2, least(o.retry_count, 30)))
+                  * (0.5 + random() * 0.5)
+                  * interval '1 millisecond',
+            version = o.version + 1
+        from unnest(
+               cast(:ids as uuid[]),
+               cast(:errors as text[])
+             ) as f(id, error)
+        where o.id = f.id
+        """, nativeQuery = true)
+    int markAttemptsFailed(
+            @Param("ids") UUID[] ids,
+            @Param("errors") String[] errors,
+            @Param("attemptAt") Instant attemptAt,
+            @Param("maxRetries") int maxRetries,
+            @Param("baseBackoffMs") long baseBackoffMs,
+            @Param("maxBackoffMs") long maxBackoffMs
     );
+
+    /**
+     * Deletes up to {@code limit} SENT rows sent before {@code cutoff}, oldest first, and returns how many were
+     * deleted. Rows locked by someone else are skipped, so a purge never waits on a publisher.
+     * Served by the partial index {@code ix_outbox_event_sent_sent_at}.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query(value = """
+        delete from login_processing.outbox_event
+        where id in (
+          select id
+          from login_processing.outbox_event
+          where status = 'SENT'
+            and sent_at < :cutoff
+          order by sent_at
+          limit :limit
+          for update skip locked
+        )
+        """, nativeQuery = true)
+    int deleteSentBefore(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+
+    /**
+     * WAL relay variant of {@link #deleteSentBefore}: rows are never marked SENT there, so rows created before
+     * {@code cutoff} are deleted whatever their status. Deleting a row the relay has not read yet loses nothing:
+     * the relay reads the insert from the WAL, which the replication slot retains.
+     * Served by the BRIN index {@code ix_outbox_event_created_at_brin}.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query(value = """
+        delete from login_processing.outbox_event
+        where id in (
+          select id
+          from login_processing.outbox_event
+          where created_at < :cutoff
+          order by created_at
+          limit :limit
+          for update skip locked
+        )
+        """, nativeQuery = true)
+    int deleteCreatedBefore(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+
+    /**
+     * Like {@link #deleteSentBefore}, but the deleted rows are copied into {@code outbox_event_archive} by the
+     * same statement. Returns the number of rows moved.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query(value = """
+        with moved as (
+          delete from login_processing.outbox_event
+          where id in (
+            select id
+            from login_processing.outbox_event
+            where status = 'SENT'
+              and sent_at < :cutoff
+            order by sent_at
+            limit :limit
+            for update skip locked
+          )
+          returning *
+        )
+        insert into login_processing.outbox_event_archive
+          (id, aggregate_type, aggregate_id, event_type, topic, key, payload, status, retry_count, last_error,
+           version, created_at, last_attempt_at, sent_at, next_attempt_at)
+        select id, aggregate_type, aggregate_id, event_type, topic, key, payload, status, retry_count, last_error,
+               version, created_at, last_attempt_at, sent_at, next_attempt_at
+        from moved
+        """, nativeQuery = true)
+    int archiveSentBefore(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+
+    interface ClaimedEvent {
+        UUID getId();
+
+        String getTopic();
+
+        String getKey();
+
+        byte[] getPayload();
+
+        int getRetryCount();
+
+        Instant getCreatedAt();
+    }
 }
@@ -0,0 +1,48 @@
+package com.codechallenge.loginprocessingservice.service;
+
+/**
+ * Picks the outbox claim size for the next batch from the previous one.
+ * Multiplicative increase/decrease: a batch that took longer than the target latency halves the size
+ * (shorter row locks, smaller ack waits); a full batch that finished in time doubles it, since a full page means
+ * more rows are probably due. A batch that was not full leaves the size unchanged.
+ * Thread-safe, since the scheduled poll and the notification drain may run at the same time.
+ */
+public class AdaptiveBatchSizer {
+
+    private final int minSize;
+    private final int maxSize;
+    private final long targetLatencyNanos;
+
+    private int size;
+
+    public AdaptiveBatchSizer(int initialSize, int minSize, int maxSize, long targetLatencyMs) {
+        if (minSize < 1 || maxSize < minSize) {
+            throw new IllegalArgumentException("invalid batch size bounds min=" + minSize + " max=" + maxSize);
+        }
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.targetLatencyNanos = targetLatencyMs * 1_000_000L;
+        this.size = clamp(initialSize);
+    }
+
+    public synchronized int current() {
+        return size;
+    }
+
+    /**
+     * @param limit        claim size the batch was run with
+     * @param published    rows published by the batch
+     * @param elapsedNanos duration of the batch (claim, send, acks, status update)
+     */
+    public synchronized void onBatch(int limit, int published, long elapsedNanos) {
+        if (elapsedNanos > targetLatencyNanos) {
+            size = clamp(size / 2);
+        } else if (published >= limit) {
+            size = clamp(size * 2);
+        }
+    }
+
+    private int clamp(int value) {
+        return Math.max(minSize, Math.min(maxSize, value));
+    }
+}
@@ -0,0 +1,236 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * {@link TrackingConcurrencyLimiter} whose limit follows the observed latency, additive increase / multiplicative
+ * decrease. A request that finished within {@code latencyThresholdMs} while at least half of the limit was in use
+ * raises the limit by one. A slower request, or one that was dropped (I/O error or timeout, 5xx, 429), multiplies
+ * it by {@code backoffRatio}, at most once per sampling window: requests that were already in flight when the
+ * limit was last decreased do not decrease it again, so a burst of timeouts from one overloaded moment shrinks the
+ * limit once instead of collapsing it to {@code minLimit}. The limit settles just below the concurrency at which the tracking service starts
+ * to slow down and shrinks quickly once it degrades, so retries no longer pile onto a struggling service.
+ * Calls over the limit wait in arrival order, at most {@code maxQueue} of them for at most {@code maxWaitMs};
+ * the others are rejected. Thread-safe.
+ */
+public class AimdConcurrencyLimiter implements TrackingConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+    private final int maxQueue;
+    private final long maxWaitMs;
+    private final ScheduledExecutorService scheduler;
+
+    private final Counter rejected;
+
+    private final Permits permits;
+
+    public AimdConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+                                  long latencyThresholdMs, int maxQueue, long maxWaitMs,
+                                  ScheduledExecutorService scheduler, MeterRegistry meterRegistry) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("invalid concurrency limit bounds min=" + minLimit + " max=" + maxLimit);
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoff ratio must be in (0, 1), was " + backoffRatio);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThresholdMs * 1_000_000L;
+        this.maxQueue = maxQueue;
+        this.maxWaitMs = maxWaitMs;
+        this.scheduler = scheduler;
+        this.permits = new Permits(Math.max(minLimit, Math.min(maxLimit, initialLimit)));
+
+        Gauge.builder("customer.tracking.concurrency.limit", permits, Permits::limit)
+                .description("Current adaptive limit of customer-tracking requests in flight")
+                .register(meterRegistry);
+        Gauge.builder("customer.tracking.concurrency.in-flight", permits, Permits::inFlight)
+                .description("Customer-tracking requests holding a permit")
+                .register(meterRegistry);
+        Gauge.builder("customer.tracking.concurrency.queued", permits, Permits::queued)
+                .description("Customer-tracking calls waiting for a permit")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("customer.tracking.concurrency.rejected")
+                .description("Customer-tracking calls rejected because the queue was full or the wait timed out")
+                .register(meterRegistry);
+    }
+
+    public int limit() {
+        return permits.limit();
+    }
+
+    public int inFlight() {
+        return permits.inFlight();
+    }
+
+    public int queued() {
+        return permits.queued();
+    }
+
+    @Override
+    public boolean call(Supplier<Boolean> call) {
+        try {
+            acquire().join();
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+        }
+
+        long start = System.nanoTime();
+        boolean result;
+        try {
+            result = call.get();
+        } catch (RuntimeException ex) {
+            release(start, isDropped(ex));
+            throw ex;
+        }
+        release(start, false);
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> callAsync(Supplier<CompletableFuture<Boolean>> call) {
+        // completed by hand so callers see the original exception rather than a CompletionException
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        acquire().whenComplete((permit, rejection) -> {
+            if (rejection != null) {
+                result.completeExceptionally(unwrap(rejection));
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                call.get().whenComplete((ok, error) -> {
+                    Throwable cause = error == null ? null : unwrap(error);
+                    release(start, cause != null && isDropped(cause));
+                    if (cause != null) {
+                        result.completeExceptionally(cause);
+                    } else {
+                        result.complete(ok);
+                    }
+                });
+            } catch (RuntimeException ex) {
+                release(start, isDropped(ex));
+                result.completeExceptionally(ex);
+            }
+        });
+        return result;
+    }
+
+    private CompletableFuture<Void> acquire() {
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        synchronized (permits) {
+            if (permits.inFlight < permits.limit && permits.waiters.isEmpty()) {
+                permits.inFlight++;
+                waiter.complete(null);
+                return waiter;
+            }
+            if (permits.waiters.size() >= maxQueue) {
+                rejected.increment();
+                return CompletableFuture.failedFuture(new RejectedExecutionException(
+                        "customer-tracking concurrency limit " + permits.limit + " reached, " + maxQueue + " calls queued"));
+            }
+            permits.waiters.add(waiter);
+        }
+        scheduler.schedule(() -> expire(waiter), maxWaitMs, TimeUnit.MILLISECONDS);
+        return waiter;
+    }
+
+    private void expire(CompletableFuture<Void> waiter) {
+        synchronized (permits) {
+            if (!permits.waiters.remove(waiter)) {
+                return;
+            }
+        }
+        rejected.increment();
+        waiter.completeExceptionally(new RejectedExecutionException(
+                "no customer-tracking permit within " + maxWaitMs + " ms"));
+    }
+
+    private void release(long startNanos, boolean dropped) {
+        long now = System.nanoTime();
+        List<CompletableFuture<Void>> admitted = new ArrayList<>();
+        synchronized (permits) {
+            if (dropped || now - startNanos > latencyThresholdNanos) {
+                // only requests sent after the last decrease saw its effect; the others belong to the same window
+                if (startNanos - permits.lastDecreaseNanos >= 0) {
+                    permits.limit = clamp((int) (permits.limit * backoffRatio));
+                    permits.lastDecreaseNanos = now;
+                }
+            } else if (permits.inFlight * 2 >= permits.limit) {
+                permits.limit = clamp(permits.limit + 1);
+            }
+            permits.inFlight--;
+            while (permits.inFlight < permits.limit && !permits.waiters.isEmpty()) {
+                permits.inFlight++;
+                admitted.add(permits.waiters.poll());
+            }
+        }
+        // outside the lock: completing a waiter starts its call on this thread
+        admitted.forEach(waiter -> waiter.complete(null));
+    }
+
+    /**
+     * Failures that mean the service is overloaded, as opposed to a rejected request (4xx).
+     */
+    private static boolean isDropped(Throwable error) {
+        return error instanceof ResourceAccessException
+                || error instanceof HttpServerErrorException
+                || error instanceof RestClientResponseException response
+                && response.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private int clamp(int value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+
+    /**
+     * Limit, permits and waiters, guarded by the instance itself. Kept apart from the limiter so the gauges can
+     * read it without the constructor handing out {@code this}.
+     */
+    private static final class Permits {
+
+        private final ArrayDeque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+        private int limit;
+        private int inFlight;
+        private long lastDecreaseNanos = System.nanoTime();
+
+        private Permits(int limit) {
+            this.limit = limit;
+        }
+
+        synchronized int limit() {
+            return limit;
+        }
+
+        synchronized int inFlight() {
+            return inFlight;
+        }
+
+        synchronized int queued() {
+            return waiters.size();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over messageIds with bounded memory.
+ * Two generations, each sized for {@code expectedInsertions} at {@code fpp}: new ids go into the current one and
+ * lookups check both. Once the current generation is full it becomes the previous one and the old previous one is
+ * dropped, so memory stays at two generations and the filter remembers between {@code expectedInsertions} and
+ * {@code 2 * expectedInsertions} of the most recent ids (redeliveries are recent). The false-positive rate is at most
+ * about {@code 2 * fpp}. Bits are set with CAS, so lookups and inserts are lock-free; only rotation locks.
+ */
+public class BloomMessageIdFilter implements MessageIdFilter {
+
+    private final long expectedInsertions;
+    private final int numBits;
+    private final int numHashes;
+
+    private volatile Generation current;
+    private volatile Generation previous;
+
+    public BloomMessageIdFilter(long expectedInsertions, double fpp) {
+        if (expectedInsertions < 1) {
+            throw new IllegalArgumentException("expectedInsertions must be positive: " + expectedInsertions);
+        }
+        if (!(fpp > 0 && fpp < 1)) {
+            throw new IllegalArgumentException("fpp must be in (0, 1): " + fpp);
+        }
+        this.expectedInsertions = expectedInsertions;
+
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        // whole 64-bit words, capped at what an int index can address
+        this.numBits = (int) Math.min((long) Integer.MAX_VALUE - 63, (bits + 63) / 64 * 64);
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / expectedInsertions * Math.log(2)));
+
+        this.current = new Generation(numBits);
+        this.previous = null;
+    }
+
+    @Override
+    public boolean mightContain(UUID messageId) {
+        long h1 = hash1(messageId);
+        long h2 = hash2(messageId);
+        Generation prev = previous;
+        return current.mightContain(h1, h2, numHashes) || (prev != null && prev.mightContain(h1, h2, numHashes));
+    }
+
+    @Override
+    public void put(UUID messageId) {
+        Generation gen = current;
+        gen.put(hash1(messageId), hash2(messageId), numHashes);
+        if (gen.insertions.incrementAndGet() >= expectedInsertions) {
+            rotate(gen);
+        }
+    }
+
+    /**
+     * Bytes held by the bit arrays of both generations.
+     */
+    public long memoryBytes() {
+        return (previous != null ? 2L : 1L) * (numBits / 8);
+    }
+
+    /**
+     * Number of ids inserted into the generations that are still held.
+     */
+    public long approximateEntries() {
+        Generation prev = previous;
+        return current.insertions.get() + (prev != null ? prev.insertions.get() : 0);
+    }
+
+    /**
+     * False-positive probability derived from the fill ratio of both generations, {@code 1 - prod(1 - fill^k)}.
+     */
+    public double expectedFpp() {
+        Generation prev = previous;
+        double miss = 1 - Math.pow(current.fillRatio(numBits), numHashes);
+        if (prev != null) {
+            miss *= 1 - Math.pow(prev.fillRatio(numBits), numHashes);
+        }
+        return 1 - miss;
+    }
+
+    private synchronized void rotate(Generation full) {
+        if (current != full) {
+            return;
+        }
+        previous = full;
+        current = new Generation(numBits);
+    }
+
+    // murmur3 finalizer: UUIDv4 bits are random already, but time-ordered ids are not
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    private static long hash1(UUID id) {
+        return mix(id.getMostSignificantBits() ^ mix(id.getLeastSignificantBits()));
+    }
+
+    private static long hash2(UUID id) {
+        // odd, so the probe sequence h1 + i * h2 does not collapse
+        return mix(id.getLeastSignificantBits() + 0x9e3779b97f4a7c15L) | 1L;
+    }
+
+    private static final class Generation {
+
+        private final AtomicLongArray words;
+        private final AtomicLong insertions = new AtomicLong();
+
+        private Generation(int numBits) {
+            this.words = new AtomicLongArray(numBits / 64);
+        }
+
+        private boolean mightContain(long h1, long h2, int numHashes) {
+            int numBits = words.length() * 64;
+            for (int i = 0; i < numHashes; i++) {
+                int bit = (int) Long.remainderUnsigned(h1 + i * h2, numBits);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void put(long h1, long h2, int numHashes) {
+            int numBits = words.length() * 64;
+            for (int i = 0; i < numHashes; i++) {
+                int bit = (int) Long.remainderUnsigned(h1 + i * h2, numBits);
+                long mask = 1L << bit;
+                int word = bit >>> 6;
+                long value = words.get(word);
+                while ((value & mask) == 0 && !words.compareAndSet(word, value, value | mask)) {
+                    value = words.get(word);
+                }
+            }
+        }
+
+        private double fillRatio(int numBits) {
+            long set = 0;
+            for (int i = 0; i < words.length(); i++) {
+                set += Long.bitCount(words.get(i));
+            }
+            return (double) set / numBits;
+        }
+    }
+}
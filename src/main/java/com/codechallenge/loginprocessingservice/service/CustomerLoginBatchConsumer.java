@@ -0,0 +1,105 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import com.codechallenge.loginprocessingservice.config.KafkaConsumerConfig;
+import com.codechallenge.loginprocessingservice.dto.CustomerLoginEvent;
+import com.codechallenge.loginprocessingservice.model.LoginTrackingResultEntity;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Processes a whole poll like {@link LoginProcessingServiceImpl#processBatch}: the poll is tracked
+ * ({@link LoginProcessingServiceImpl#trackBatch}) and the tracked rows are written with one set-based statement.
+ * If that write fails, the same rows are written one by one, without tracking them again, to find the one that
+ * fails; it is reported to the container's error handler as a {@link BatchListenerFailedException} with its index:
+ * the records before it are done (and committed), the failed one is retried and eventually skipped on its own, and
+ * only the records after it are redelivered. A failure that is not caused by one record (e.g. the database is down)
+ * fails at the first record, so the whole poll is retried as before.
+ */
+@Component
+@ConditionalOnProperty(name = "app.kafka.listener.mode", havingValue = KafkaConsumerConfig.LISTENER_MODE_BATCH)
+public class CustomerLoginBatchConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerLoginBatchConsumer.class);
+
+    private final LoginProcessingServiceImpl processingService;
+    private final PartitionHandoverTracker handoverTracker;
+
+    public CustomerLoginBatchConsumer(LoginProcessingServiceImpl processingService,
+                                      PartitionHandoverTracker handoverTracker) {
+        this.processingService = processingService;
+        this.handoverTracker = handoverTracker;
+    }
+
+    @KafkaListener(
+            topics = "${app.kafka.topic.input}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "customerLoginKafkaListenerContainerFactory"
+    )
+    public void onBatch(List<ConsumerRecord<String, CustomerLoginEvent>> records, Acknowledgment ack) {
+        log.info("[DEBUG_LOG] Received customer-login batch size={}", records.size());
+
+        List<CustomerLoginEvent> events = records.stream()
+                .map(ConsumerRecord::value)
+                .filter(Objects::nonNull)
+                .toList();
+
+        Set<UUID> mayBeRedelivered = new HashSet<>();
+        for (ConsumerRecord<String, CustomerLoginEvent> record : records) {
+            if (record.value() != null
+                    && handoverTracker.mayBeRedelivery(record.topic(), record.partition(), record.offset())) {
+                mayBeRedelivered.add(record.value().messageId());
+            }
+        }
+
+        if (!events.isEmpty()) {
+            List<LoginTrackingResultEntity> tracked = processingService.trackBatch(events, mayBeRedelivered);
+            try {
+                processingService.writeTracked(tracked);
+            } catch (RuntimeException ex) {
+                log.warn("Customer-login batch write of {} rows failed, writing them one by one", tracked.size(), ex);
+                writeOneByOne(records, tracked);
+            }
+        }
+
+        ack.acknowledge();
+    }
+
+    /**
+     * Writes each tracked row on its own, in record order. Records without a row (duplicates, invalid events,
+     * repeated messageIds) have nothing left to write.
+     */
+    private void writeOneByOne(List<ConsumerRecord<String, CustomerLoginEvent>> records,
+                               List<LoginTrackingResultEntity> tracked) {
+        Map<UUID, LoginTrackingResultEntity> byMessageId = new HashMap<>();
+        for (LoginTrackingResultEntity row : tracked) {
+            byMessageId.put(row.getMessageId(), row);
+        }
+        for (int i = 0; i < records.size(); i++) {
+            CustomerLoginEvent event = records.get(i).value();
+            LoginTrackingResultEntity row = event == null ? null : byMessageId.remove(event.messageId());
+            if (row == null) {
+                continue;
+            }
+            try {
+                processingService.writeTracked(List.of(row));
+            } catch (RuntimeException ex) {
+                throw new BatchListenerFailedException(
+                        "Customer-login record failed messageId=" + event.messageId(), ex, i);
+            }
+        }
+    }
+}
@@ -1,24 +1,31 @@
 package com.codechallenge.loginprocessingservice.service;
 
+import com.codechallenge.loginprocessingservice.config.KafkaConsumerConfig;
 import com.codechallenge.loginprocessingservice.dto.CustomerLoginEvent;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.annotation.Validated;
 
 @Validated
 @Component
+@ConditionalOnProperty(name = "app.kafka.listener.mode", havingValue = KafkaConsumerConfig.LISTENER_MODE_RECORD, matchIfMissing = true)
 public class CustomerLoginConsumer {
 
     private static final Logger log = LoggerFactory.getLogger(CustomerLoginConsumer.class);
 
     private final LoginProcessingServiceImpl processingService;
+    private final PartitionHandoverTracker handoverTracker;
 
-    public CustomerLoginConsumer(LoginProcessingServiceImpl processingService) {
+    public CustomerLoginConsumer(LoginProcessingServiceImpl processingService, PartitionHandoverTracker handoverTracker) {
         this.processingService = processingService;
+        this.handoverTracker = handoverTracker;
     }
 
     @KafkaListener(
@@ -26,10 +33,14 @@ public class CustomerLoginConsumer {
             groupId = "${spring.kafka.consumer.group-id}",
             containerFactory = "customerLoginKafkaListenerContainerFactory"
     )
-    public void onMessage(@Valid CustomerLoginEvent event, Acknowledgment ack) {
+    public void onMessage(@Valid CustomerLoginEvent event,
+                          @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
+                          @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+                          @Header(KafkaHeaders.OFFSET) long offset,
+                          Acknowledgment ack) {
         log.info("[DEBUG_LOG] Received customer-login event messageId={} customerId={}", event.messageId(), event.customerId());
 
-        processingService.process(event);
+        processingService.process(event, handoverTracker.mayBeRedelivery(topic, partition, offset));
 
         ack.acknowledge();
     }
@@ -0,0 +1,221 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import com.codechallenge.loginprocessingservice.adapter.AsyncCustomerTrackingClient;
+import com.codechallenge.loginprocessingservice.adapter.CustomerTrackingClient;
+import com.codechallenge.loginprocessingservice.dto.CustomerLoginEvent;
+import com.codechallenge.loginprocessingservice.model.RequestResult;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * Calls customer-tracking with the {@code customerTracking} retry and maps the outcome to a {@link RequestResult}.
+ * {@code app.customer-tracking.client-mode} selects the transport:
+ * <ul>
+ *     <li>{@code blocking} (default): {@link CustomerTrackingClient}, retry waits sleep on the caller thread</li>
+ *     <li>{@code async}: {@link AsyncCustomerTrackingClient}, retry waits are scheduled on
+ *     {@code trackingRetryScheduler} so no thread is held between attempts</li>
+ * </ul>
+ * Each attempt goes through the {@link TrackingCallCoalescer}, so concurrent events of one customer can share a
+ * request, and every request that is actually sent passes the {@code customerTracking} circuit breaker and then
+ * holds a permit of the {@link TrackingConcurrencyLimiter}. While the breaker is open an attempt fails at once and
+ * is not retried. Neither method fails: exhausted retries and non-retryable errors become {@link RequestResult#UNSUCCESSFUL}.
+ * {@link #trackOnce} / {@link #trackOnceAsync} make a single attempt for deferred re-tracking
+ * ({@link PendingTrackingRetrier}) and report a failure that a later attempt may fix as {@link RequestResult#PENDING};
+ * {@link #attemptOnce} / {@link #attemptOnceAsync} also tell whether the breaker or the limiter refused the call.
+ */
+@Component
+public class CustomerTrackingService {
+
+    public static final String CLIENT_MODE_BLOCKING = "blocking";
+    public static final String CLIENT_MODE_ASYNC = "async";
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerTrackingService.class);
+
+    private final CustomerTrackingClient customerTrackingClient;
+    private final AsyncCustomerTrackingClient asyncCustomerTrackingClient;
+    private final TrackingCallCoalescer coalescer;
+    private final TrackingConcurrencyLimiter concurrencyLimiter;
+    private final CircuitBreaker circuitBreaker;
+    private final ScheduledExecutorService retryScheduler;
+    private final Retry customerTrackingRetry;
+    private final boolean async;
+
+    public CustomerTrackingService(CustomerTrackingClient customerTrackingClient,
+                                   AsyncCustomerTrackingClient asyncCustomerTrackingClient,
+                                   TrackingCallCoalescer coalescer,
+                                   TrackingConcurrencyLimiter concurrencyLimiter,
+                                   @Qualifier("customerTrackingCircuitBreaker") CircuitBreaker circuitBreaker,
+                                   RetryRegistry retryRegistry,
+                                   @Qualifier("trackingRetryScheduler") ScheduledExecutorService retryScheduler,
+                                   @Value("${app.customer-tracking.client-mode:" + CLIENT_MODE_BLOCKING + "}") String clientMode) {
+        this.customerTrackingClient = customerTrackingClient;
+        this.asyncCustomerTrackingClient = asyncCustomerTrackingClient;
+        this.coalescer = coalescer;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.circuitBreaker = circuitBreaker;
+        this.retryScheduler = retryScheduler;
+        this.customerTrackingRetry = retryRegistry.retry("customerTracking");
+        this.async = CLIENT_MODE_ASYNC.equalsIgnoreCase(clientMode);
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Tracks the login and waits for the outcome, using the configured transport.
+     */
+    public RequestResult track(CustomerLoginEvent event) {
+        if (async) {
+            return trackAsync(event).join();
+        }
+
+        Supplier<Boolean> decorated = Retry.decorateSupplier(customerTrackingRetry, () -> attempt(event));
+
+        try {
+            boolean ok = decorated.get();
+            return ok ? RequestResult.SUCCESSFUL : RequestResult.UNSUCCESSFUL;
+        } catch (Exception ex) {
+            logFailure(event, ex);
+            return RequestResult.UNSUCCESSFUL;
+        }
+    }
+
+    /**
+     * Tracks the login without blocking the caller; many calls can be in flight per thread.
+     */
+    public CompletableFuture<RequestResult> trackAsync(CustomerLoginEvent event) {
+        Supplier<CompletionStage<Boolean>> decorated = Retry.decorateCompletionStage(
+                customerTrackingRetry,
+                retryScheduler,
+                () -> attemptAsync(event)
+        );
+
+        return decorated.get().toCompletableFuture().handle((ok, ex) -> {
+            if (ex != null) {
+                logFailure(event, ex);
+                return RequestResult.UNSUCCESSFUL;
+            }
+            return Boolean.TRUE.equals(ok) ? RequestResult.SUCCESSFUL : RequestResult.UNSUCCESSFUL;
+        });
+    }
+
+    /**
+     * One attempt without retry, waiting for the outcome: {@link RequestResult#PENDING} when it failed with an
+     * error the {@code customerTracking} retry would retry, or was not let through by the circuit breaker or the
+     * concurrency limiter.
+     */
+    public RequestResult trackOnce(CustomerLoginEvent event) {
+        return attemptOnce(event).requestResult();
+    }
+
+    /**
+     * Non-blocking variant of {@link #trackOnce}.
+     */
+    public CompletableFuture<RequestResult> trackOnceAsync(CustomerLoginEvent event) {
+        return attemptOnceAsync(event).thenApply(TrackingAttempt::requestResult);
+    }
+
+    /**
+     * {@link #trackOnce} that also tells whether a request was let through at all.
+     */
+    public TrackingAttempt attemptOnce(CustomerLoginEvent event) {
+        if (async) {
+            return attemptOnceAsync(event).join();
+        }
+
+        try {
+            return TrackingAttempt.attempted(attempt(event) ? RequestResult.SUCCESSFUL : RequestResult.UNSUCCESSFUL);
+        } catch (Exception ex) {
+            return attemptFailed(event, ex);
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #attemptOnce}.
+     */
+    public CompletableFuture<TrackingAttempt> attemptOnceAsync(CustomerLoginEvent event) {
+        CompletableFuture<Boolean> attempt;
+        try {
+            attempt = attemptAsync(event);
+        } catch (Exception ex) {
+            attempt = CompletableFuture.failedFuture(ex);
+        }
+        return attempt.handle((ok, ex) -> {
+            if (ex != null) {
+                return attemptFailed(event, ex);
+            }
+            return TrackingAttempt.attempted(Boolean.TRUE.equals(ok) ? RequestResult.SUCCESSFUL : RequestResult.UNSUCCESSFUL);
+        });
+    }
+
+    private boolean attempt(CustomerLoginEvent event) {
+        return coalescer.call(event.customerId(), () -> circuitBreaker.executeSupplier(
+                () -> concurrencyLimiter.call(() -> customerTrackingClient.notifyLogin(event.customerId()))));
+    }
+
+    private CompletableFuture<Boolean> attemptAsync(CustomerLoginEvent event) {
+        return coalescer.callAsync(event.customerId(), () -> circuitBreaker.executeCompletionStage(
+                        () -> concurrencyLimiter.callAsync(
+                                () -> asyncCustomerTrackingClient.notifyLoginAsync(event.customerId())))
+                .toCompletableFuture());
+    }
+
+    private TrackingAttempt attemptFailed(CustomerLoginEvent event, Throwable ex) {
+        Throwable cause = unwrap(ex);
+        if (cause instanceof CallNotPermittedException || cause instanceof RejectedExecutionException) {
+            logger.info("Tracking attempt not made, deferred. customerId={} messageId={} error={}",
+                    event.customerId(), event.messageId(), cause.toString());
+            return new TrackingAttempt(RequestResult.PENDING, false);
+        }
+        if (customerTrackingRetry.getRetryConfig().getExceptionPredicate().test(cause)) {
+            logger.info("Tracking attempt failed, deferred. customerId={} messageId={} error={}",
+                    event.customerId(), event.messageId(), cause.toString());
+            return TrackingAttempt.attempted(RequestResult.PENDING);
+        }
+        logFailure(event, cause);
+        return TrackingAttempt.attempted(RequestResult.UNSUCCESSFUL);
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+
+    private static void logFailure(CustomerLoginEvent event, Throwable ex) {
+        Throwable cause = unwrap(ex);
+        if (cause instanceof CallNotPermittedException) {
+            // one line per event while the breaker is open, the transition itself is logged once
+            logger.info("Tracking skipped, circuit breaker open. customerId={} messageId={}",
+                    event.customerId(), event.messageId());
+            return;
+        }
+        logger.warn("Tracking failed after retries. customerId={} messageId={}",
+                event.customerId(), event.messageId(), ex);
+    }
+
+    /**
+     * Outcome of a single attempt. {@code made} is {@code false} when the circuit breaker or the concurrency
+     * limiter refused the call, so no request reached customer-tracking; the result is then
+     * {@link RequestResult#PENDING}.
+     */
+    public record TrackingAttempt(RequestResult requestResult, boolean made) {
+
+        static TrackingAttempt attempted(RequestResult requestResult) {
+            return new TrackingAttempt(requestResult, true);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * {@link TrackingCallCoalescer} keyed by customerId. A call joins the request of the same customer that is still
+ * in flight, or that succeeded less than {@code windowMs} ago; otherwise it sends its own and shares it.
+ * With {@code windowMs = 0} a finished request is forgotten before its waiters are released, so a later login
+ * sends a request of its own; a success is otherwise kept for {@code windowMs} and removed on {@code scheduler}.
+ * A failed request is always forgotten before its waiters are released, so their retries send a new request
+ * (which they share again) instead of seeing the same failure. The request is forgotten whatever it throws,
+ * {@link Error}s included, so no caller is left waiting on it.
+ */
+public class InFlightTrackingCallCoalescer implements TrackingCallCoalescer {
+
+    private final ConcurrentHashMap<UUID, CompletableFuture<Boolean>> calls = new ConcurrentHashMap<>();
+    private final long windowMs;
+    private final ScheduledExecutorService scheduler;
+
+    private final Counter sent;
+    private final Counter coalesced;
+
+    public InFlightTrackingCallCoalescer(long windowMs, ScheduledExecutorService scheduler, MeterRegistry meterRegistry) {
+        this.windowMs = windowMs;
+        this.scheduler = scheduler;
+        this.sent = counter(meterRegistry, "sent");
+        this.coalesced = counter(meterRegistry, "coalesced");
+    }
+
+    @Override
+    public boolean call(UUID customerId, Supplier<Boolean> call) {
+        CompletableFuture<Boolean> own = new CompletableFuture<>();
+        CompletableFuture<Boolean> shared = calls.putIfAbsent(customerId, own);
+        if (shared != null) {
+            coalesced.increment();
+            try {
+                return shared.join();
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+            }
+        }
+
+        sent.increment();
+        boolean result;
+        try {
+            result = call.get();
+        } catch (Throwable ex) {
+            failed(customerId, own, ex);
+            throw ex;
+        }
+        succeeded(customerId, own, result);
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> callAsync(UUID customerId, Supplier<CompletableFuture<Boolean>> call) {
+        CompletableFuture<Boolean> own = new CompletableFuture<>();
+        CompletableFuture<Boolean> shared = calls.putIfAbsent(customerId, own);
+        if (shared != null) {
+            coalesced.increment();
+            return follow(shared);
+        }
+
+        sent.increment();
+        try {
+            call.get().whenComplete((result, error) -> {
+                if (error != null) {
+                    failed(customerId, own, unwrap(error));
+                } else {
+                    succeeded(customerId, own, result);
+                }
+            });
+        } catch (Throwable ex) {
+            failed(customerId, own, ex);
+        }
+        return follow(own);
+    }
+
+    private void succeeded(UUID customerId, CompletableFuture<Boolean> own, boolean result) {
+        if (windowMs > 0) {
+            own.complete(result);
+            scheduler.schedule(() -> calls.remove(customerId, own), windowMs, TimeUnit.MILLISECONDS);
+        } else {
+            calls.remove(customerId, own);
+            own.complete(result);
+        }
+    }
+
+    private void failed(UUID customerId, CompletableFuture<Boolean> own, Throwable error) {
+        calls.remove(customerId, own);
+        own.completeExceptionally(error);
+    }
+
+    /**
+     * Separate future per caller, completed by hand so it fails with the original exception.
+     */
+    private static CompletableFuture<Boolean> follow(CompletableFuture<Boolean> shared) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        shared.whenComplete((ok, error) -> {
+            if (error != null) {
+                result.completeExceptionally(unwrap(error));
+            } else {
+                result.complete(ok);
+            }
+        });
+        return result;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("customer.tracking.calls")
+                .description("Customer-tracking calls that sent a request or shared one of the same customer")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
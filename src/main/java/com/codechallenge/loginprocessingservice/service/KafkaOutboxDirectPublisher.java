@@ -0,0 +1,249 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import com.codechallenge.loginprocessingservice.repository.OutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link OutboxDirectPublisher} on the outbox Kafka producer.
+ * - after commit, the events are handed to a single sender thread (so per-key order is the commit order and a
+ *   blocked producer, e.g. waiting for metadata while the broker is down, never stalls the listener); when its
+ *   queue of {@code queue-capacity} events is full, events are dropped and left to {@link OutboxPublisher}
+ * - acknowledged outbox ids are collected and marked SENT in bulk by one ack thread: acks that arrive while an
+ *   update runs are folded into the next one
+ * - a failed send is only counted; the row is still NEW and {@link OutboxPublisher} claims it after the
+ *   claim delay, so the outbox guarantees are unchanged
+ * - per-key order: the key of a failed or dropped send is parked, and later rows of a parked key are left to
+ *   {@link OutboxPublisher} as well (which claims in {@code next_attempt_at} order) for as long as the outbox holds
+ *   an earlier NEW row of that key; the first row that finds none is sent directly again. Sends already handed to
+ *   the producer when a send fails can still overtake it, as with the producer's own retries
+ * An ack that arrives after the claim delay, or a SENT update lost in a crash, makes the row publish twice;
+ * delivery stays at-least-once, as with {@link OutboxPublisher} alone.
+ */
+public class KafkaOutboxDirectPublisher implements OutboxDirectPublisher, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(KafkaOutboxDirectPublisher.class);
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final OutboxRepository outboxRepository;
+    private final long claimDelayMs;
+    private final int queueCapacity;
+
+    private final ThreadPoolExecutor sender;
+    private final ExecutorService ackWriter;
+    private final ConcurrentLinkedQueue<UUID> acked = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean ackFlushScheduled = new AtomicBoolean();
+    private final Set<String> parkedKeys = ConcurrentHashMap.newKeySet();
+    private int parkedKeysSweepAt;
+
+    private final Counter ackedEvents;
+    private final Counter failedEvents;
+    private final Counter droppedEvents;
+    private final Counter deferredEvents;
+    private final Timer publishLagTimer;
+
+    public KafkaOutboxDirectPublisher(KafkaTemplate<String, byte[]> kafkaTemplate,
+                                      OutboxRepository outboxRepository,
+                                      long claimDelayMs,
+                                      int queueCapacity,
+                                      MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.outboxRepository = outboxRepository;
+        this.claimDelayMs = claimDelayMs;
+        this.queueCapacity = queueCapacity;
+        this.parkedKeysSweepAt = queueCapacity;
+
+        this.ackedEvents = events(meterRegistry, "acked");
+        this.failedEvents = events(meterRegistry, "failed");
+        this.droppedEvents = events(meterRegistry, "dropped");
+        this.deferredEvents = events(meterRegistry, "deferred");
+
+        this.sender = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("outbox-direct-send").daemon().factory(),
+                (task, executor) -> {
+                    droppedEvents.increment();
+                    parkedKeys.add(((SendTask) task).event.key());
+                });
+        this.ackWriter = Executors.newSingleThreadExecutor(
+                Thread.ofPlatform().name("outbox-direct-ack").daemon().factory());
+
+        this.publishLagTimer = Timer.builder("outbox.direct-publish.lag")
+                .description("Time from transaction commit to broker acknowledgement on the direct-publish fast path")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public long claimDelayMs() {
+        return claimDelayMs;
+    }
+
+    @Override
+    public void publishAfterCommit(List<Pending> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submit(events);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submit(events);
+            }
+        });
+    }
+
+    private void submit(List<Pending> events) {
+        Instant committedAt = Instant.now();
+        for (Pending event : events) {
+            sender.execute(new SendTask(event, committedAt));
+        }
+    }
+
+    private void send(Pending event, Instant committedAt) {
+        if (parkedKeys.contains(event.key()) && !unpark(event)) {
+            deferredEvents.increment();
+            return;
+        }
+        try {
+            kafkaTemplate.send(event.topic(), event.key(), event.payload()).whenComplete((result, ex) -> {
+                if (ex == null) {
+                    ackedEvents.increment();
+                    publishLagTimer.record(Duration.between(committedAt, Instant.now()));
+                    acked.add(event.outboxId());
+                    scheduleAckFlush();
+                } else {
+                    onFailure(event, ex);
+                }
+            });
+        } catch (RuntimeException ex) {
+            onFailure(event, ex);
+        }
+    }
+
+    /**
+     * Sends the rows of a parked key directly again once the outbox holds no earlier NEW row of that key.
+     * Runs on the sender thread.
+     */
+    private boolean unpark(Pending event) {
+        try {
+            if (outboxRepository.existsEarlierNew(event.key(), event.outboxId())) {
+                sweepParkedKeys();
+                return false;
+            }
+        } catch (RuntimeException ex) {
+            log.debug("Checking earlier outbox rows of key={} failed, left to the outbox publisher: {}",
+                    event.key(), ex.getMessage());
+            return false;
+        }
+        parkedKeys.remove(event.key());
+        return true;
+    }
+
+    /**
+     * Forgets parked keys whose rows have all been published, once more keys are parked than events can be
+     * queued; keys are otherwise only released by their next row.
+     */
+    private void sweepParkedKeys() {
+        if (parkedKeys.size() < parkedKeysSweepAt) {
+            return;
+        }
+        parkedKeys.retainAll(Set.copyOf(outboxRepository.findKeysWithNew(parkedKeys.toArray(String[]::new))));
+        parkedKeysSweepAt = Math.max(queueCapacity, parkedKeys.size() * 2);
+    }
+
+    private void onFailure(Pending event, Throwable ex) {
+        failedEvents.increment();
+        parkedKeys.add(event.key());
+        log.debug("Direct publish failed id={}, left to the outbox publisher: {}", event.outboxId(), ex.getMessage());
+    }
+
+    private void scheduleAckFlush() {
+        if (ackFlushScheduled.compareAndSet(false, true)) {
+            try {
+                ackWriter.execute(this::flushAcks);
+            } catch (RejectedExecutionException ex) {
+                ackFlushScheduled.set(false);
+            }
+        }
+    }
+
+    private void flushAcks() {
+        ackFlushScheduled.set(false);
+        List<UUID> ids = new ArrayList<>();
+        UUID id;
+        while ((id = acked.poll()) != null) {
+            ids.add(id);
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            outboxRepository.markSentIfNew(ids.toArray(UUID[]::new), Instant.now());
+        } catch (RuntimeException ex) {
+            log.warn("Marking {} directly published outbox rows SENT failed; they will be published again", ids.size(), ex);
+        }
+    }
+
+    /**
+     * Lets queued sends finish and writes the last acks; whatever is still pending is left to
+     * {@link OutboxPublisher}.
+     */
+    @Override
+    public void close() {
+        sender.shutdown();
+        try {
+            sender.awaitTermination(5, TimeUnit.SECONDS);
+            kafkaTemplate.flush();
+            ackWriter.execute(this::flushAcks);
+            ackWriter.shutdown();
+            ackWriter.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            ackWriter.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A queued send; the rejection handler reads its key to park it.
+     */
+    private final class SendTask implements Runnable {
+
+        private final Pending event;
+        private final Instant committedAt;
+
+        private SendTask(Pending event, Instant committedAt) {
+            this.event = event;
+            this.committedAt = committedAt;
+        }
+
+        @Override
+        public void run() {
+            send(event, committedAt);
+        }
+    }
+
+    private static Counter events(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("outbox.direct-publish.events")
+                .description("Outbox events sent by the direct-publish fast path, by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,111 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import com.codechallenge.loginprocessingservice.config.KafkaConsumerConfig;
+import com.codechallenge.loginprocessingservice.dto.CustomerLoginEvent;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+import org.springframework.util.backoff.BackOff;
+import org.springframework.util.backoff.BackOffExecution;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Hands every record to a {@link KeyOrderedExecutor} lane chosen by customerId and returns immediately,
+ * so one partition is processed by many workers while records of the same customer stay in order.
+ * The container runs with async acks: offsets are committed only up to the lowest contiguous acknowledged
+ * record and the consumer is paused until the records of the previous poll are acknowledged.
+ * The container's error handler never sees a lane failure, so the lane retries a failed record itself with the
+ * same {@code customerLoginRetryBackOff} policy and acknowledges it only once it was processed or deliberately
+ * skipped (invalid event, or attempts exhausted). Records behind it in the lane wait, so per-customer order holds.
+ * A record interrupted while retrying (shutdown) is left unacknowledged and redelivered to the next owner.
+ */
+@Validated
+@Component
+@ConditionalOnProperty(name = "app.kafka.listener.mode", havingValue = KafkaConsumerConfig.LISTENER_MODE_KEY_ORDERED)
+public class KeyOrderedCustomerLoginConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyOrderedCustomerLoginConsumer.class);
+
+    private final LoginProcessingServiceImpl processingService;
+    private final KeyOrderedExecutor keyOrderedExecutor;
+    private final BackOff retryBackOff;
+    private final PartitionHandoverTracker handoverTracker;
+
+    public KeyOrderedCustomerLoginConsumer(LoginProcessingServiceImpl processingService,
+                                           KeyOrderedExecutor keyOrderedExecutor,
+                                           BackOff customerLoginRetryBackOff,
+                                           PartitionHandoverTracker handoverTracker) {
+        this.processingService = processingService;
+        this.keyOrderedExecutor = keyOrderedExecutor;
+        this.retryBackOff = customerLoginRetryBackOff;
+        this.handoverTracker = handoverTracker;
+    }
+
+    @KafkaListener(
+            topics = "${app.kafka.topic.input}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "customerLoginKafkaListenerContainerFactory"
+    )
+    public void onMessage(@Valid CustomerLoginEvent event,
+                          @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
+                          @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+                          @Header(KafkaHeaders.OFFSET) long offset,
+                          Acknowledgment ack) {
+        log.info("[DEBUG_LOG] Received customer-login event messageId={} customerId={}", event.messageId(), event.customerId());
+
+        boolean mayBeRedelivery = handoverTracker.mayBeRedelivery(topic, partition, offset);
+        keyOrderedExecutor.execute(event.customerId(), () -> processAndAcknowledge(event, mayBeRedelivery, ack));
+    }
+
+    private void processAndAcknowledge(CustomerLoginEvent event, boolean mayBeRedelivery, Acknowledgment ack) {
+        if (!process(event, mayBeRedelivery)) {
+            return;
+        }
+
+        try {
+            ack.acknowledge();
+        } catch (IllegalStateException ex) {
+            // partition was revoked while the record was in flight; the new owner will redeliver it
+            log.warn("Late acknowledgment ignored. messageId={}", event.messageId(), ex);
+        }
+    }
+
+    /**
+     * Returns {@code false} if the record must stay unacknowledged.
+     */
+    private boolean process(CustomerLoginEvent event, boolean mayBeRedelivery) {
+        BackOffExecution backOff = retryBackOff.start();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                processingService.process(event, mayBeRedelivery);
+                return true;
+            } catch (IllegalArgumentException ex) {
+                log.error("Invalid record, skipping it. messageId={} customerId={}",
+                        event.messageId(), event.customerId(), ex);
+                return true;
+            } catch (Exception ex) {
+                long waitMs = backOff.nextBackOff();
+                if (waitMs == BackOffExecution.STOP) {
+                    log.error("Processing failed after {} attempts, skipping record. messageId={} customerId={}",
+                            attempt, event.messageId(), event.customerId(), ex);
+                    return true;
+                }
+                log.warn("Processing failed, retrying in {} ms. attempt={} messageId={} customerId={}",
+                        waitMs, attempt, event.messageId(), event.customerId(), ex);
+                try {
+                    Thread.sleep(waitMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    log.warn("Interrupted while retrying, leaving record unacknowledged. messageId={}", event.messageId());
+                    return false;
+                }
+            }
+        }
+    }
+}
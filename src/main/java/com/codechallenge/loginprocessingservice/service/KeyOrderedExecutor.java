@@ -0,0 +1,88 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks in parallel while keeping the submission order per key.
+ * Every key is hashed onto one of a fixed number of single-threaded lanes, so tasks for the same key
+ * run one after another and tasks for different keys can run concurrently.
+ */
+public class KeyOrderedExecutor implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyOrderedExecutor.class);
+
+    private final ExecutorService[] lanes;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public KeyOrderedExecutor(int laneCount, ThreadFactory threadFactory, MeterRegistry meterRegistry) {
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("laneCount must be at least 1 but was " + laneCount);
+        }
+
+        this.lanes = new ExecutorService[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = Executors.newSingleThreadExecutor(threadFactory);
+        }
+
+        Gauge.builder("login.processing.key-ordered.in-flight", inFlight, AtomicInteger::get)
+                .description("Tasks submitted to the key-ordered executor and not yet completed")
+                .register(meterRegistry);
+        Gauge.builder("login.processing.key-ordered.lanes", lanes, l -> l.length)
+                .register(meterRegistry);
+    }
+
+    public void execute(Object key, Runnable task) {
+        inFlight.incrementAndGet();
+        try {
+            lanes[laneFor(key)].execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            inFlight.decrementAndGet();
+            throw ex;
+        }
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    int laneFor(Object key) {
+        return key == null ? 0 : Math.floorMod(key.hashCode(), lanes.length);
+    }
+
+    /**
+     * Stops accepting tasks and waits for queued tasks to finish.
+     */
+    @Override
+    public void close() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        for (ExecutorService lane : lanes) {
+            try {
+                if (!lane.awaitTermination(30, TimeUnit.SECONDS)) {
+                    log.warn("Key-ordered lane did not drain within 30s; remaining records will be redelivered");
+                    lane.shutdownNow();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                lane.shutdownNow();
+            }
+        }
+    }
+}
@@ -3,6 +3,10 @@ package com.codechallenge.loginprocessingservice.service;
 import com.codechallenge.loginprocessingservice.dto.CustomerLoginEvent;
 import com.codechallenge.loginprocessingservice.dto.LoginTrackingResultEvent;
 
+import java.util.List;
+
 public interface LoginProcessingService {
     LoginTrackingResultEvent process(CustomerLoginEvent event);
+
+    List<LoginTrackingResultEvent> processBatch(List<CustomerLoginEvent> events);
 }
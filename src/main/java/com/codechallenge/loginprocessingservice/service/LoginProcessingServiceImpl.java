@@ -2,153 +2,266 @@ package com.codechallenge.loginprocessingservice.service;
 
 import com.codechallenge.loginprocessingservice.dto.CustomerLoginEvent;
 import com.codechallenge.loginprocessingservice.dto.LoginTrackingResultEvent;
-import com.codechallenge.loginprocessingservice.adapter.CustomerTrackingClient;
+import com.codechallenge.loginprocessingservice.mapper.LoginTrackingResultMapper;
 import com.codechallenge.loginprocessingservice.model.*;
 import com.codechallenge.loginprocessingservice.repository.LoginTrackingResultRepository;
-import com.codechallenge.loginprocessingservice.repository.OutboxRepository;
-import io.github.resilience4j.retry.Retry;
-
-import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.util.UUID;
-import java.util.function.Supplier;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
+import static com.codechallenge.loginprocessingservice.mapper.LoginTrackingResultMapper.toEntity;
 import static com.codechallenge.loginprocessingservice.mapper.LoginTrackingResultMapper.toEvent;
 
+/**
+ * Runs the login pipeline in three phases so that no transaction is open during the remote call:
+ * <ol>
+ *     <li>dedup: a short read of the result by messageId, skipped when the {@link MessageIdFilter} has definitely
+ *     not seen the messageId. The filter only knows this JVM, so records another replica may have processed
+ *     (redeliveries after a rebalance, see {@link PartitionHandoverTracker}) are always read.</li>
+ *     <li>tracking: the customer-tracking HTTP call (with retries, {@link CustomerTrackingService}), outside any transaction</li>
+ *     <li>write: result + outbox rows in one short transaction ({@link LoginTrackingResultWriter})</li>
+ * </ol>
+ * Concurrent duplicates that slip past the dedup read are resolved by the insert-ignore statements of the write phase.
+ * With {@code app.customer-tracking.deferred.enabled=true} the tracking phase makes a single attempt instead of
+ * retrying on the consumer thread: a transient failure is written as {@link RequestResult#PENDING}, without an
+ * outbox row, and re-attempted in batches by {@link PendingTrackingRetrier}, which publishes the final result.
+ */
 @Service
 public class LoginProcessingServiceImpl implements LoginProcessingService{
 
     private static final Logger logger = LoggerFactory.getLogger(LoginProcessingServiceImpl.class);
 
-    private final CustomerTrackingClient customerTrackingClient;
+    private static final String PHASE_TIMER = "login.processing.phase";
+    private static final String FILTER_LOOKUPS = "login.processing.dedup.filter.lookups";
+
+    private final CustomerTrackingService trackingService;
     private final LoginTrackingResultRepository resultRepository;
-    private final OutboxRepository outboxRepository;
-    private final IntegrationEventSerializer payloadSerializer;
+    private final LoginTrackingResultWriter resultWriter;
+    private final MessageIdFilter messageIdFilter;
+
+    private final TaskExecutor trackingTaskExecutor;
+    private final boolean deferredTracking;
+
+    private final Timer dedupTimer;
+    private final Timer trackingTimer;
+    private final Timer writeTimer;
 
-    private final String outputTopic;
-    private final Retry customerTrackingRetry;
+    private final Counter filterNegatives;
+    private final Counter filterFalsePositives;
+    private final Counter filterTruePositives;
 
-    public LoginProcessingServiceImpl(CustomerTrackingClient customerTrackingClient,
+    public LoginProcessingServiceImpl(CustomerTrackingService trackingService,
                                       LoginTrackingResultRepository resultRepository,
-                                      OutboxRepository outboxRepository,
-                                      IntegrationEventSerializer payloadSerializer,
-                                      RetryRegistry retryRegistry,
-                                      @Value("${app.kafka.topic.output}") String outputTopic) {
-        this.customerTrackingClient = customerTrackingClient;
+                                      LoginTrackingResultWriter resultWriter,
+                                      MessageIdFilter messageIdFilter,
+                                      @Qualifier("trackingTaskExecutor") TaskExecutor trackingTaskExecutor,
+                                      @Value("${app.customer-tracking.deferred.enabled:false}") boolean deferredTracking,
+                                      MeterRegistry meterRegistry) {
+        this.trackingService = trackingService;
         this.resultRepository = resultRepository;
-        this.outboxRepository = outboxRepository;
-        this.payloadSerializer = payloadSerializer;
-        this.outputTopic = outputTopic;
-
-        this.customerTrackingRetry = retryRegistry.retry("customerTracking");
+        this.resultWriter = resultWriter;
+        this.messageIdFilter = messageIdFilter;
+        this.trackingTaskExecutor = trackingTaskExecutor;
+        this.deferredTracking = deferredTracking;
+
+        this.dedupTimer = phaseTimer(meterRegistry, "dedup");
+        this.trackingTimer = phaseTimer(meterRegistry, "tracking");
+        this.writeTimer = phaseTimer(meterRegistry, "write");
+
+        Counter negatives = filterLookups(meterRegistry, "definitely-new");
+        Counter falsePositives = filterLookups(meterRegistry, "false-positive");
+        this.filterNegatives = negatives;
+        this.filterFalsePositives = falsePositives;
+        this.filterTruePositives = filterLookups(meterRegistry, "duplicate");
+        Gauge.builder("login.processing.dedup.filter.false-positive-rate", falsePositives,
+                        counter -> falsePositiveRate(counter.count(), negatives.count()))
+                .description("Share of new messageIds the dedup filter reported as maybe seen")
+                .register(meterRegistry);
     }
 
-    @Transactional
     public LoginTrackingResultEvent process(CustomerLoginEvent event) {
+        return process(event, false);
+    }
+
+    /**
+     * {@code mayBeRedelivery}: the record may have been processed by another replica, so the database is checked
+     * even when the {@link MessageIdFilter} has not seen the messageId.
+     */
+    public LoginTrackingResultEvent process(CustomerLoginEvent event, boolean mayBeRedelivery) {
         logger.info("[DEBUG_LOG] Processing login event messageId={} customerId={}", event.messageId(), event.customerId());
 
-        var existing = resultRepository.findByMessageId(event.messageId());
-        if (existing.isPresent()) {
-            logger.info("[DEBUG_LOG] Duplicate message detected. Skipping processing. messageId={}", event.messageId());
-            return toEvent(existing.get());
+        boolean maybeSeen = messageIdFilter.mightContain(event.messageId());
+        if (maybeSeen || mayBeRedelivery) {
+            var existing = dedupTimer.record(() -> resultRepository.findByMessageId(event.messageId()));
+            if (existing.isPresent()) {
+                filterTruePositives.increment();
+                logger.info("[DEBUG_LOG] Duplicate message detected. Skipping processing. messageId={}", event.messageId());
+                return toEvent(existing.get());
+            }
         }
+        // a handed-over record read only because of mayBeRedelivery was not matched by the filter
+        (maybeSeen ? filterFalsePositives : filterNegatives).increment();
 
-        RequestResult requestResult = executeCustomerTrackingService(event);
+        RequestResult requestResult = trackingTimer.record(() -> trackOutcome(event));
         logger.info("[DEBUG_LOG] RequestResult for messageId={}: {}", event.messageId(), requestResult);
 
-
-        LoginTrackingResultEntity saved = persistResult(event, requestResult);
+        LoginTrackingResultEntity saved = writeTimer.record(() -> resultWriter.write(event, requestResult));
+        messageIdFilter.put(event.messageId());
         logger.info("[DEBUG_LOG] Saved entity for messageId={} with id={}", event.messageId(), saved.getId());
 
-        writeOutbox(saved);
-
         return toEvent(saved);
     }
 
-    private RequestResult executeCustomerTrackingService(CustomerLoginEvent event) {
-        Supplier<Boolean> call = () -> customerTrackingClient.notifyLogin(event.customerId());
-        Supplier<Boolean> decorated = Retry.decorateSupplier(customerTrackingRetry, call);
+    /**
+     * Batch-aware variant of {@link #process} used by the batch listener.
+     * Duplicate detection, result inserts and outbox inserts are each a single set-based statement
+     * for the whole batch; only the tracking call is still issued per event. With the async client all calls of
+     * the batch are pipelined from the caller thread; otherwise they run on the tracking executor
+     * (concurrently on virtual threads when enabled, otherwise one after another on the caller thread).
+     * Returns the results written by this batch (events that were already processed are skipped).
+     */
+    public List<LoginTrackingResultEvent> processBatch(List<CustomerLoginEvent> events) {
+        return processBatch(events, Set.of());
+    }
 
-        try {
-            boolean ok = decorated.get();
-            return ok ? RequestResult.SUCCESSFUL : RequestResult.UNSUCCESSFUL;
-        } catch (Exception ex) {
-            logger.warn("Tracking failed after retries. customerId={} messageId={}",
-                    event.customerId(), event.messageId(), ex);
-            return RequestResult.UNSUCCESSFUL;
-        }
+    /**
+     * {@code mayBeRedelivered}: messageIds of the batch that may have been processed by another replica; they are
+     * checked against the database whatever the {@link MessageIdFilter} says.
+     */
+    public List<LoginTrackingResultEvent> processBatch(List<CustomerLoginEvent> events, Set<UUID> mayBeRedelivered) {
+        return writeTracked(trackBatch(events, mayBeRedelivered));
     }
 
-/*    private LoginTrackingResultEntity persistResult(CustomerLoginEvent event, RequestResult requestResult) {
-        try {
-            LoginTrackingResultEntity entity = toEntity(event, requestResult);
+    /**
+     * Dedup and tracking phases of {@link #processBatch}: returns one row per messageId that still has to be written,
+     * in batch order, without writing it. A caller whose {@link #writeTracked} fails can write the rows again
+     * (e.g. one by one) without tracking the logins a second time.
+     */
+    public List<LoginTrackingResultEntity> trackBatch(List<CustomerLoginEvent> events, Set<UUID> mayBeRedelivered) {
+        logger.info("[DEBUG_LOG] Processing login batch size={}", events.size());
+
+        Map<UUID, CustomerLoginEvent> unique = new LinkedHashMap<>();
+        for (CustomerLoginEvent event : events) {
+            unique.putIfAbsent(event.messageId(), event);
+        }
 
-            return resultRepository.save(entity);
+        Set<UUID> maybeSeen = new HashSet<>();
+        Set<UUID> candidates = new HashSet<>();
+        for (UUID messageId : unique.keySet()) {
+            if (messageIdFilter.mightContain(messageId)) {
+                maybeSeen.add(messageId);
+                candidates.add(messageId);
+            } else if (mayBeRedelivered.contains(messageId)) {
+                candidates.add(messageId);
+            }
+        }
+        Set<UUID> existing = candidates.isEmpty()
+                ? Set.of()
+                : dedupTimer.record(() -> new HashSet<>(resultRepository.findExistingMessageIds(candidates)));
+        // false positives only among the ids the filter matched: handed-over ids are read whatever it says
+        int falsePositives = (int) maybeSeen.stream().filter(messageId -> !existing.contains(messageId)).count();
+        filterTruePositives.increment(existing.size());
+        filterFalsePositives.increment(falsePositives);
+        filterNegatives.increment(unique.size() - existing.size() - falsePositives);
+        if (!existing.isEmpty()) {
+            logger.info("[DEBUG_LOG] Duplicate messages detected in batch. Skipping processing. messageIds={}", existing);
+        }
+
+        List<CompletableFuture<LoginTrackingResultEntity>> trackingCalls = new ArrayList<>();
+        for (CustomerLoginEvent event : unique.values()) {
+            if (existing.contains(event.messageId())) {
+                continue;
+            }
+            if (!isValidClient(event)) {
+                continue;
+            }
+            trackingCalls.add(trackingService.isAsync()
+                    ? trackAsync(event)
+                    : CompletableFuture.supplyAsync(() -> track(event), trackingTaskExecutor));
+        }
 
-        } catch (DataIntegrityViolationException dup) {
-            logger.info("Duplicate message detected (DB constraint). messageId={}", event.messageId());
+        return trackingCalls.stream().map(CompletableFuture::join).toList();
+    }
 
-            return resultRepository.findByMessageId(event.messageId())
-                    .orElseThrow(() -> dup);
+    /**
+     * Write phase of {@link #processBatch}: result and outbox rows of the tracked rows in one set-based statement.
+     * Returns the results actually written; rows whose messageId already exists are skipped.
+     */
+    public List<LoginTrackingResultEvent> writeTracked(List<LoginTrackingResultEntity> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
         }
-    }*/
 
-    private LoginTrackingResultEntity persistResult(CustomerLoginEvent event, RequestResult requestResult) {
+        List<LoginTrackingResultEntity> saved = writeTimer.record(() -> resultWriter.writeAll(rows));
+        rows.forEach(row -> messageIdFilter.put(row.getMessageId()));
+        logger.info("[DEBUG_LOG] Saved {} of {} batch results", saved.size(), rows.size());
 
-        String client = Client.fromString(event.client()).name();
+        return saved.stream().map(LoginTrackingResultMapper::toEvent).toList();
+    }
+
+    private LoginTrackingResultEntity track(CustomerLoginEvent event) {
+        RequestResult requestResult = trackingTimer.record(() -> trackOutcome(event));
+        return newResult(event, requestResult);
+    }
 
-        resultRepository.insertIgnore(
-                UUID.randomUUID(),
-                event.messageId(),
-                event.customerId(),
-                event.username(),
-                client,
-                event.timestamp(),
-                event.customerIp(),
-                requestResult.name()
-        );
+    private CompletableFuture<LoginTrackingResultEntity> trackAsync(CustomerLoginEvent event) {
+        Timer.Sample sample = Timer.start();
+        CompletableFuture<RequestResult> outcome = deferredTracking
+                ? trackingService.trackOnceAsync(event)
+                : trackingService.trackAsync(event);
+        return outcome.thenApply(requestResult -> {
+            sample.stop(trackingTimer);
+            return newResult(event, requestResult);
+        });
+    }
 
-        return resultRepository.findByMessageId(event.messageId()).orElseThrow();
+    private RequestResult trackOutcome(CustomerLoginEvent event) {
+        return deferredTracking ? trackingService.trackOnce(event) : trackingService.track(event);
     }
 
-    private void writeOutbox(LoginTrackingResultEntity saved) {
-        LoginTrackingResultEvent outEvent = toEvent(saved);
-        byte[] payload = payloadSerializer.serialize(outEvent);
-
-        outboxRepository.insertIgnore(
-                UUID.randomUUID(),
-                AggregateType.LOGIN_TRACKING_RESULT.name(),
-                saved.getId(),
-                IntegrationEventType.LOGIN_TRACKING_RESULT_CREATED.name(),
-                outputTopic,
-                saved.getCustomerId().toString(),
-                payload
-        );
+    private static LoginTrackingResultEntity newResult(CustomerLoginEvent event, RequestResult requestResult) {
+        LoginTrackingResultEntity entity = toEntity(event, requestResult);
+        entity.setId(UuidV7Generator.next());
+        return entity;
     }
-/*    private void writeOutbox(LoginTrackingResultEntity saved) {
-        LoginTrackingResultEvent outEvent = toEvent(saved);
-        byte[] payload = payloadSerializer.serialize(outEvent);
-
-        OutboxEntity outbox = OutboxEntity.newEvent(
-                AggregateType.LOGIN_TRACKING_RESULT,
-                saved.getId(),
-                IntegrationEventType.LOGIN_TRACKING_RESULT_CREATED,
-                outputTopic,
-                saved.getCustomerId().toString(), // key
-                payload
-        );
 
+    private boolean isValidClient(CustomerLoginEvent event) {
         try {
-            outboxRepository.save(outbox);
-        } catch (DataIntegrityViolationException dup) {
-            logger.info("Outbox duplicate ignored. aggregateId={} eventType={}",
-                    saved.getId(), IntegrationEventType.LOGIN_TRACKING_RESULT_CREATED);
+            Client.fromString(event.client());
+            return true;
+        } catch (IllegalArgumentException ex) {
+            logger.warn("Skipping login event with invalid client. messageId={} client={}",
+                    event.messageId(), event.client());
+            return false;
         }
-    }*/
+    }
+
+    private static double falsePositiveRate(double falsePositives, double negatives) {
+        double newMessages = falsePositives + negatives;
+        return newMessages == 0 ? 0 : falsePositives / newMessages;
+    }
 
+    private static Counter filterLookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder(FILTER_LOOKUPS)
+                .description("Dedup filter lookups by outcome after the database check")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static Timer phaseTimer(MeterRegistry meterRegistry, String phase) {
+        return Timer.builder(PHASE_TIMER)
+                .description("Time spent per login processing phase")
+                .tag("phase", phase)
+                .register(meterRegistry);
+    }
 }
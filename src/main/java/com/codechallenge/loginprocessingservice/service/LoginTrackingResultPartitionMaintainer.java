@@ -0,0 +1,298 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.ZoneOffset;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the monthly range partitions of {@code login_tracking_result} (V4) in shape:
+ * - creates the partitions of the current month and the next {@code app.partitioning.premake-months} months;
+ *   rows that already landed in the default partition for such a month are moved into it
+ * - expires partitions that end before the retention cutoff (first day of the current month minus
+ *   {@code app.partitioning.retention-months}): {@value #EXPIRE_DROP} drops them,
+ *   {@value #EXPIRE_DETACH} detaches them into standalone tables (e.g. for archiving), and expired rows are
+ *   deleted from the default partition; their {@code processed_message} dedup keys (V9) are deleted with them
+ * Runs at startup and then every {@code app.partitioning.check-ms}, on one replica at a time: a run that cannot take
+ * the session advisory lock {@value #LOCK_NAME} is skipped. Expired partitions are detached before they are dropped
+ * (see {@link #detachPartition}) and expired rows and keys are deleted {@code delete-batch-size} at a time. Every
+ * step is idempotent, so a run that fails part-way is completed by the next one.
+ */
+@Component
+@ConditionalOnProperty(name = "app.partitioning.enabled", havingValue = "true")
+public class LoginTrackingResultPartitionMaintainer {
+
+    public static final String EXPIRE_DROP = "drop";
+    public static final String EXPIRE_DETACH = "detach";
+
+    static final String PARENT = "login_tracking_result";
+    static final String DEFAULT_PARTITION = PARENT + "_default";
+    static final String PARTITION_PREFIX = PARENT + "_p";
+    static final String PROCESSED_MESSAGE = "processed_message";
+    static final String LOCK_NAME = "login_processing." + PARENT + ".maintenance";
+
+    private static final String SCHEMA = "login_processing";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final Logger log = LoggerFactory.getLogger(LoginTrackingResultPartitionMaintainer.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int premakeMonths;
+    private final int retentionMonths;
+    private final boolean detach;
+    private final int deleteBatchSize;
+    private final long lockTimeoutMs;
+
+    private final Counter createdPartitions;
+    private final Counter expiredPartitions;
+
+    public LoginTrackingResultPartitionMaintainer(JdbcTemplate jdbcTemplate,
+                                                  PlatformTransactionManager transactionManager,
+                                                  @Value("${app.partitioning.premake-months:3}") int premakeMonths,
+                                                  @Value("${app.partitioning.retention-months:12}") int retentionMonths,
+                                                  @Value("${app.partitioning.expire:" + EXPIRE_DROP + "}") String expire,
+                                                  @Value("${app.partitioning.delete-batch-size:10000}") int deleteBatchSize,
+                                                  @Value("${app.partitioning.lock-timeout-ms:5000}") long lockTimeoutMs,
+                                                  MeterRegistry meterRegistry) {
+        if (!EXPIRE_DROP.equals(expire) && !EXPIRE_DETACH.equals(expire)) {
+            throw new IllegalArgumentException("Unsupported app.partitioning.expire: " + expire);
+        }
+        if (premakeMonths < 0 || retentionMonths < 1) {
+            throw new IllegalArgumentException("app.partitioning.premake-months must be >= 0 and retention-months >= 1");
+        }
+        if (deleteBatchSize < 1) {
+            throw new IllegalArgumentException("Unsupported app.partitioning.delete-batch-size: " + deleteBatchSize);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.premakeMonths = premakeMonths;
+        this.retentionMonths = retentionMonths;
+        this.detach = EXPIRE_DETACH.equals(expire);
+        this.deleteBatchSize = deleteBatchSize;
+        this.lockTimeoutMs = lockTimeoutMs;
+
+        this.createdPartitions = Counter.builder("login.tracking-result.partitions.created")
+                .description("Monthly login_tracking_result partitions created by the maintainer")
+                .register(meterRegistry);
+        this.expiredPartitions = Counter.builder("login.tracking-result.partitions.expired")
+                .description("login_tracking_result partitions dropped or detached by the retention policy")
+                .tag("action", expire)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(fixedDelayString = "${app.partitioning.check-ms:3600000}",
+            initialDelayString = "${app.partitioning.check-ms:3600000}")
+    public void poll() {
+        maintain();
+    }
+
+    public void maintain() {
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                if (!tryLock(connection)) {
+                    log.info("[DEBUG_LOG] login_tracking_result partition maintenance is running elsewhere; skipping");
+                    return null;
+                }
+                try {
+                    YearMonth current = YearMonth.now(ZoneOffset.UTC);
+                    for (int i = 0; i <= premakeMonths; i++) {
+                        ensurePartition(current.plusMonths(i));
+                    }
+                    expire(current.minusMonths(retentionMonths));
+                } finally {
+                    unlock(connection);
+                }
+                return null;
+            });
+        } catch (RuntimeException ex) {
+            log.warn("[DEBUG_LOG] login_tracking_result partition maintenance failed: {}", ex.getMessage(), ex);
+        }
+    }
+
+    private void ensurePartition(YearMonth month) {
+        String name = PARTITION_PREFIX + month.format(SUFFIX);
+        if (exists(name)) {
+            return;
+        }
+
+        String from = lowerBound(month);
+        String to = lowerBound(month.plusMonths(1));
+        // A new range may not overlap rows of the default partition, so those are moved into the new table
+        // before it is attached; all in one transaction, which locks the parent and the default partition.
+        transactionTemplate.executeWithoutResult(status -> {
+            setLocalLockTimeout();
+            jdbcTemplate.execute("create table " + qualified(name)
+                    + " (like " + qualified(PARENT) + " including defaults including constraints)");
+            int moved = jdbcTemplate.update(
+                    "with moved as (delete from " + qualified(DEFAULT_PARTITION)
+                            + " where event_timestamp >= cast(? as timestamptz) and event_timestamp < cast(? as timestamptz)"
+                            + " returning *)"
+                            + " insert into " + qualified(name) + " select * from moved",
+                    from, to);
+            // the delete released the moved rows' processed_message keys (V9 trigger); claim them back
+            jdbcTemplate.update("insert into " + qualified(PROCESSED_MESSAGE)
+                    + " (message_id, result_id, event_timestamp, created_at)"
+                    + " select message_id, id, event_timestamp, created_at from " + qualified(name)
+                    + " on conflict (message_id) do nothing");
+            jdbcTemplate.execute("alter table " + qualified(PARENT) + " attach partition " + qualified(name)
+                    + " for values from ('" + from + "') to ('" + to + "')");
+            log.info("[DEBUG_LOG] Created partition {} [{}, {}), moved {} rows from {}",
+                    name, from, to, moved, DEFAULT_PARTITION);
+        });
+        createdPartitions.increment();
+    }
+
+    private void expire(YearMonth cutoff) {
+        String cutoffSuffix = cutoff.format(SUFFIX);
+        String cutoffBound = lowerBound(cutoff);
+
+        // Expired keys go first: dropping or detaching a partition fires no delete trigger, and a key whose result is
+        // gone would make a redelivery find neither a fresh insert nor the existing row.
+        int deletedKeys = deleteInChunks(PROCESSED_MESSAGE, "message_id", cutoffBound);
+        if (deletedKeys > 0) {
+            log.info("[DEBUG_LOG] Deleted {} expired keys from {}", deletedKeys, PROCESSED_MESSAGE);
+        }
+
+        // Attached partitions, plus (for drop) tables a previous run detached but did not get to drop
+        List<Map<String, Object>> tables = jdbcTemplate.queryForList("""
+                select c.relname, i.inhrelid is not null as attached, coalesce(i.inhdetachpending, false) as pending
+                from pg_class c
+                join pg_namespace n on n.oid = c.relnamespace
+                left join pg_inherits i on i.inhrelid = c.oid
+                where n.nspname = ? and c.relkind = 'r' and c.relname like ?
+                """, SCHEMA, PARTITION_PREFIX + "%");
+        boolean concurrently = !exists(DEFAULT_PARTITION);
+
+        for (Map<String, Object> table : tables) {
+            String partition = (String) table.get("relname");
+            boolean attached = (Boolean) table.get("attached");
+            if (!partition.startsWith(PARTITION_PREFIX) || (!attached && detach)) {
+                continue;
+            }
+            String suffix = partition.substring(PARTITION_PREFIX.length());
+            // yyyyMM sorts like the month it names; the partition ends before the cutoff iff its month is earlier
+            if (suffix.length() != 6 || suffix.compareTo(cutoffSuffix) >= 0) {
+                continue;
+            }
+            try {
+                if (attached) {
+                    detachPartition(partition, (Boolean) table.get("pending"), concurrently);
+                }
+                if (!detach) {
+                    // a standalone table now: dropping it locks nothing but itself
+                    jdbcTemplate.execute("drop table if exists " + qualified(partition));
+                }
+            } catch (RuntimeException ex) {
+                log.warn("[DEBUG_LOG] Could not expire partition {}, retrying on the next run: {}",
+                        partition, ex.getMessage());
+                continue;
+            }
+            expiredPartitions.increment();
+            log.info("[DEBUG_LOG] Expired partition {} ({}), retention {} months",
+                    partition, detach ? EXPIRE_DETACH : EXPIRE_DROP, retentionMonths);
+        }
+
+        int deleted = deleteInChunks(DEFAULT_PARTITION, "id", cutoffBound);
+        if (deleted > 0) {
+            log.info("[DEBUG_LOG] Deleted {} expired rows from {}", deleted, DEFAULT_PARTITION);
+        }
+    }
+
+    /**
+     * {@code DETACH PARTITION CONCURRENTLY} only blocks DML on the parent while it waits for older snapshots, but
+     * PostgreSQL refuses it while the parent has a default partition. Then the plain form is used, which needs an
+     * ACCESS EXCLUSIVE lock on the parent; {@code lock-timeout-ms} bounds how long it may queue (and so hold up
+     * the writers queued behind it) before giving up until the next run. A concurrent detach that was interrupted
+     * is finished with {@code FINALIZE}.
+     */
+    private void detachPartition(String partition, boolean pending, boolean concurrently) {
+        String detachSql = "alter table " + qualified(PARENT) + " detach partition " + qualified(partition);
+        if (pending) {
+            jdbcTemplate.execute(detachSql + " finalize");
+        } else if (concurrently) {
+            // not allowed in a transaction block: runs on its own auto-commit connection
+            jdbcTemplate.execute(detachSql + " concurrently");
+        } else {
+            transactionTemplate.executeWithoutResult(status -> {
+                setLocalLockTimeout();
+                jdbcTemplate.execute(detachSql);
+            });
+        }
+    }
+
+    /**
+     * Deletes the rows of {@code table} older than {@code cutoff} {@code delete-batch-size} at a time, each chunk
+     * its own short statement, so no run holds row locks on (or WAL for) the whole expired range at once.
+     */
+    private int deleteInChunks(String table, String key, String cutoff) {
+        int total = 0;
+        while (true) {
+            int deleted = jdbcTemplate.update("delete from " + qualified(table) + " where " + key + " in ("
+                    + "select " + key + " from " + qualified(table)
+                    + " where event_timestamp < cast(? as timestamptz) limit ?)", cutoff, deleteBatchSize);
+            total += deleted;
+            if (deleted < deleteBatchSize) {
+                return total;
+            }
+        }
+    }
+
+    private void setLocalLockTimeout() {
+        jdbcTemplate.execute("set local lock_timeout = " + lockTimeoutMs);
+    }
+
+    private static boolean tryLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("select pg_try_advisory_lock(hashtext(?))")) {
+            statement.setString(1, LOCK_NAME);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static void unlock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("select pg_advisory_unlock(hashtext(?))")) {
+            statement.setString(1, LOCK_NAME);
+            statement.execute();
+        }
+    }
+
+    private boolean exists(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "select to_regclass(?) is not null", Boolean.class, qualified(table)));
+    }
+
+    private static String lowerBound(YearMonth month) {
+        return month.atDay(1) + " 00:00:00+00";
+    }
+
+    private static String qualified(String table) {
+        return SCHEMA + "." + table;
+    }
+}
@@ -0,0 +1,223 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import com.codechallenge.loginprocessingservice.dto.CustomerLoginEvent;
+import com.codechallenge.loginprocessingservice.model.*;
+import com.codechallenge.loginprocessingservice.repository.LoginTrackingResultRepository;
+import com.codechallenge.loginprocessingservice.repository.LoginTrackingResultRepository.InsertOutcome;
+import com.codechallenge.loginprocessingservice.service.OutboxDirectPublisher.Pending;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.codechallenge.loginprocessingservice.mapper.LoginTrackingResultMapper.toEntity;
+import static com.codechallenge.loginprocessingservice.mapper.LoginTrackingResultMapper.toEvent;
+
+/**
+ * Write phase of the login pipeline: persists the tracking result and its outbox row with one statement
+ * (a data-modifying CTE, see {@link LoginTrackingResultRepository#insertIgnoreWithOutbox}).
+ * Kept separate from {@link LoginProcessingServiceImpl} so that the remote tracking call never runs while a
+ * transaction (and therefore a pooled connection) is open.
+ */
+@Component
+public class LoginTrackingResultWriter {
+
+    private final LoginTrackingResultRepository resultRepository;
+    private final IntegrationEventSerializer payloadSerializer;
+    private final OutboxDirectPublisher directPublisher;
+
+    private final String outputTopic;
+
+    public LoginTrackingResultWriter(LoginTrackingResultRepository resultRepository,
+                                     IntegrationEventSerializer payloadSerializer,
+                                     OutboxDirectPublisher directPublisher,
+                                     @Value("${app.kafka.topic.output}") String outputTopic) {
+        this.resultRepository = resultRepository;
+        this.payloadSerializer = payloadSerializer;
+        this.directPublisher = directPublisher;
+        this.outputTopic = outputTopic;
+    }
+
+    /**
+     * One round trip writes the result row, writes its outbox row only if the result row was inserted
+     * (a conflicting one already has it, written in the transaction that inserted it) and reports the outcome;
+     * only a conflict costs a read of the existing row. The payload is serialized up front, so a duplicate
+     * pays for a serialization it does not need.
+     * A newly written outbox row is handed to the {@link OutboxDirectPublisher}, which sends it after commit.
+     * A {@link RequestResult#PENDING} result is written without an outbox row, see {@link #completePending}.
+     */
+    @Transactional
+    public LoginTrackingResultEntity write(CustomerLoginEvent event, RequestResult requestResult) {
+        LoginTrackingResultEntity row = toEntity(event, requestResult);
+        row.setId(UuidV7Generator.next());
+        UUID outboxId = UuidV7Generator.next();
+        String key = row.getCustomerId().toString();
+        byte[] payload = payloadSerializer.serialize(toEvent(row));
+
+        Optional<InsertOutcome> outcome = resultRepository.insertIgnoreWithOutbox(
+                row.getId(),
+                row.getMessageId(),
+                row.getCustomerId(),
+                row.getUsername(),
+                row.getClient().name(),
+                row.getEventTimestamp(),
+                row.getCustomerIp(),
+                row.getRequestResult().name(),
+                outboxId,
+                AggregateType.LOGIN_TRACKING_RESULT.name(),
+                IntegrationEventType.LOGIN_TRACKING_RESULT_CREATED.name(),
+                outputTopic,
+                key,
+                payload,
+                directPublisher.claimDelayMs()
+        );
+
+        if (outcome.isPresent() && outcome.get().isInserted()) {
+            if (requestResult != RequestResult.PENDING) {
+                directPublisher.publishAfterCommit(List.of(new Pending(outboxId, outputTopic, key, payload)));
+            }
+            return row;
+        }
+
+        return resultRepository.findByMessageId(event.messageId()).orElseThrow();
+    }
+
+    /**
+     * Set-based variant of {@link #write}: rows must carry their id already.
+     * Returns the rows that were actually inserted; rows whose messageId already exists are skipped.
+     */
+    @Transactional
+    public List<LoginTrackingResultEntity> writeAll(List<LoginTrackingResultEntity> rows) {
+        int size = rows.size();
+        UUID[] ids = new UUID[size];
+        UUID[] messageIds = new UUID[size];
+        UUID[] customerIds = new UUID[size];
+        String[] usernames = new String[size];
+        String[] clients = new String[size];
+        Instant[] eventTimestamps = new Instant[size];
+        String[] customerIps = new String[size];
+        String[] requestResults = new String[size];
+        UUID[] outboxIds = new UUID[size];
+        String[] keys = new String[size];
+        byte[][] payloads = new byte[size][];
+
+        for (int i = 0; i < size; i++) {
+            LoginTrackingResultEntity row = rows.get(i);
+            ids[i] = row.getId();
+            messageIds[i] = row.getMessageId();
+            customerIds[i] = row.getCustomerId();
+            usernames[i] = row.getUsername();
+            clients[i] = row.getClient().name();
+            eventTimestamps[i] = row.getEventTimestamp();
+            customerIps[i] = row.getCustomerIp();
+            requestResults[i] = row.getRequestResult().name();
+            outboxIds[i] = UuidV7Generator.next();
+            keys[i] = row.getCustomerId().toString();
+            payloads[i] = payloadSerializer.serialize(toEvent(row));
+        }
+
+        Set<UUID> inserted = new HashSet<>(resultRepository.insertIgnoreAllWithOutbox(
+                ids, messageIds, customerIds, usernames, clients, eventTimestamps, customerIps, requestResults,
+                outboxIds,
+                AggregateType.LOGIN_TRACKING_RESULT.name(),
+                IntegrationEventType.LOGIN_TRACKING_RESULT_CREATED.name(),
+                outputTopic,
+                keys,
+                payloads,
+                directPublisher.claimDelayMs()
+        ));
+
+        List<Pending> published = new ArrayList<>(inserted.size());
+        for (int i = 0; i < size; i++) {
+            if (inserted.contains(ids[i]) && rows.get(i).getRequestResult() != RequestResult.PENDING) {
+                published.add(new Pending(outboxIds[i], outputTopic, keys[i], payloads[i]));
+            }
+        }
+        directPublisher.publishAfterCommit(published);
+
+        return rows.stream().filter(row -> inserted.contains(row.getId())).toList();
+    }
+
+    /**
+     * Records the outcome of re-tracked {@link RequestResult#PENDING} rows (rows must carry their id): rows of
+     * {@code finished} get their final result and their outbox row, handed to the {@link OutboxDirectPublisher};
+     * rows of {@code retry} stay PENDING and are due again after a backoff of {@code baseBackoffMs} doubled per
+     * attempt, up to {@code maxBackoffMs}; rows of {@code refused} (no request was made) are rescheduled the same
+     * way without counting an attempt. All are set-based statements in one short transaction.
+     * Returns the rows of {@code finished} that were still PENDING and were therefore actually completed.
+     */
+    @Transactional
+    public List<LoginTrackingResultEntity> completePending(List<LoginTrackingResultEntity> finished,
+                                                          List<LoginTrackingResultEntity> retry,
+                                                          List<LoginTrackingResultEntity> refused,
+                                                          long baseBackoffMs,
+                                                          long maxBackoffMs) {
+        reschedulePending(retry, baseBackoffMs, maxBackoffMs, true);
+        reschedulePending(refused, baseBackoffMs, maxBackoffMs, false);
+        if (finished.isEmpty()) {
+            return List.of();
+        }
+
+        int size = finished.size();
+        UUID[] ids = new UUID[size];
+        Instant[] eventTimestamps = new Instant[size];
+        String[] requestResults = new String[size];
+        UUID[] outboxIds = new UUID[size];
+        String[] keys = new String[size];
+        byte[][] payloads = new byte[size][];
+
+        for (int i = 0; i < size; i++) {
+            LoginTrackingResultEntity row = finished.get(i);
+            ids[i] = row.getId();
+            eventTimestamps[i] = row.getEventTimestamp();
+            requestResults[i] = row.getRequestResult().name();
+            outboxIds[i] = UuidV7Generator.next();
+            keys[i] = row.getCustomerId().toString();
+            payloads[i] = payloadSerializer.serialize(toEvent(row));
+        }
+
+        Set<UUID> completed = new HashSet<>(resultRepository.completePendingWithOutbox(
+                ids, eventTimestamps, requestResults,
+                outboxIds,
+                AggregateType.LOGIN_TRACKING_RESULT.name(),
+                IntegrationEventType.LOGIN_TRACKING_RESULT_CREATED.name(),
+                outputTopic,
+                keys,
+                payloads,
+                directPublisher.claimDelayMs()
+        ));
+
+        List<Pending> published = new ArrayList<>(completed.size());
+        for (int i = 0; i < size; i++) {
+            if (completed.contains(ids[i])) {
+                published.add(new Pending(outboxIds[i], outputTopic, keys[i], payloads[i]));
+            }
+        }
+        directPublisher.publishAfterCommit(published);
+
+        return finished.stream().filter(row -> completed.contains(row.getId())).toList();
+    }
+
+    private void reschedulePending(List<LoginTrackingResultEntity> rows,
+                                   long baseBackoffMs,
+                                   long maxBackoffMs,
+                                   boolean countAttempt) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        resultRepository.reschedulePending(
+                rows.stream().map(LoginTrackingResultEntity::getId).toArray(UUID[]::new),
+                rows.stream().map(LoginTrackingResultEntity::getEventTimestamp).toArray(Instant[]::new),
+                baseBackoffMs,
+                maxBackoffMs,
+                countAttempt
+        );
+    }
+}
@@ -0,0 +1,33 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import java.util.UUID;
+
+/**
+ * In-memory front for the messageId duplicate check of {@link LoginProcessingServiceImpl}.
+ * {@code mightContain == false} means the messageId was definitely not recorded (recently) by this JVM, so the
+ * database pre-check read can be skipped; {@code true} means "maybe seen" and the caller falls through to the
+ * database. The filter lives in one JVM and is only warmed at startup: with several replicas it has not seen what
+ * the others processed, so a record another replica may have handled (a redelivery after a rebalance, see
+ * {@link PartitionHandoverTracker}) must be checked against the database regardless; otherwise a wrong miss would
+ * repeat its tracking call. The result insert still ignores duplicate messageIds, so no second result is written.
+ */
+public interface MessageIdFilter {
+
+    /**
+     * Filter that never rules a messageId out, i.e. every event is checked against the database.
+     */
+    MessageIdFilter ALWAYS_CHECK = new MessageIdFilter() {
+        @Override
+        public boolean mightContain(UUID messageId) {
+            return true;
+        }
+
+        @Override
+        public void put(UUID messageId) {
+        }
+    };
+
+    boolean mightContain(UUID messageId);
+
+    void put(UUID messageId);
+}
@@ -0,0 +1,41 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Fast path in front of {@link OutboxPublisher}: sends freshly written outbox rows as soon as the transaction that
+ * wrote them commits, instead of waiting for the next drain. The outbox row stays the source of truth: it is
+ * written with {@code next_attempt_at} pushed {@link #claimDelayMs()} into the future, so the scheduled publisher
+ * only claims it if the fast path did not mark it SENT by then (send failed, instance died, ack lost).
+ */
+public interface OutboxDirectPublisher {
+
+    /**
+     * No fast path: rows are due immediately and only {@link OutboxPublisher} sends them.
+     */
+    OutboxDirectPublisher NONE = new OutboxDirectPublisher() {
+        @Override
+        public long claimDelayMs() {
+            return 0;
+        }
+
+        @Override
+        public void publishAfterCommit(List<Pending> events) {
+        }
+    };
+
+    /**
+     * How long {@link OutboxPublisher} leaves a new outbox row to the fast path before claiming it itself.
+     */
+    long claimDelayMs();
+
+    /**
+     * Sends {@code events} once the current transaction commits (right away if there is none).
+     * Never throws: a row whose send fails is left to {@link OutboxPublisher}.
+     */
+    void publishAfterCommit(List<Pending> events);
+
+    record Pending(UUID outboxId, String topic, String key, byte[] payload) {
+    }
+}
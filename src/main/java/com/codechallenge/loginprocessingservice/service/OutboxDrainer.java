@@ -0,0 +1,147 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import com.codechallenge.loginprocessingservice.repository.OutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides how much of the outbox is published per wakeup (scheduled poll or {@link OutboxNotificationListener}).
+ * {@code app.outbox.drain.mode}:
+ * - {@value #MODE_FIXED}: one batch of {@code app.outbox.batch-size} rows per call
+ * - {@value #MODE_ADAPTIVE}: batches are published back to back while they come back full, until
+ *   {@code app.outbox.drain.time-budget-ms} is used up; the claim size is tuned by {@link AdaptiveBatchSizer}
+ *   from the latency and fill of each batch. The drain never counts the backlog: the claim itself (due NEW rows,
+ *   from the partial index) is the probe, and a short page means nothing more is due
+ * The backlog depth is exported as {@code outbox.backlog} by a separate, slower schedule
+ * ({@code app.outbox.drain.backlog-refresh-ms}): due NEW rows counted on the partial index, capped at
+ * {@code app.outbox.drain.backlog-count-limit}.
+ * Not created with {@code app.outbox.relay.mode=wal}, where {@link OutboxWalRelay} publishes the outbox instead.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.relay.mode", havingValue = OutboxWalRelay.MODE_POLL, matchIfMissing = true)
+public class OutboxDrainer {
+
+    public static final String MODE_FIXED = "fixed";
+    public static final String MODE_ADAPTIVE = "adaptive";
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxDrainer.class);
+
+    private final OutboxPublisher outboxPublisher;
+    private final OutboxRepository outboxRepository;
+    private final boolean adaptive;
+    private final long timeBudgetNanos;
+    private final AdaptiveBatchSizer batchSizer;
+    private final int backlogCountLimit;
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong drainRate = new AtomicLong();
+    private final Counter drainedRows;
+
+    public OutboxDrainer(OutboxPublisher outboxPublisher,
+                         OutboxRepository outboxRepository,
+                         @Value("${app.outbox.drain.mode:" + MODE_FIXED + "}") String mode,
+                         @Value("${app.outbox.batch-size:50}") int batchSize,
+                         @Value("${app.outbox.drain.min-batch-size:10}") int minBatchSize,
+                         @Value("${app.outbox.drain.max-batch-size:1000}") int maxBatchSize,
+                         @Value("${app.outbox.drain.target-batch-latency-ms:250}") long targetBatchLatencyMs,
+                         @Value("${app.outbox.drain.time-budget-ms:2000}") long timeBudgetMs,
+                         @Value("${app.outbox.drain.backlog-count-limit:10000}") int backlogCountLimit,
+                         MeterRegistry meterRegistry) {
+        if (!MODE_FIXED.equals(mode) && !MODE_ADAPTIVE.equals(mode)) {
+            throw new IllegalArgumentException("Unsupported app.outbox.drain.mode: " + mode);
+        }
+        if (backlogCountLimit < 1) {
+            throw new IllegalArgumentException("Unsupported app.outbox.drain.backlog-count-limit: " + backlogCountLimit);
+        }
+        this.outboxPublisher = outboxPublisher;
+        this.outboxRepository = outboxRepository;
+        this.adaptive = MODE_ADAPTIVE.equals(mode);
+        this.timeBudgetNanos = TimeUnit.MILLISECONDS.toNanos(timeBudgetMs);
+        this.batchSizer = new AdaptiveBatchSizer(batchSize, minBatchSize, maxBatchSize, targetBatchLatencyMs);
+        this.backlogCountLimit = backlogCountLimit;
+
+        Gauge.builder("outbox.backlog", backlog, AtomicLong::get)
+                .description("Due NEW outbox rows at the last backlog refresh, capped at backlog-count-limit")
+                .register(meterRegistry);
+        Gauge.builder("outbox.drain.rate", drainRate, AtomicLong::get)
+                .description("Rows per second published by the last adaptive drain")
+                .baseUnit("rows/s")
+                .register(meterRegistry);
+        Gauge.builder("outbox.drain.batch.size", batchSizer, AdaptiveBatchSizer::current)
+                .description("Claim size of the next adaptive batch")
+                .register(meterRegistry);
+        this.drainedRows = Counter.builder("outbox.drain.rows")
+                .description("Outbox rows published by the drainer")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-ms:500}")
+    public void poll() {
+        drain();
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.drain.backlog-refresh-ms:10000}")
+    public void refreshBacklog() {
+        try {
+            backlog.set(outboxRepository.countDueNew(backlogCountLimit));
+        } catch (RuntimeException ex) {
+            log.warn("Outbox backlog refresh failed; outbox.backlog keeps its last value", ex);
+        }
+    }
+
+    public long backlog() {
+        return backlog.get();
+    }
+
+    /**
+     * Returns the number of rows published by this call; callers that want the whole backlog keep calling
+     * while it is positive.
+     */
+    public int drain() {
+        int published = adaptive ? drainAdaptive() : outboxPublisher.publishBatch();
+        drainedRows.increment(published);
+        return published;
+    }
+
+    public int currentBatchSize() {
+        return batchSizer.current();
+    }
+
+    private int drainAdaptive() {
+        long started = System.nanoTime();
+        int total = 0;
+        int batches = 0;
+        boolean full;
+        do {
+            int limit = batchSizer.current();
+            long batchStarted = System.nanoTime();
+            int published = outboxPublisher.publishBatch(limit);
+            long batchElapsed = System.nanoTime() - batchStarted;
+
+            total += published;
+            batches++;
+            batchSizer.onBatch(limit, published, batchElapsed);
+            // a short page: nothing more is due, or the rest failed or was claimed elsewhere; left to the next wakeup
+            full = published >= limit;
+        } while (full && System.nanoTime() - started < timeBudgetNanos);
+
+        long elapsedNanos = System.nanoTime() - started;
+        drainRate.set(total * 1_000_000_000L / Math.max(1, elapsedNanos));
+
+        if (total > 0) {
+            log.info("Outbox drain published={} batches={} moreDue={} nextBatchSize={} elapsedMs={}",
+                    total, batches, full, batchSizer.current(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        }
+        return total;
+    }
+}
@@ -0,0 +1,129 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import com.codechallenge.loginprocessingservice.repository.OutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Removes SENT outbox rows older than {@code app.outbox.janitor.retention-ms}, so {@code outbox_event} and its
+ * indexes only hold what is still in flight plus a short tail.
+ * {@code app.outbox.janitor.mode}:
+ * - {@value #MODE_DELETE}: rows are deleted
+ * - {@value #MODE_ARCHIVE}: rows are moved to {@code outbox_event_archive} by the same statement
+ * Each run works in chunks of {@code chunk-size} rows, one short transaction per chunk, and stops when a chunk
+ * comes back short or after {@code max-chunks-per-run} chunks; the rest is left to the next run.
+ * NEW and FAILED rows are never touched, except with {@code app.outbox.relay.mode=wal}: the WAL relay never
+ * updates rows, so every row created before the cutoff is deleted ({@value #MODE_DELETE} only).
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.janitor.enabled", havingValue = "true")
+public class OutboxJanitor {
+
+    public static final String MODE_DELETE = "delete";
+    public static final String MODE_ARCHIVE = "archive";
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxJanitor.class);
+
+    private final OutboxRepository outboxRepository;
+    private final boolean archive;
+    private final boolean walRelay;
+    private final long retentionMs;
+    private final int chunkSize;
+    private final int maxChunksPerRun;
+
+    private final Counter removedRows;
+    private final Counter chunks;
+    private final Timer runTimer;
+
+    public OutboxJanitor(OutboxRepository outboxRepository,
+                         @Value("${app.outbox.janitor.mode:" + MODE_DELETE + "}") String mode,
+                         @Value("${app.outbox.janitor.retention-ms:86400000}") long retentionMs,
+                         @Value("${app.outbox.janitor.chunk-size:1000}") int chunkSize,
+                         @Value("${app.outbox.janitor.max-chunks-per-run:100}") int maxChunksPerRun,
+                         @Value("${app.outbox.relay.mode:" + OutboxWalRelay.MODE_POLL + "}") String relayMode,
+                         MeterRegistry meterRegistry) {
+        if (!MODE_DELETE.equals(mode) && !MODE_ARCHIVE.equals(mode)) {
+            throw new IllegalArgumentException("Unsupported app.outbox.janitor.mode: " + mode);
+        }
+        boolean walRelay = OutboxWalRelay.MODE_WAL.equals(relayMode);
+        if (walRelay && MODE_ARCHIVE.equals(mode)) {
+            throw new IllegalArgumentException("app.outbox.janitor.mode=archive is not supported with app.outbox.relay.mode=wal");
+        }
+        this.outboxRepository = outboxRepository;
+        this.archive = MODE_ARCHIVE.equals(mode);
+        this.walRelay = walRelay;
+        this.retentionMs = retentionMs;
+        this.chunkSize = chunkSize;
+        this.maxChunksPerRun = maxChunksPerRun;
+
+        this.removedRows = Counter.builder("outbox.janitor.rows")
+                .description("SENT outbox rows deleted or archived by the janitor")
+                .tag("mode", mode)
+                .register(meterRegistry);
+        this.chunks = Counter.builder("outbox.janitor.chunks")
+                .description("Chunks removed by the janitor")
+                .tag("mode", mode)
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("outbox.janitor.run")
+                .description("Time spent per janitor run")
+                .tag("mode", mode)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.janitor.interval-ms:60000}",
+            initialDelayString = "${app.outbox.janitor.interval-ms:60000}")
+    public void poll() {
+        clean();
+    }
+
+    /**
+     * Returns the number of rows removed by this run.
+     */
+    public int clean() {
+        long started = System.nanoTime();
+        Instant cutoff = Instant.now().minusMillis(retentionMs);
+
+        int total = 0;
+        int chunkCount = 0;
+        try {
+            while (chunkCount < maxChunksPerRun) {
+                int removed = walRelay
+                        ? outboxRepository.deleteCreatedBefore(cutoff, chunkSize)
+                        : archive
+                        ? outboxRepository.archiveSentBefore(cutoff, chunkSize)
+                        : outboxRepository.deleteSentBefore(cutoff, chunkSize);
+                if (removed == 0) {
+                    break;
+                }
+                total += removed;
+                chunkCount++;
+                removedRows.increment(removed);
+                chunks.increment();
+                if (removed < chunkSize) {
+                    break;
+                }
+            }
+        } catch (RuntimeException ex) {
+            log.warn("[DEBUG_LOG] Outbox janitor run failed after {} rows: {}", total, ex.getMessage(), ex);
+        }
+
+        long elapsedNanos = System.nanoTime() - started;
+        runTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (total > 0) {
+            log.info("Outbox janitor {} {} rows in {} chunks, {} before {}, elapsedMs={}",
+                    archive ? "archived" : "deleted", total, chunkCount, walRelay ? "created" : "sent", cutoff,
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        }
+        return total;
+    }
+}
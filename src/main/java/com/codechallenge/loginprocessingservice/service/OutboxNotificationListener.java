@@ -0,0 +1,145 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Drives {@link OutboxDrainer} from Postgres {@code LISTEN/NOTIFY} instead of waiting for the next poll.
+ * The {@code trg_outbox_event_notify} trigger (V2, V11) notifies {@value #CHANNEL} when outbox rows that are due
+ * right away are committed (not the ones written for the direct-publish fast path);
+ * a dedicated pgjdbc connection (outside the Hikari pool, since it is held for the lifetime of the service)
+ * listens on it and wakes a drain thread, which calls {@link OutboxDrainer#drain()} for as long as it makes progress
+ * and then sleeps (it stops when the backlog is empty or nothing could be published).
+ * Wakeups that arrive while draining are folded into one more drain pass.
+ * The {@code @Scheduled} poll stays active as a fallback for missed notifications (e.g. while reconnecting).
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.notify.enabled", havingValue = "true")
+@ConditionalOnProperty(name = "app.outbox.relay.mode", havingValue = OutboxWalRelay.MODE_POLL, matchIfMissing = true)
+public class OutboxNotificationListener implements SmartLifecycle {
+
+    static final String CHANNEL = "outbox_event";
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxNotificationListener.class);
+
+    private static final int NOTIFICATION_WAIT_MS = 1000;
+
+    private final OutboxDrainer outboxDrainer;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final long reconnectBackoffMs;
+
+    private final Semaphore wakeups = new Semaphore(0);
+
+    private volatile boolean running;
+    private Thread listenerThread;
+    private Thread drainThread;
+
+    public OutboxNotificationListener(OutboxDrainer outboxDrainer,
+                                      @Value("${spring.datasource.url}") String url,
+                                      @Value("${spring.datasource.username}") String username,
+                                      @Value("${spring.datasource.password}") String password,
+                                      @Value("${app.outbox.notify.reconnect-backoff-ms:5000}") long reconnectBackoffMs) {
+        this.outboxDrainer = outboxDrainer;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.reconnectBackoffMs = reconnectBackoffMs;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        drainThread = Thread.ofPlatform().name("outbox-drain").daemon().start(this::drainLoop);
+        listenerThread = Thread.ofPlatform().name("outbox-listen").daemon().start(this::listenLoop);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        listenerThread.interrupt();
+        drainThread.interrupt();
+        try {
+            listenerThread.join(5_000);
+            drainThread.join(15_000);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void wakeUp() {
+        if (wakeups.availablePermits() == 0) {
+            wakeups.release();
+        }
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, username, password)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                log.info("Listening for outbox notifications on channel={}", CHANNEL);
+
+                // rows committed while we were not listening have no pending notification
+                wakeUp();
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(NOTIFICATION_WAIT_MS);
+                    if (notifications != null && notifications.length > 0) {
+                        wakeUp();
+                    }
+                }
+            } catch (SQLException ex) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Outbox notification connection lost, reconnecting in {} ms", reconnectBackoffMs, ex);
+                try {
+                    Thread.sleep(reconnectBackoffMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void drainLoop() {
+        while (running) {
+            try {
+                wakeups.acquire();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            try {
+                while (running && outboxDrainer.drain() > 0) {
+                    // keep draining while rows get published
+                }
+            } catch (Exception ex) {
+                log.error("Outbox drain failed; the next notification or poll will retry", ex);
+            }
+        }
+    }
+}
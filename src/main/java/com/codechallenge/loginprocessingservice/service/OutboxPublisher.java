@@ -1,25 +1,32 @@
 package com.codechallenge.loginprocessingservice.service;
 
-import com.codechallenge.loginprocessingservice.model.OutboxEntity;
-import com.codechallenge.loginprocessingservice.model.PublicationStatus;
 import com.codechallenge.loginprocessingservice.repository.OutboxRepository;
+import com.codechallenge.loginprocessingservice.repository.OutboxRepository.ClaimedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 @Component
 public class OutboxPublisher {
 
+    public static final String PRODUCER_MODE_PLAIN = "plain";
+    public static final String PRODUCER_MODE_TRANSACTIONAL = "transactional";
+
     private static final Logger log = LoggerFactory.getLogger(OutboxPublisher.class);
 
     private final OutboxRepository outboxRepository;
@@ -27,72 +34,220 @@ public class OutboxPublisher {
 
     private final int batchSize;
     private final int maxRetries;
+    private final long sendTimeoutMs;
+    private final long retryBackoffMs;
+    private final long maxRetryBackoffMs;
+    private final boolean transactional;
+
+    private final Timer publishLagTimer;
 
     public OutboxPublisher(OutboxRepository outboxRepository,
                            KafkaTemplate<String, byte[]> kafkaTemplate,
                            @Value("${app.outbox.batch-size:50}") int batchSize,
-                           @Value("${app.outbox.max-retries:10}") int maxRetries) {
+                           @Value("${app.outbox.max-retries:10}") int maxRetries,
+                           @Value("${app.outbox.send-timeout-ms:10000}") long sendTimeoutMs,
+                           @Value("${app.outbox.retry-backoff-ms:1000}") long retryBackoffMs,
+                           @Value("${app.outbox.max-retry-backoff-ms:60000}") long maxRetryBackoffMs,
+                           @Value("${app.outbox.producer.mode:" + PRODUCER_MODE_PLAIN + "}") String producerMode,
+                           MeterRegistry meterRegistry) {
+        if (!PRODUCER_MODE_PLAIN.equals(producerMode) && !PRODUCER_MODE_TRANSACTIONAL.equals(producerMode)) {
+            throw new IllegalArgumentException("Unsupported app.outbox.producer.mode: " + producerMode);
+        }
         this.outboxRepository = outboxRepository;
         this.kafkaTemplate = kafkaTemplate;
         this.batchSize = batchSize;
         this.maxRetries = maxRetries;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.retryBackoffMs = retryBackoffMs;
+        this.maxRetryBackoffMs = maxRetryBackoffMs;
+        this.transactional = PRODUCER_MODE_TRANSACTIONAL.equals(producerMode);
+        this.publishLagTimer = Timer.builder("outbox.publish.lag")
+                .description("Time from outbox row creation to broker acknowledgement")
+                .register(meterRegistry);
     }
 
     /**
-     * Reads NEW outbox events, publishes to Kafka, and updates status.
+     * Claims NEW outbox events, publishes to Kafka, and updates status.
      * Transactional:
-     * - status updates are committed even if Kafka send fails for some rows
-     * - next poll will pick remaining NEW/FAILED rows based on your strategy
+     * - the batch is claimed with {@code FOR UPDATE SKIP LOCKED}, so several instances publish disjoint batches
+     *   and rows of a crashed instance are released when its transaction rolls back
+     * - claimed rows are a read-only projection, not managed entities, so nothing is dirty-checked or flushed
+     * - every row of the batch is sent before any acknowledgement is awaited, so the producer can batch and
+     *   compress them; all acknowledgements share one {@code app.outbox.send-timeout-ms} deadline
+     * - status updates are two set-based statements (sent rows, failed rows) and are committed even if
+     *   Kafka send fails for some rows
+     * - a failed row stays NEW until max retries and is only claimed again once its backoff
+     *   ({@code app.outbox.retry-backoff-ms}, doubled per attempt up to {@code app.outbox.max-retry-backoff-ms}) has elapsed
+     * - with {@code app.outbox.producer.mode=transactional} the batch is sent in one Kafka transaction, and an
+     *   aborted one is retried in halves, see {@link #publishInKafkaTransaction}
+     * Returns the number of rows published, so callers can keep draining while there is progress.
+     * Scheduling and draining are driven by {@link OutboxDrainer}.
      */
-    @Scheduled(fixedDelayString = "${app.outbox.poll-ms:500}")
     @Transactional
-    public void publishBatch() {
-        List<OutboxEntity> batch =
-                outboxRepository.findByStatusOrderByCreatedAtAsc(
-                        PublicationStatus.NEW,
-                        PageRequest.of(0, batchSize)
-                );
+    public int publishBatch() {
+        return publishBatch(batchSize);
+    }
+
+    /**
+     * Same as {@link #publishBatch()} but claims at most {@code limit} rows.
+     */
+    @Transactional
+    public int publishBatch(int limit) {
+        List<ClaimedEvent> batch = outboxRepository.claimNextBatch(limit);
 
         if (batch.isEmpty()) {
-            return;
+            return 0;
         }
 
         log.info("Publishing outbox batch size={}", batch.size());
 
-        for (OutboxEntity event : batch) {
-            publishOne(event);
+        Instant attemptAt = Instant.now();
+
+        if (transactional) {
+            return publishInKafkaTransaction(batch, attemptAt);
         }
-    }
 
-    private void publishOne(OutboxEntity event) {
-        try {
-            event.setLastAttemptAt(Instant.now());
+        List<CompletableFuture<?>> sends = new ArrayList<>(batch.size());
+        for (ClaimedEvent event : batch) {
+            sends.add(send(event));
+        }
+
+        List<ClaimedEvent> sent = new ArrayList<>();
+        List<UUID> failedIds = new ArrayList<>();
+        List<String> failedErrors = new ArrayList<>();
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        for (int i = 0; i < batch.size(); i++) {
+            ClaimedEvent event = batch.get(i);
+            try {
+                sends.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                sent.add(event);
+
+                log.debug("Outbox event sent id={} topic={} key={}", event.getId(), event.getTopic(), event.getKey());
+
+            } catch (Exception ex) {
+                if (ex instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                failedIds.add(event.getId());
+                failedErrors.add(errorMessage(ex));
+                logFailure(event, ex);
+            }
+        }
 
-            kafkaTemplate.send(event.getTopic(), event.getKey(), event.getPayload())
-                    .get(10, TimeUnit.SECONDS);
+        recordOutcome(sent, failedIds, failedErrors, attemptAt);
+        return sent.size();
+    }
 
-            event.markSent();
+    /**
+     * Sends the whole batch in one Kafka transaction: every record is handed to the idempotent producer, the
+     * producer is flushed and every ack checked, and only then is the transaction committed. Any failure aborts
+     * it, so {@code read_committed} consumers see each transaction completely or not at all. An aborted batch is
+     * bisected: both halves are sent again in transactions of their own, down to single rows, so one poison row
+     * costs O(log n) extra transactions and only the row that still fails on its own is recorded as a failed
+     * attempt. Halves are only started within {@code app.outbox.send-timeout-ms} of the first attempt, and each waits
+     * for its acks only until that same deadline, so the claim transaction stays open for one timeout at most; rows not
+     * tried by then (e.g. the broker is down and every transaction times out) stay NEW without being charged and
+     * are claimed again by the next run. As in plain mode, rows published next to a failed row may overtake it.
+     * The status update follows the Kafka commits in the database transaction: a crash between the two still
+     * republishes the batch (in a new Kafka transaction), but producer retries no longer duplicate records and
+     * aborted transactions are never visible.
+     */
+    private int publishInKafkaTransaction(List<ClaimedEvent> batch, Instant attemptAt) {
+        List<ClaimedEvent> sent = new ArrayList<>();
+        List<UUID> failedIds = new ArrayList<>();
+        List<String> failedErrors = new ArrayList<>();
 
-            log.debug("Outbox event sent id={} topic={} key={}", event.getId(), event.getTopic(), event.getKey());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        sendInKafkaTransaction(batch, deadline, sent, failedIds, failedErrors);
 
-        } catch (Exception ex) {
-            log.error("Error publishing outbox event id={}", event.getId(), ex);
-            Throwable cause = (ex instanceof ExecutionException) ? ex.getCause() : ex;
-            String msg = cause != null ? cause.getMessage() : ex.getMessage();
-            if (msg != null && msg.length() > 2000) {
-                msg = msg.substring(0, 2000);
+        recordOutcome(sent, failedIds, failedErrors, attemptAt);
+        return sent.size();
+    }
+
+    private void sendInKafkaTransaction(List<ClaimedEvent> rows, long deadline, List<ClaimedEvent> sent,
+                                        List<UUID> failedIds, List<String> failedErrors) {
+        try {
+            kafkaTemplate.executeInTransaction(operations -> {
+                List<CompletableFuture<?>> sends = new ArrayList<>(rows.size());
+                for (ClaimedEvent event : rows) {
+                    sends.add(operations.send(event.getTopic(), event.getKey(), event.getPayload()));
+                }
+                operations.flush();
+                CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                        .orTimeout(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)
+                        .join();
+                return null;
+            });
+            sent.addAll(rows);
+            return;
+        } catch (RuntimeException ex) {
+            if (rows.size() == 1) {
+                failedIds.add(rows.get(0).getId());
+                failedErrors.add(errorMessage(ex));
+                logFailure(rows.get(0), ex);
+                return;
             }
+            log.warn("Outbox transactional batch aborted size={}, retrying its halves", rows.size(), ex);
+        }
 
-            event.markAttemptFailed(msg);
+        int middle = rows.size() / 2;
+        for (List<ClaimedEvent> half : List.of(rows.subList(0, middle), rows.subList(middle, rows.size()))) {
+            if (System.nanoTime() - deadline >= 0) {
+                log.warn("Outbox transactional retry out of time, {} rows left for the next run", half.size());
+                continue;
+            }
+            sendInKafkaTransaction(half, deadline, sent, failedIds, failedErrors);
+        }
+    }
 
-            if (event.getRetryCount() >= maxRetries) {
-                event.markFailedPermanently(msg);
-                log.warn("Outbox event permanently failed id={} retries={}", event.getId(), event.getRetryCount(), ex);
-            } else {
-                log.warn("Outbox publish failed id={} retryCount={}", event.getId(), event.getRetryCount(), ex);
+    private void recordOutcome(List<ClaimedEvent> sent, List<UUID> failedIds, List<String> failedErrors,
+                               Instant attemptAt) {
+        if (!sent.isEmpty()) {
+            Instant sentAt = Instant.now();
+            outboxRepository.markSent(sent.stream().map(ClaimedEvent::getId).toArray(UUID[]::new), sentAt);
+            for (ClaimedEvent event : sent) {
+                publishLagTimer.record(Duration.between(event.getCreatedAt(), sentAt));
             }
+        }
+        if (!failedIds.isEmpty()) {
+            outboxRepository.markAttemptsFailed(
+                    failedIds.toArray(UUID[]::new),
+                    failedErrors.toArray(String[]::new),
+                    attemptAt,
+                    maxRetries,
+                    retryBackoffMs,
+                    maxRetryBackoffMs
+            );
+        }
+    }
 
+    private CompletableFuture<?> send(ClaimedEvent event) {
+        try {
+            return kafkaTemplate.send(event.getTopic(), event.getKey(), event.getPayload());
+        } catch (Exception ex) {
+            return CompletableFuture.failedFuture(ex);
         }
     }
-}
 
+    private static String errorMessage(Exception ex) {
+        Throwable cause = (ex instanceof ExecutionException || ex instanceof CompletionException) ? ex.getCause() : ex;
+        String msg = cause != null ? cause.getMessage() : ex.getMessage();
+        if (msg == null) {
+            msg = (cause != null ? cause : ex).getClass().getName();
+        }
+        if (msg.length() > 2000) {
+            msg = msg.substring(0, 2000);
+        }
+        return msg;
+    }
+
+    private void logFailure(ClaimedEvent event, Exception ex) {
+        int retryCount = event.getRetryCount() + 1;
+        if (retryCount >= maxRetries) {
+            log.warn("Outbox event permanently failed id={} retries={}", event.getId(), retryCount, ex);
+        } else {
+            log.warn("Outbox publish failed id={} retryCount={}", event.getId(), retryCount, ex);
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import com.codechallenge.loginprocessingservice.service.PgOutputDecoder.Begin;
+import com.codechallenge.loginprocessingservice.service.PgOutputDecoder.Commit;
+import com.codechallenge.loginprocessingservice.service.PgOutputDecoder.Insert;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.postgresql.PGConnection;
+import org.postgresql.PGProperty;
+import org.postgresql.replication.LogSequenceNumber;
+import org.postgresql.replication.PGReplicationStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbox relay that tails the write-ahead log instead of polling {@code outbox_event}
+ * ({@code app.outbox.relay.mode=wal}). Inserts into {@code outbox_event} are read from the logical replication
+ * slot {@code app.outbox.relay.slot-name} (plugin {@code pgoutput}, publication
+ * {@code app.outbox.relay.publication-name}, inserts only) over a pgjdbc replication connection, and published
+ * to their topic. Sends are batched per committed transaction, and the slot position is confirmed only once every
+ * record up to that commit has been acknowledged by the broker, so the slot (not the rows) tracks progress and
+ * outbox rows are never updated. A failed send drops the connection; after {@code reconnect-backoff-ms} the slot
+ * replays everything after the last confirmed commit, so delivery is at-least-once, as with
+ * {@link OutboxPublisher}.
+ * The publication and the slot are created at startup if missing (the user needs the REPLICATION attribute and
+ * the server {@code wal_level=logical}). A slot streams to one connection at a time: further replicas keep
+ * retrying and take over when the active one goes away.
+ * An unconsumed slot holds back WAL removal; drop it ({@code pg_drop_replication_slot}) when leaving this mode.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.relay.mode", havingValue = OutboxWalRelay.MODE_WAL)
+public class OutboxWalRelay implements SmartLifecycle {
+
+    public static final String MODE_POLL = "poll";
+    public static final String MODE_WAL = "wal";
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxWalRelay.class);
+
+    private static final String SCHEMA = "login_processing";
+    private static final String TABLE = "outbox_event";
+    private static final long IDLE_WAIT_MS = 10;
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final String slotName;
+    private final String publicationName;
+    private final int batchSize;
+    private final long sendTimeoutMs;
+    private final long statusIntervalMs;
+    private final long reconnectBackoffMs;
+    private final boolean transactional;
+
+    private final Counter relayedEvents;
+    private final Counter restarts;
+    private final Timer publishLagTimer;
+
+    private volatile boolean running;
+    private Thread relayThread;
+
+    public OutboxWalRelay(KafkaTemplate<String, byte[]> kafkaTemplate,
+                          @Value("${spring.datasource.url}") String url,
+                          @Value("${spring.datasource.username}") String username,
+                          @Value("${spring.datasource.password}") String password,
+                          @Value("${app.outbox.relay.slot-name:outbox_event_relay}") String slotName,
+                          @Value("${app.outbox.relay.publication-name:outbox_event_pub}") String publicationName,
+                          @Value("${app.outbox.relay.batch-size:500}") int batchSize,
+                          @Value("${app.outbox.send-timeout-ms:10000}") long sendTimeoutMs,
+                          @Value("${app.outbox.relay.status-interval-ms:10000}") long statusIntervalMs,
+                          @Value("${app.outbox.relay.reconnect-backoff-ms:5000}") long reconnectBackoffMs,
+                          @Value("${app.outbox.producer.mode:" + OutboxPublisher.PRODUCER_MODE_PLAIN + "}") String producerMode,
+                          MeterRegistry meterRegistry) {
+        if (!slotName.matches("[a-z0-9_]+") || !publicationName.matches("[a-z0-9_]+")) {
+            throw new IllegalArgumentException("app.outbox.relay.slot-name and publication-name must match [a-z0-9_]+");
+        }
+        this.kafkaTemplate = kafkaTemplate;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.slotName = slotName;
+        this.publicationName = publicationName;
+        this.batchSize = batchSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.statusIntervalMs = statusIntervalMs;
+        this.reconnectBackoffMs = reconnectBackoffMs;
+        this.transactional = OutboxPublisher.PRODUCER_MODE_TRANSACTIONAL.equals(producerMode);
+
+        this.relayedEvents = Counter.builder("outbox.relay.events")
+                .description("Outbox inserts read from the replication slot and acknowledged by the broker")
+                .register(meterRegistry);
+        this.restarts = Counter.builder("outbox.relay.restarts")
+                .description("Replication stream restarts after a failure")
+                .register(meterRegistry);
+        this.publishLagTimer = Timer.builder("outbox.relay.lag")
+                .description("Time from the commit of an outbox insert (WAL commit timestamp) to broker acknowledgement")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        relayThread = Thread.ofPlatform().name("outbox-wal-relay").daemon().start(this::relayLoop);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        relayThread.interrupt();
+        try {
+            relayThread.join(15_000);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void relayLoop() {
+        while (running) {
+            try {
+                ensurePublicationAndSlot();
+                stream();
+            } catch (Exception ex) {
+                if (!running) {
+                    return;
+                }
+                restarts.increment();
+                log.warn("[DEBUG_LOG] Outbox WAL relay stopped, restarting from slot {} in {} ms: {}",
+                        slotName, reconnectBackoffMs, ex.getMessage(), ex);
+                try {
+                    Thread.sleep(reconnectBackoffMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void ensurePublicationAndSlot() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, username, password)) {
+            if (!exists(connection, "select 1 from pg_publication where pubname = ?", publicationName)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("create publication " + publicationName + " for table " + SCHEMA + "." + TABLE
+                            + " with (publish = 'insert')");
+                }
+                log.info("[DEBUG_LOG] Created publication {}", publicationName);
+            }
+            if (!exists(connection, "select 1 from pg_replication_slots where slot_name = ?", slotName)) {
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "select pg_create_logical_replication_slot(?, 'pgoutput')")) {
+                    statement.setString(1, slotName);
+                    statement.execute();
+                }
+                log.info("[DEBUG_LOG] Created logical replication slot {}", slotName);
+            }
+        } catch (SQLException ex) {
+            // duplicate_object: another replica created it first
+            if (!"42710".equals(ex.getSQLState())) {
+                throw ex;
+            }
+        }
+    }
+
+    private void stream() throws Exception {
+        Properties props = new Properties();
+        PGProperty.USER.set(props, username);
+        PGProperty.PASSWORD.set(props, password);
+        PGProperty.REPLICATION.set(props, "database");
+        PGProperty.ASSUME_MIN_SERVER_VERSION.set(props, "10");
+        PGProperty.PREFER_QUERY_MODE.set(props, "simple");
+
+        try (Connection connection = DriverManager.getConnection(url, props);
+             PGReplicationStream stream = connection.unwrap(PGConnection.class).getReplicationAPI()
+                     .replicationStream()
+                     .logical()
+                     .withSlotName(slotName)
+                     .withSlotOption("proto_version", 1)
+                     .withSlotOption("publication_names", publicationName)
+                     .withStatusInterval((int) statusIntervalMs, TimeUnit.MILLISECONDS)
+                     .start()) {
+
+            log.info("[DEBUG_LOG] Outbox WAL relay streaming from slot {}", slotName);
+            PgOutputDecoder decoder = new PgOutputDecoder();
+            List<Relayed> pending = new ArrayList<>();
+            LogSequenceNumber confirmed = LogSequenceNumber.INVALID_LSN;
+            long lastCommitEndLsn = 0;
+            Instant commitTime = null;
+            boolean inTransaction = false;
+
+            while (running) {
+                ByteBuffer message = stream.readPending();
+                if (message == null) {
+                    if (!inTransaction) {
+                        // nothing unacknowledged before the received position: confirm it, including keepalive
+                        // progress, so the slot does not hold back WAL of unrelated tables while the outbox is idle
+                        confirmed = pending.isEmpty()
+                                ? confirm(stream, confirmed, stream.getLastReceiveLSN(), false)
+                                : confirm(stream, confirmed, publish(pending, lastCommitEndLsn), true);
+                    }
+                    Thread.sleep(IDLE_WAIT_MS);
+                    continue;
+                }
+
+                switch (decoder.decode(message)) {
+                    case Begin begin -> {
+                        inTransaction = true;
+                        commitTime = begin.commitTime();
+                    }
+                    case Insert insert when TABLE.equals(insert.relation().name())
+                            && SCHEMA.equals(insert.relation().namespace()) ->
+                            pending.add(new Relayed(
+                                    insert.value("topic"),
+                                    insert.value("key"),
+                                    PgOutputDecoder.bytea(insert.value("payload")),
+                                    commitTime));
+                    case Commit commit -> {
+                        inTransaction = false;
+                        lastCommitEndLsn = commit.endLsn();
+                        if (pending.size() >= batchSize) {
+                            confirmed = confirm(stream, confirmed, publish(pending, lastCommitEndLsn), true);
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends {@code pending} and waits for every acknowledgement (in one Kafka transaction with the
+     * transactional producer). Throws if any send fails, which restarts the stream from the last confirmed commit.
+     * Returns the position to confirm: the end of the last commit the batch belongs to.
+     */
+    private LogSequenceNumber publish(List<Relayed> pending, long lastCommitEndLsn) {
+        if (transactional) {
+            kafkaTemplate.executeInTransaction(operations -> {
+                sendAndAwait(operations, pending);
+                return null;
+            });
+        } else {
+            sendAndAwait(kafkaTemplate, pending);
+        }
+
+        Instant ackedAt = Instant.now();
+        for (Relayed event : pending) {
+            publishLagTimer.record(Duration.between(event.committedAt(), ackedAt));
+        }
+        relayedEvents.increment(pending.size());
+        log.debug("Relayed {} outbox events up to {}", pending.size(), LogSequenceNumber.valueOf(lastCommitEndLsn));
+        pending.clear();
+        return LogSequenceNumber.valueOf(lastCommitEndLsn);
+    }
+
+    private void sendAndAwait(KafkaOperations<String, byte[]> operations, List<Relayed> pending) {
+        List<CompletableFuture<?>> sends = new ArrayList<>(pending.size());
+        for (Relayed event : pending) {
+            sends.add(operations.send(event.topic(), event.key(), event.payload()));
+        }
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                .orTimeout(sendTimeoutMs, TimeUnit.MILLISECONDS)
+                .join();
+    }
+
+    /**
+     * Moves the slot position reported to the server to {@code position}. Positions reached by publishing are
+     * reported right away ({@code force}), so a restart replays as little as possible; the others go out with
+     * the next periodic status update.
+     */
+    private static LogSequenceNumber confirm(PGReplicationStream stream, LogSequenceNumber confirmed,
+                                             LogSequenceNumber position, boolean force) throws SQLException {
+        if (position.asLong() <= confirmed.asLong()) {
+            return confirmed;
+        }
+        stream.setFlushedLSN(position);
+        stream.setAppliedLSN(position);
+        if (force) {
+            stream.forceUpdateStatus();
+        }
+        return position;
+    }
+
+    private static boolean exists(Connection connection, String sql, String name) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, name);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private record Relayed(String topic, String key, byte[] payload, Instant committedAt) {
+    }
+}
@@ -0,0 +1,57 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tells the listeners which records another replica may already have processed. When a partition is assigned,
+ * its end offset is recorded: every record below it was in the log before this instance owned the partition,
+ * so the previous owner may have processed it without committing its offset. Records at or past that offset
+ * were produced while this instance owned the partition and can only have been seen here.
+ * The {@link MessageIdFilter} only knows the messageIds of this JVM, so {@link LoginProcessingServiceImpl} checks
+ * the former against the database whatever the filter says.
+ */
+@Component
+public class PartitionHandoverTracker implements ConsumerAwareRebalanceListener {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionHandoverTracker.class);
+
+    private final Map<TopicPartition, Long> endOffsetsAtAssignment = new ConcurrentHashMap<>();
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) {
+            return;
+        }
+        Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+        endOffsetsAtAssignment.putAll(endOffsets);
+        log.info("[DEBUG_LOG] Partitions assigned, records below these offsets may be redeliveries: {}", endOffsets);
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        partitions.forEach(endOffsetsAtAssignment::remove);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        partitions.forEach(endOffsetsAtAssignment::remove);
+    }
+
+    /**
+     * {@code true} if the record may have been processed by the previous owner of its partition, or if the
+     * partition's assignment is unknown.
+     */
+    public boolean mayBeRedelivery(String topic, int partition, long offset) {
+        Long endOffset = endOffsetsAtAssignment.get(new TopicPartition(topic, partition));
+        return endOffset == null || offset < endOffset;
+    }
+}
@@ -0,0 +1,246 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import com.codechallenge.loginprocessingservice.config.ProcessingExecutionConfig;
+import com.codechallenge.loginprocessingservice.dto.CustomerLoginEvent;
+import com.codechallenge.loginprocessingservice.model.LoginTrackingResultEntity;
+import com.codechallenge.loginprocessingservice.model.RequestResult;
+import com.codechallenge.loginprocessingservice.repository.LoginTrackingResultRepository;
+import com.codechallenge.loginprocessingservice.repository.LoginTrackingResultRepository.PendingResult;
+import com.codechallenge.loginprocessingservice.service.CustomerTrackingService.TrackingAttempt;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static com.codechallenge.loginprocessingservice.mapper.LoginTrackingResultMapper.toEntity;
+
+/**
+ * Deferred re-tracking ({@code app.customer-tracking.deferred.enabled=true}): the consumer stores a login whose
+ * single tracking attempt failed transiently as {@link RequestResult#PENDING} and moves on; this component
+ * re-attempts those rows in the background, so slow or failing tracking calls no longer hold up Kafka consumption.
+ * A dedicated thread claims due rows in batches of {@code batch-size} ({@link LoginTrackingResultRepository#claimDuePending},
+ * a lease instead of an open transaction), makes one attempt per row like {@link LoginProcessingServiceImpl#processBatch}
+ * does, and records the outcomes in one short transaction ({@link LoginTrackingResultWriter#completePending}):
+ * <ul>
+ *     <li>SUCCESSFUL, or UNSUCCESSFUL because of a non-retryable error: the result is final and its outbox row written</li>
+ *     <li>PENDING again: due after {@code retry-backoff-ms} doubled per attempt (with jitter) up to
+ *     {@code max-retry-backoff-ms}, or final as UNSUCCESSFUL once {@code max-attempts} attempts (the consumer's
+ *     included) have been made</li>
+ *     <li>refused by the circuit breaker or the concurrency limiter: rescheduled the same way, but no attempt is
+ *     counted since no request was made</li>
+ * </ul>
+ * A claim holds at most as many rows as can be tracked within {@code lease-ms}: a call takes up to
+ * {@code connect-timeout-ms + request-timeout-ms} (plus the limiter's {@code max-wait-ms} when it is enabled), and
+ * calls run one after another on the blocking client without virtual threads, {@code max-concurrency} at a time
+ * with virtual threads, and all at once on the async client. Otherwise the lease could run out mid-batch and
+ * another retrier would track the same rows again.
+ * It keeps claiming while batches come back full and then sleeps {@code poll-ms}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.customer-tracking.deferred.enabled", havingValue = "true")
+public class PendingTrackingRetrier implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(PendingTrackingRetrier.class);
+
+    private final LoginTrackingResultRepository resultRepository;
+    private final LoginTrackingResultWriter resultWriter;
+    private final CustomerTrackingService trackingService;
+    private final TaskExecutor trackingTaskExecutor;
+
+    private final long pollMs;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long leaseMs;
+    private final long retryBackoffMs;
+    private final long maxRetryBackoffMs;
+
+    private final Map<RequestResult, Counter> attempts = new EnumMap<>(RequestResult.class);
+    private final Counter exhausted;
+    private final Counter refused;
+
+    private volatile boolean running;
+    private Thread retryThread;
+
+    public PendingTrackingRetrier(LoginTrackingResultRepository resultRepository,
+                                  LoginTrackingResultWriter resultWriter,
+                                  CustomerTrackingService trackingService,
+                                  @Qualifier("trackingTaskExecutor") TaskExecutor trackingTaskExecutor,
+                                  @Value("${app.customer-tracking.deferred.poll-ms:1000}") long pollMs,
+                                  @Value("${app.customer-tracking.deferred.batch-size:100}") int batchSize,
+                                  @Value("${app.customer-tracking.deferred.max-attempts:10}") int maxAttempts,
+                                  @Value("${app.customer-tracking.deferred.lease-ms:60000}") long leaseMs,
+                                  @Value("${app.customer-tracking.deferred.retry-backoff-ms:1000}") long retryBackoffMs,
+                                  @Value("${app.customer-tracking.deferred.max-retry-backoff-ms:60000}") long maxRetryBackoffMs,
+                                  @Value("${app.customer-tracking.http.connect-timeout-ms:3000}") long connectTimeoutMs,
+                                  @Value("${app.customer-tracking.http.request-timeout-ms:5000}") long requestTimeoutMs,
+                                  @Value("${app.customer-tracking.concurrency-limit.enabled:false}") boolean limiterEnabled,
+                                  @Value("${app.customer-tracking.concurrency-limit.max-wait-ms:2000}") long limiterMaxWaitMs,
+                                  @Value(ProcessingExecutionConfig.VIRTUAL_THREADS_ENABLED) boolean virtualThreads,
+                                  @Value("${app.processing.virtual-threads.max-concurrency:256}") int maxConcurrency,
+                                  MeterRegistry meterRegistry) {
+        if (maxAttempts < 2) {
+            throw new IllegalArgumentException("Unsupported app.customer-tracking.deferred.max-attempts: " + maxAttempts);
+        }
+        long worstCaseCallMs = connectTimeoutMs + requestTimeoutMs + (limiterEnabled ? limiterMaxWaitMs : 0);
+        long callsPerLease = leaseMs / worstCaseCallMs;
+        if (callsPerLease < 1) {
+            throw new IllegalArgumentException("Unsupported app.customer-tracking.deferred.lease-ms: " + leaseMs
+                    + " (a tracking call may take " + worstCaseCallMs + " ms)");
+        }
+        long parallelCalls = trackingService.isAsync() ? batchSize : virtualThreads ? maxConcurrency : 1;
+
+        this.resultRepository = resultRepository;
+        this.resultWriter = resultWriter;
+        this.trackingService = trackingService;
+        this.trackingTaskExecutor = trackingTaskExecutor;
+        this.pollMs = pollMs;
+        this.batchSize = (int) Math.min(batchSize, parallelCalls * callsPerLease);
+        this.maxAttempts = maxAttempts;
+        this.leaseMs = leaseMs;
+        this.retryBackoffMs = retryBackoffMs;
+        this.maxRetryBackoffMs = maxRetryBackoffMs;
+
+        for (RequestResult result : RequestResult.values()) {
+            attempts.put(result, Counter.builder("customer.tracking.deferred.attempts")
+                    .description("Re-attempts of deferred customer-tracking calls by outcome")
+                    .tag("result", result.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        this.exhausted = Counter.builder("customer.tracking.deferred.exhausted")
+                .description("Deferred logins recorded as UNSUCCESSFUL after max-attempts tracking attempts")
+                .register(meterRegistry);
+        this.refused = Counter.builder("customer.tracking.deferred.refused")
+                .description("Deferred re-attempts refused by the circuit breaker or the concurrency limiter, not counted as attempts")
+                .register(meterRegistry);
+
+        if (this.batchSize < batchSize) {
+            log.info("Deferred tracking claims at most {} rows: lease-ms={} covers {} calls of up to {} ms, {} at a time",
+                    this.batchSize, leaseMs, callsPerLease, worstCaseCallMs, parallelCalls);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        retryThread = Thread.ofPlatform().name("login-tracking-deferred").daemon().start(this::retryLoop);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        retryThread.interrupt();
+        try {
+            retryThread.join(15_000);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Re-attempts the due PENDING rows batch by batch until a batch comes back short.
+     * Returns the number of rows whose result became final.
+     */
+    public int retryDue() {
+        int completed = 0;
+        while (running) {
+            List<PendingResult> batch = resultRepository.claimDuePending(batchSize, leaseMs);
+            if (batch.isEmpty()) {
+                break;
+            }
+            completed += retry(batch);
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+        return completed;
+    }
+
+    private int retry(List<PendingResult> batch) {
+        List<CompletableFuture<TrackingAttempt>> calls = new ArrayList<>(batch.size());
+        for (PendingResult pending : batch) {
+            CustomerLoginEvent event = toLoginEvent(pending);
+            calls.add(trackingService.isAsync()
+                    ? trackingService.attemptOnceAsync(event)
+                    : CompletableFuture.supplyAsync(() -> trackingService.attemptOnce(event), trackingTaskExecutor));
+        }
+
+        List<LoginTrackingResultEntity> finished = new ArrayList<>();
+        List<LoginTrackingResultEntity> retry = new ArrayList<>();
+        List<LoginTrackingResultEntity> refusedRows = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            PendingResult pending = batch.get(i);
+            TrackingAttempt attempt = calls.get(i).join();
+            RequestResult requestResult = attempt.requestResult();
+
+            if (!attempt.made()) {
+                refused.increment();
+                LoginTrackingResultEntity row = toEntity(toLoginEvent(pending), requestResult);
+                row.setId(pending.getId());
+                refusedRows.add(row);
+                continue;
+            }
+            attempts.get(requestResult).increment();
+
+            if (requestResult == RequestResult.PENDING && pending.getTrackingAttempts() + 1 >= maxAttempts) {
+                exhausted.increment();
+                log.warn("Deferred tracking gave up after {} attempts. customerId={} messageId={}",
+                        maxAttempts, pending.getCustomerId(), pending.getMessageId());
+                requestResult = RequestResult.UNSUCCESSFUL;
+            }
+
+            LoginTrackingResultEntity row = toEntity(toLoginEvent(pending), requestResult);
+            row.setId(pending.getId());
+            (requestResult == RequestResult.PENDING ? retry : finished).add(row);
+        }
+
+        List<LoginTrackingResultEntity> completed =
+                resultWriter.completePending(finished, retry, refusedRows, retryBackoffMs, maxRetryBackoffMs);
+        log.info("[DEBUG_LOG] Deferred tracking batch size={} completed={} rescheduled={} refused={}",
+                batch.size(), completed.size(), retry.size(), refusedRows.size());
+        return completed.size();
+    }
+
+    private void retryLoop() {
+        while (running) {
+            try {
+                retryDue();
+            } catch (Exception ex) {
+                log.error("Deferred tracking run failed; claimed rows are retried once their lease runs out", ex);
+            }
+            try {
+                Thread.sleep(pollMs);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static CustomerLoginEvent toLoginEvent(PendingResult pending) {
+        return new CustomerLoginEvent(
+                pending.getCustomerId(),
+                pending.getUsername(),
+                pending.getClient(),
+                pending.getEventTimestamp(),
+                pending.getMessageId(),
+                pending.getCustomerIp()
+        );
+    }
+}
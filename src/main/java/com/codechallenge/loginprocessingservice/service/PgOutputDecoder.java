@@ -0,0 +1,138 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes the messages of the {@code pgoutput} logical decoding plugin (protocol version 1) that
+ * {@link OutboxWalRelay} needs: Begin, Commit, Relation and Insert. Every other message type is returned as
+ * {@link Other}. Relation messages are cached, since an Insert only carries the relation oid; Postgres sends the
+ * Relation before the first change of a table on every replication connection, and again after a schema change.
+ * Column values are kept in their text representation.
+ */
+final class PgOutputDecoder {
+
+    /**
+     * Microseconds between the Unix epoch and the Postgres epoch (2000-01-01T00:00:00Z).
+     */
+    private static final long PG_EPOCH_OFFSET_MICROS = 946_684_800_000_000L;
+
+    private final Map<Integer, Relation> relations = new HashMap<>();
+
+    sealed interface Message permits Begin, Commit, Relation, Insert, Other {
+    }
+
+    record Begin(long finalLsn, Instant commitTime, int xid) implements Message {
+    }
+
+    record Commit(long commitLsn, long endLsn, Instant commitTime) implements Message {
+    }
+
+    record Relation(int oid, String namespace, String name, List<String> columns) implements Message {
+    }
+
+    record Insert(Relation relation, List<String> values) implements Message {
+
+        /**
+         * Text value of {@code column}, {@code null} for SQL NULL.
+         */
+        String value(String column) {
+            int index = relation.columns().indexOf(column);
+            if (index < 0) {
+                throw new IllegalStateException("Column " + column + " not in " + relation.namespace() + "." + relation.name());
+            }
+            return values.get(index);
+        }
+    }
+
+    record Other(char type) implements Message {
+    }
+
+    Message decode(ByteBuffer buffer) {
+        char type = (char) buffer.get();
+        return switch (type) {
+            case 'B' -> new Begin(buffer.getLong(), timestamp(buffer.getLong()), buffer.getInt());
+            case 'C' -> {
+                buffer.get(); // flags, unused
+                yield new Commit(buffer.getLong(), buffer.getLong(), timestamp(buffer.getLong()));
+            }
+            case 'R' -> relation(buffer);
+            case 'I' -> insert(buffer);
+            default -> new Other(type);
+        };
+    }
+
+    private Relation relation(ByteBuffer buffer) {
+        int oid = buffer.getInt();
+        String namespace = string(buffer);
+        String name = string(buffer);
+        buffer.get(); // replica identity
+        int columnCount = buffer.getShort();
+        List<String> columns = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            buffer.get(); // flags
+            columns.add(string(buffer));
+            buffer.getInt(); // type oid
+            buffer.getInt(); // type modifier
+        }
+        Relation relation = new Relation(oid, namespace, name, List.copyOf(columns));
+        relations.put(oid, relation);
+        return relation;
+    }
+
+    private Insert insert(ByteBuffer buffer) {
+        int oid = buffer.getInt();
+        Relation relation = relations.get(oid);
+        if (relation == null) {
+            throw new IllegalStateException("Insert for relation " + oid + " before its Relation message");
+        }
+        buffer.get(); // 'N', new tuple
+        int columnCount = buffer.getShort();
+        List<String> values = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            char kind = (char) buffer.get();
+            switch (kind) {
+                case 'n', 'u' -> values.add(null);
+                case 't' -> {
+                    byte[] bytes = new byte[buffer.getInt()];
+                    buffer.get(bytes);
+                    values.add(new String(bytes, StandardCharsets.UTF_8));
+                }
+                default -> throw new IllegalStateException("Unsupported tuple column kind '" + kind + "'");
+            }
+        }
+        return new Insert(relation, values);
+    }
+
+    /**
+     * Decodes the text form of a {@code bytea} value ({@code bytea_output = hex}, the Postgres default).
+     */
+    static byte[] bytea(String text) {
+        if (!text.startsWith("\\x")) {
+            throw new IllegalStateException("bytea value is not in hex format");
+        }
+        return HexFormat.of().parseHex(text, 2, text.length());
+    }
+
+    private static String string(ByteBuffer buffer) {
+        int start = buffer.position();
+        int end = start;
+        while (buffer.get(end) != 0) {
+            end++;
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + start, end - start, StandardCharsets.UTF_8);
+        buffer.position(end + 1);
+        return value;
+    }
+
+    private static Instant timestamp(long pgMicros) {
+        long micros = pgMicros + PG_EPOCH_OFFSET_MICROS;
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L);
+    }
+}
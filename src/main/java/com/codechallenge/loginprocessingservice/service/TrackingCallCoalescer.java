@@ -0,0 +1,40 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Request coalescing in front of the customer-tracking clients: calls for the same customer that arrive close
+ * together may share one HTTP request and its outcome. Only the call is shared; every event still maps the outcome
+ * to its own {@link com.codechallenge.loginprocessingservice.model.RequestResult}.
+ */
+public interface TrackingCallCoalescer {
+
+    /**
+     * No coalescing: every call sends its own request.
+     */
+    TrackingCallCoalescer NONE = new TrackingCallCoalescer() {
+        @Override
+        public boolean call(UUID customerId, Supplier<Boolean> call) {
+            return call.get();
+        }
+
+        @Override
+        public CompletableFuture<Boolean> callAsync(UUID customerId, Supplier<CompletableFuture<Boolean>> call) {
+            return call.get();
+        }
+    };
+
+    /**
+     * Runs the blocking {@code call} for {@code customerId}, or waits for the outcome of one already shared.
+     * Fails with the exception of the shared call.
+     */
+    boolean call(UUID customerId, Supplier<Boolean> call);
+
+    /**
+     * Starts {@code call} for {@code customerId}, or returns the outcome of one already shared.
+     * The future fails with the exception of the shared call itself, not a {@code CompletionException}.
+     */
+    CompletableFuture<Boolean> callAsync(UUID customerId, Supplier<CompletableFuture<Boolean>> call);
+}
@@ -0,0 +1,37 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Caps the customer-tracking requests in flight. A call over the limit waits for a permit or is rejected with
+ * {@link java.util.concurrent.RejectedExecutionException}, which the {@code customerTracking} retry does not retry.
+ */
+public interface TrackingConcurrencyLimiter {
+
+    /**
+     * No limit: every call runs right away.
+     */
+    TrackingConcurrencyLimiter NONE = new TrackingConcurrencyLimiter() {
+        @Override
+        public boolean call(Supplier<Boolean> call) {
+            return call.get();
+        }
+
+        @Override
+        public CompletableFuture<Boolean> callAsync(Supplier<CompletableFuture<Boolean>> call) {
+            return call.get();
+        }
+    };
+
+    /**
+     * Runs the blocking {@code call} once a permit is available, waiting on the caller thread.
+     */
+    boolean call(Supplier<Boolean> call);
+
+    /**
+     * Starts {@code call} once a permit is available, without blocking the caller. The future fails with the
+     * exception of the call or the rejection itself, not a {@code CompletionException}.
+     */
+    CompletableFuture<Boolean> callAsync(Supplier<CompletableFuture<Boolean>> call);
+}
@@ -0,0 +1,85 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+/**
+ * Streams the JFR {@code jdk.VirtualThreadPinned} event while virtual threads are enabled.
+ * A virtual thread that blocks inside {@code synchronized} or a native frame keeps its carrier thread,
+ * which silently turns the virtual-thread mode back into a small platform-thread pool; every such pin longer
+ * than {@code app.processing.virtual-threads.pinned-threshold-ms} is counted and logged with its top frames.
+ */
+@Component
+@ConditionalOnProperty(name = "app.processing.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 8;
+
+    private final Counter pinnedCounter;
+    private final Duration threshold;
+
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${app.processing.virtual-threads.pinned-threshold-ms:20}") long thresholdMs) {
+        this.pinnedCounter = Counter.builder("login.processing.virtual-threads.pinned")
+                .description("Virtual threads pinned to their carrier for longer than the threshold")
+                .register(meterRegistry);
+        this.threshold = Duration.ofMillis(thresholdMs);
+    }
+
+    @PostConstruct
+    public void start() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+        recordingStream.startAsync();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    public double pinnedCount() {
+        return pinnedCounter.count();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedCounter.increment();
+        log.warn("Virtual thread pinned for {} ms at:\n{}", event.getDuration().toMillis(), topFrames(event));
+    }
+
+    private static String topFrames(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "\t<no stack trace>";
+        }
+        return event.getStackTrace().getFrames().stream()
+                .limit(LOGGED_FRAMES)
+                .map(VirtualThreadPinningMonitor::describe)
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return "\t" + frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + ":" + frame.getLineNumber();
+    }
+}
@@ -0,0 +1,5 @@
+-- Warm-up read of the in-memory dedup filter (DedupFilterConfig): the messageIds processed within
+-- app.dedup.filter.warm-up-window-ms. Keys are appended in created_at order, so a BRIN index narrows that read to
+-- the last few block ranges instead of scanning and sorting every key.
+CREATE INDEX IF NOT EXISTS ix_processed_message_created_at_brin
+    ON login_processing.processed_message USING brin (created_at);
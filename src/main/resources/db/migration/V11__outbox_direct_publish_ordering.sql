@@ -0,0 +1,29 @@
+-- Direct-publish fast path (app.outbox.direct-publish.enabled): before sending a row of a key whose earlier row
+-- failed to send, the fast path checks for NEW rows of that key (OutboxRepository.existsEarlierNew). Only NEW rows
+-- are indexed, so the index stays as small as the claim index of V3.
+CREATE INDEX IF NOT EXISTS ix_outbox_event_new_key
+    ON login_processing.outbox_event (key)
+    WHERE status = 'NEW';
+
+-- Only wake the publishers for rows that are due. Rows written for the fast path are due claim-delay-ms later and
+-- are picked up by the app.outbox.poll-ms schedule if the fast path misses them; notifying on their insert only
+-- woke the drainer for a claim that found nothing.
+CREATE OR REPLACE FUNCTION login_processing.notify_outbox_event()
+    RETURNS trigger
+    LANGUAGE plpgsql
+AS $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM inserted WHERE next_attempt_at <= now()) THEN
+        PERFORM pg_notify('outbox_event', '');
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS trg_outbox_event_notify ON login_processing.outbox_event;
+
+CREATE TRIGGER trg_outbox_event_notify
+    AFTER INSERT ON login_processing.outbox_event
+    REFERENCING NEW TABLE AS inserted
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION login_processing.notify_outbox_event();
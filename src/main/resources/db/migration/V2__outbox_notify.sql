@@ -0,0 +1,19 @@
+-- Wakes up outbox publishers (LISTEN outbox_event) as soon as new outbox rows are committed.
+-- Statement-level, so a set-based insert of a whole batch sends a single notification;
+-- notifications are delivered on commit and identical ones within a transaction are folded by Postgres.
+CREATE OR REPLACE FUNCTION login_processing.notify_outbox_event()
+    RETURNS trigger
+    LANGUAGE plpgsql
+AS $$
+BEGIN
+    PERFORM pg_notify('outbox_event', '');
+    RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS trg_outbox_event_notify ON login_processing.outbox_event;
+
+CREATE TRIGGER trg_outbox_event_notify
+    AFTER INSERT ON login_processing.outbox_event
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION login_processing.notify_outbox_event();
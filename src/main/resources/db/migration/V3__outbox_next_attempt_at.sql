@@ -0,0 +1,9 @@
+-- Earliest time an outbox row may be (re)published. New rows are due immediately; a failed attempt pushes it
+-- out by an exponential backoff with jitter, so a broker outage does not make publishers hot-loop on the same rows.
+ALTER TABLE login_processing.outbox_event
+    ADD COLUMN IF NOT EXISTS next_attempt_at TIMESTAMPTZ NOT NULL DEFAULT now();
+
+-- Claim path: only NEW rows are ever claimed, ordered by when they become due.
+CREATE INDEX IF NOT EXISTS ix_outbox_event_new_next_attempt_at
+    ON login_processing.outbox_event (next_attempt_at)
+    WHERE status = 'NEW';
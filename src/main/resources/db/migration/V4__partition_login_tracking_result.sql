@@ -0,0 +1,82 @@
+-- Range-partition login_tracking_result by event_timestamp (one partition per UTC month), so retention is a
+-- partition drop instead of a bulk delete, and vacuum and index maintenance only touch the recent partitions.
+-- Future partitions are created and expired ones dropped/detached by LoginTrackingResultPartitionMaintainer.
+--
+-- Unique constraints of a partitioned table must contain the partition key: the primary key becomes
+-- (id, event_timestamp) and the messageId dedup key (message_id, event_timestamp). A redelivered message carries
+-- the event_timestamp of the original, so redeliveries still conflict.
+--
+-- Existing rows are copied in this migration's transaction; the table is locked until it commits.
+
+ALTER TABLE login_processing.login_tracking_result RENAME TO login_tracking_result_unpartitioned;
+ALTER TABLE login_processing.login_tracking_result_unpartitioned
+    RENAME CONSTRAINT ux_login_tracking_result_message_id TO ux_login_tracking_result_unpartitioned_message_id;
+ALTER TABLE login_processing.login_tracking_result_unpartitioned
+    RENAME CONSTRAINT chk_login_tracking_result_client TO chk_login_tracking_result_unpartitioned_client;
+ALTER TABLE login_processing.login_tracking_result_unpartitioned
+    RENAME CONSTRAINT chk_login_tracking_result_request_result TO chk_login_tracking_result_unpartitioned_request_result;
+ALTER INDEX login_processing.ix_login_tracking_result_customer_id
+    RENAME TO ix_login_tracking_result_unpartitioned_customer_id;
+ALTER INDEX login_processing.ix_login_tracking_result_event_timestamp
+    RENAME TO ix_login_tracking_result_unpartitioned_event_timestamp;
+
+CREATE TABLE login_processing.login_tracking_result (
+    id                UUID NOT NULL DEFAULT gen_random_uuid(),
+    message_id        UUID NOT NULL,
+    customer_id       UUID NOT NULL,
+    username          VARCHAR(150) NOT NULL,
+    client            VARCHAR(16) NOT NULL, -- WEB/ANDROID/IOS
+    event_timestamp   TIMESTAMPTZ NOT NULL,
+    customer_ip       VARCHAR(45) NOT NULL, -- IPv4/IPv6
+    request_result    VARCHAR(16) NOT NULL, -- SUCCESSFUL/UNSUCCESSFUL
+    created_at        TIMESTAMPTZ NOT NULL DEFAULT now(),
+
+    CONSTRAINT pk_login_tracking_result PRIMARY KEY (id, event_timestamp),
+
+    CONSTRAINT ux_login_tracking_result_message_id UNIQUE (message_id, event_timestamp),
+
+    CONSTRAINT chk_login_tracking_result_client
+    CHECK (client IN ('WEB', 'ANDROID', 'IOS')),
+
+    CONSTRAINT chk_login_tracking_result_request_result
+    CHECK (request_result IN ('SUCCESSFUL', 'UNSUCCESSFUL'))
+    ) PARTITION BY RANGE (event_timestamp);
+
+CREATE INDEX ix_login_tracking_result_customer_id
+    ON login_processing.login_tracking_result (customer_id);
+
+CREATE INDEX ix_login_tracking_result_event_timestamp
+    ON login_processing.login_tracking_result (event_timestamp);
+
+-- Rows outside every monthly partition (late or far-future event timestamps) land here instead of failing.
+CREATE TABLE login_processing.login_tracking_result_default
+    PARTITION OF login_processing.login_tracking_result DEFAULT;
+
+-- Monthly partitions from the oldest existing row up to three months ahead. Month arithmetic is done on UTC
+-- wall-clock timestamps so that the bounds do not depend on the session time zone.
+DO $$
+DECLARE
+    month_start TIMESTAMP;
+    last_month  TIMESTAMP := date_trunc('month', now() AT TIME ZONE 'UTC') + interval '3 months';
+BEGIN
+    SELECT coalesce(date_trunc('month', min(event_timestamp) AT TIME ZONE 'UTC'),
+                    date_trunc('month', now() AT TIME ZONE 'UTC'))
+    INTO month_start
+    FROM login_processing.login_tracking_result_unpartitioned;
+
+    WHILE month_start <= last_month LOOP
+        EXECUTE format(
+            'CREATE TABLE login_processing.%I PARTITION OF login_processing.login_tracking_result FOR VALUES FROM (%L) TO (%L)',
+            'login_tracking_result_p' || to_char(month_start, 'YYYYMM'),
+            to_char(month_start, 'YYYY-MM-DD') || ' 00:00:00+00',
+            to_char(month_start + interval '1 month', 'YYYY-MM-DD') || ' 00:00:00+00');
+        month_start := month_start + interval '1 month';
+    END LOOP;
+END $$;
+
+INSERT INTO login_processing.login_tracking_result
+    (id, message_id, customer_id, username, client, event_timestamp, customer_ip, request_result, created_at)
+SELECT id, message_id, customer_id, username, client, event_timestamp, customer_ip, request_result, created_at
+FROM login_processing.login_tracking_result_unpartitioned;
+
+DROP TABLE login_processing.login_tracking_result_unpartitioned;
@@ -0,0 +1,28 @@
+-- Purge path of OutboxJanitor: SENT rows, oldest first. Partial, so it only grows with the rows awaiting purge.
+CREATE INDEX IF NOT EXISTS ix_outbox_event_sent_sent_at
+    ON login_processing.outbox_event (sent_at)
+    WHERE status = 'SENT';
+
+-- Rows moved out of outbox_event by the janitor in archive mode. No unique constraints or checks: it is an
+-- append-only copy, kept for audits and replays, and its own retention is up to the operator.
+CREATE TABLE IF NOT EXISTS login_processing.outbox_event_archive (
+    id               UUID NOT NULL,
+    aggregate_type   VARCHAR(64) NOT NULL,
+    aggregate_id     UUID NOT NULL,
+    event_type       VARCHAR(64) NOT NULL,
+    topic            TEXT NOT NULL,
+    key              TEXT NOT NULL,
+    payload          BYTEA NOT NULL,
+    status           VARCHAR(16) NOT NULL,
+    retry_count      INT NOT NULL,
+    last_error       TEXT NULL,
+    version          BIGINT NOT NULL,
+    created_at       TIMESTAMPTZ NOT NULL,
+    last_attempt_at  TIMESTAMPTZ NULL,
+    sent_at          TIMESTAMPTZ NULL,
+    next_attempt_at  TIMESTAMPTZ NOT NULL,
+    archived_at      TIMESTAMPTZ NOT NULL DEFAULT now()
+    );
+
+CREATE INDEX IF NOT EXISTS ix_outbox_event_archive_sent_at
+    ON login_processing.outbox_event_archive (sent_at);
@@ -0,0 +1,4 @@
+-- Claims go through the partial index ix_outbox_event_new_next_attempt_at (V3) and purges through
+-- ix_outbox_event_sent_sent_at (V5). The full (status, created_at) index is no longer read by either, yet it
+-- holds an entry for every SENT row and is updated by every status change.
+DROP INDEX IF EXISTS login_processing.ix_outbox_event_status_created_at;
@@ -0,0 +1,5 @@
+-- Purge path of OutboxJanitor with the WAL relay (app.outbox.relay.mode=wal), where rows are never marked SENT
+-- and are removed by created_at instead. BRIN: outbox rows are appended in created_at order, so a few pages of
+-- block ranges cover the table and inserts barely pay for it, in either relay mode.
+CREATE INDEX IF NOT EXISTS ix_outbox_event_created_at_brin
+    ON login_processing.outbox_event USING brin (created_at);
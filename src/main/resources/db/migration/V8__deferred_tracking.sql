@@ -0,0 +1,18 @@
+-- Deferred re-tracking: with app.customer-tracking.deferred.enabled a result whose tracking call failed transiently
+-- is stored as PENDING, without an outbox row, and PendingTrackingRetrier re-attempts it later. tracking_attempts
+-- counts the consumer's call plus each re-attempt; next_tracking_at is when a PENDING row is due again (null otherwise).
+ALTER TABLE login_processing.login_tracking_result
+    DROP CONSTRAINT chk_login_tracking_result_request_result;
+ALTER TABLE login_processing.login_tracking_result
+    ADD CONSTRAINT chk_login_tracking_result_request_result
+    CHECK (request_result IN ('SUCCESSFUL', 'UNSUCCESSFUL', 'PENDING'));
+
+ALTER TABLE login_processing.login_tracking_result
+    ADD COLUMN IF NOT EXISTS tracking_attempts INT NOT NULL DEFAULT 1;
+ALTER TABLE login_processing.login_tracking_result
+    ADD COLUMN IF NOT EXISTS next_tracking_at TIMESTAMPTZ NULL;
+
+-- Claim path of the retrier: only PENDING rows, ordered by when they become due. Stays empty while the mode is off.
+CREATE INDEX IF NOT EXISTS ix_login_tracking_result_pending_next_tracking_at
+    ON login_processing.login_tracking_result (next_tracking_at)
+    WHERE request_result = 'PENDING';
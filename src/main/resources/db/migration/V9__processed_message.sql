@@ -0,0 +1,43 @@
+-- Global messageId dedup key. Since V4 the unique key of the partitioned login_tracking_result is
+-- (message_id, event_timestamp), so a redelivery with a different timestamp would no longer conflict, and a lookup by
+-- message_id alone probes every partition. processed_message is small, unpartitioned and keyed by message_id alone:
+-- the result writers insert into it in the same statement as the result row and only write the result (and its
+-- outbox row) when they won that insert. It points at the result row by its full primary key, so reading the
+-- result back is pruned to one partition.
+CREATE TABLE IF NOT EXISTS login_processing.processed_message (
+    message_id        UUID PRIMARY KEY,
+    result_id         UUID NOT NULL,
+    event_timestamp   TIMESTAMPTZ NOT NULL,
+    created_at        TIMESTAMPTZ NOT NULL DEFAULT now()
+    );
+
+-- Retention path of LoginTrackingResultPartitionMaintainer: keys of expired results, oldest first.
+CREATE INDEX IF NOT EXISTS ix_processed_message_event_timestamp
+    ON login_processing.processed_message (event_timestamp);
+
+INSERT INTO login_processing.processed_message (message_id, result_id, event_timestamp, created_at)
+SELECT DISTINCT ON (message_id) message_id, id, event_timestamp, created_at
+FROM login_processing.login_tracking_result
+ORDER BY message_id, created_at, id
+ON CONFLICT (message_id) DO NOTHING;
+
+-- Deleting a result row releases its key. Dropped or detached partitions fire no triggers; the maintainer deletes
+-- their keys itself.
+CREATE OR REPLACE FUNCTION login_processing.release_processed_message()
+    RETURNS trigger
+    LANGUAGE plpgsql
+AS $$
+BEGIN
+    DELETE FROM login_processing.processed_message
+    WHERE message_id = OLD.message_id
+      AND result_id = OLD.id;
+    RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS trg_login_tracking_result_release_message ON login_processing.login_tracking_result;
+
+CREATE TRIGGER trg_login_tracking_result_release_message
+    AFTER DELETE ON login_processing.login_tracking_result
+    FOR EACH ROW
+    EXECUTE FUNCTION login_processing.release_processed_message();
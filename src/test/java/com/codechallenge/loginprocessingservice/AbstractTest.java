@@ -38,7 +38,9 @@ public abstract class AbstractTest {
             new PostgreSQLContainer<>(DockerImageName.parse("postgres:16-alpine"))
                     .withDatabaseName("login_processing_db")
                     .withUsername("login_processing_user")
-                    .withPassword("login_processing_password");
+                    .withPassword("login_processing_password")
+                    // logical decoding for OutboxWalRelayIT
+                    .withCommand("postgres", "-c", "fsync=off", "-c", "wal_level=logical");
 
     @BeforeAll
     static void containersAreUp() {
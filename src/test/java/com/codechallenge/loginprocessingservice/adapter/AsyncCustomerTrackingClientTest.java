@@ -0,0 +1,164 @@
+package com.codechallenge.loginprocessingservice.adapter;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import com.github.tomakehurst.wiremock.client.BasicCredentials;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.http.Fault;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.wiremock.integrations.testcontainers.WireMockContainer;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.codechallenge.loginprocessingservice.config.RestClientConfig;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+class AsyncCustomerTrackingClientTest {
+    private static final String TRACK_LOGIN_PATH = "/v1/api/trackLoging/";
+
+    private static final WireMockContainer wireMock =
+            new WireMockContainer("wiremock/wiremock:3.6.0");
+
+    private AsyncCustomerTrackingClient client;
+    private SimpleMeterRegistry meterRegistry;
+
+    private final String username = "tracking_user";
+    private final String password = "tracking_password";
+
+    @BeforeAll
+    static void startWiremock() {
+        wireMock.start();
+    }
+
+    @AfterAll
+    static void stopWiremock() {
+        wireMock.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+
+        RestClientConfig cfg = new RestClientConfig();
+        meterRegistry = new SimpleMeterRegistry();
+
+        client = new AsyncCustomerTrackingClient(
+                cfg.customerTrackingHttpClient("HTTP_2", 3000,
+                        cfg.customerTrackingHttpExecutor(2, meterRegistry), meterRegistry),
+                wireMock.getBaseUrl(),
+                username,
+                password,
+                1000
+        );
+
+        WireMock.configureFor(wireMock.getHost(), wireMock.getPort());
+        reset();
+    }
+
+    @Test
+    void notifyLoginAsync_whenRequestSucceeds_shouldCompleteWithTrueAndSendBasicAuth() throws Exception {
+        UUID customerId = UUID.randomUUID();
+
+        stubFor(
+                get(urlEqualTo(TRACK_LOGIN_PATH + customerId))
+                        .willReturn(aResponse().withStatus(204))
+        );
+
+        boolean ok = client.notifyLoginAsync(customerId).get(5, TimeUnit.SECONDS);
+
+        assertTrue(ok);
+
+        verify(
+                1,
+                getRequestedFor(urlEqualTo(TRACK_LOGIN_PATH + customerId))
+                        .withBasicAuth(new BasicCredentials(username, password))
+        );
+    }
+
+    @Test
+    void notifyLoginAsync_whenServerError_shouldFailWithHttpServerErrorException() {
+        UUID customerId = UUID.randomUUID();
+
+        stubFor(
+                get(urlEqualTo(TRACK_LOGIN_PATH + customerId))
+                        .willReturn(aResponse().withStatus(503))
+        );
+
+        Throwable cause = failureOf(client.notifyLoginAsync(customerId));
+
+        HttpServerErrorException ex = assertInstanceOf(HttpServerErrorException.class, cause);
+        assertEquals(503, ex.getStatusCode().value());
+    }
+
+    @Test
+    void notifyLoginAsync_whenClientError_shouldFailWithHttpClientErrorException() {
+        UUID customerId = UUID.randomUUID();
+
+        stubFor(
+                get(urlEqualTo(TRACK_LOGIN_PATH + customerId))
+                        .willReturn(aResponse().withStatus(401))
+        );
+
+        Throwable cause = failureOf(client.notifyLoginAsync(customerId));
+
+        HttpClientErrorException ex = assertInstanceOf(HttpClientErrorException.class, cause);
+        assertEquals(401, ex.getStatusCode().value());
+    }
+
+    @Test
+    void notifyLoginAsync_whenConnectionDropped_shouldFailWithResourceAccessException() {
+        UUID customerId = UUID.randomUUID();
+
+        stubFor(
+                get(urlEqualTo(TRACK_LOGIN_PATH + customerId))
+                        .willReturn(aResponse().withFault(Fault.CONNECTION_RESET_BY_PEER))
+        );
+
+        Throwable cause = failureOf(client.notifyLoginAsync(customerId));
+
+        assertInstanceOf(ResourceAccessException.class, cause);
+    }
+
+    @Test
+    void notifyLoginAsync_whenResponseIsSlowerThanRequestTimeout_shouldFailWithResourceAccessException() {
+        UUID customerId = UUID.randomUUID();
+
+        stubFor(
+                get(urlEqualTo(TRACK_LOGIN_PATH + customerId))
+                        .willReturn(aResponse().withStatus(204).withFixedDelay(3000))
+        );
+
+        Throwable cause = failureOf(client.notifyLoginAsync(customerId));
+
+        assertInstanceOf(ResourceAccessException.class, cause);
+        assertEquals(1, meterRegistry.get("customer.tracking.http.requests").tag("outcome", "IO_ERROR").timer().count());
+    }
+
+    @Test
+    void notifyLoginAsync_shouldRecordExchangeWithNegotiatedVersion() throws Exception {
+        UUID customerId = UUID.randomUUID();
+
+        stubFor(
+                get(urlEqualTo(TRACK_LOGIN_PATH + customerId))
+                        .willReturn(aResponse().withStatus(204))
+        );
+
+        assertTrue(client.notifyLoginAsync(customerId).get(5, TimeUnit.SECONDS));
+
+        Timer timer = meterRegistry.get("customer.tracking.http.requests").tag("outcome", "SUCCESS").timer();
+        assertEquals(1, timer.count());
+        assertTrue(Set.of("HTTP_1_1", "HTTP_2").contains(timer.getId().getTag("version")));
+    }
+
+    private static Throwable failureOf(CompletableFuture<Boolean> future) {
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        return ex.getCause();
+    }
+}
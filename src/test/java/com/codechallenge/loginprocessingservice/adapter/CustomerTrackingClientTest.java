@@ -10,6 +10,7 @@ import org.wiremock.integrations.testcontainers.WireMockContainer;
 import static org.junit.jupiter.api.Assertions.*;
 
 import com.codechallenge.loginprocessingservice.config.RestClientConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.*;
 import org.springframework.web.client.RestClient;
 
@@ -40,11 +41,15 @@ class CustomerTrackingClientTest {
     void setUp() {
 
         RestClientConfig cfg = new RestClientConfig();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
 
         RestClient restClient = cfg.customerTrackingRestClient(
+                cfg.customerTrackingHttpClient("HTTP_2", 3000,
+                        cfg.customerTrackingHttpExecutor(2, meterRegistry), meterRegistry),
                 wireMock.getBaseUrl(),
                 username,
-                password
+                password,
+                5000
         );
 
         client = new CustomerTrackingClient(restClient);
@@ -0,0 +1,151 @@
+package com.codechallenge.loginprocessingservice.adapter;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509ExtendedTrustManager;
+import java.net.Socket;
+import java.net.http.HttpClient;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Requests per connection of the customer-tracking transport, per HTTP version, against an in-process WireMock
+ * over TLS (HTTP/2 negotiated by ALPN). Connections are counted by {@link MeteredSslContext}, exchanges by
+ * {@link MeteredHttpClient}. Not part of the regular build; run with
+ * {@code mvn test -Dtest=CustomerTrackingHttpBenchmarkTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CustomerTrackingHttpBenchmarkTest {
+
+    private static final int REQUESTS = 20_000;
+    private static final int IN_FLIGHT = 64;
+    private static final int STUB_DELAY_MS = 5;
+
+    private static final WireMockServer wireMock = new WireMockServer(wireMockConfig()
+            .httpDisabled(true)
+            .dynamicHttpsPort()
+            .containerThreads(4 * IN_FLIGHT)
+            .disableRequestJournal());
+
+    @BeforeAll
+    static void startWiremock() {
+        wireMock.start();
+        wireMock.stubFor(get(urlPathMatching("/v1/api/trackLoging/.*"))
+                .willReturn(aResponse().withStatus(204).withFixedDelay(STUB_DELAY_MS)));
+    }
+
+    @AfterAll
+    static void stopWiremock() {
+        wireMock.stop();
+    }
+
+    @ParameterizedTest
+    @EnumSource(HttpClient.Version.class)
+    void notifyLoginAsync_requestsPerConnection(HttpClient.Version version) throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        HttpClient httpClient = new MeteredHttpClient(HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(Duration.ofSeconds(10))
+                .sslContext(new MeteredSslContext(trustAll(), meterRegistry))
+                .executor(executor)
+                .build(), meterRegistry);
+        AsyncCustomerTrackingClient client = new AsyncCustomerTrackingClient(
+                httpClient, wireMock.baseUrl(), "tracking_user", "tracking_password", 5000);
+
+        try (httpClient) {
+            // until the first HTTP/2 connection is up, every concurrent request opens its own
+            client.notifyLoginAsync(UUID.randomUUID()).join();
+            run(client);
+            double connectionsBefore = connections(meterRegistry);
+            long started = System.nanoTime();
+            run(client);
+            double seconds = (System.nanoTime() - started) / 1e9;
+
+            double exchanges = meterRegistry.get("customer.tracking.http.requests")
+                    .tag("version", version.name()).tag("outcome", "SUCCESS").timer().count();
+            double connections = connections(meterRegistry);
+            System.out.printf("[BENCHMARK] version=%s requests/s=%.0f connections=%.0f (%.0f in measured round)"
+                            + " requests/connection=%.0f%n",
+                    version, REQUESTS / seconds, connections, connections - connectionsBefore, exchanges / connections);
+
+            assertEquals(2.0 * REQUESTS + 1, exchanges, "every exchange ran over " + version);
+            if (version == HttpClient.Version.HTTP_2) {
+                assertTrue(connections < IN_FLIGHT, "HTTP/2 multiplexes the requests over few connections");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static double connections(SimpleMeterRegistry meterRegistry) {
+        return meterRegistry.get("customer.tracking.http.connections").counter().count();
+    }
+
+    private static void run(AsyncCustomerTrackingClient client) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(IN_FLIGHT);
+        CompletableFuture<?>[] calls = new CompletableFuture<?>[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            inFlight.acquire();
+            calls[i] = client.notifyLoginAsync(UUID.randomUUID()).whenComplete((ok, error) -> inFlight.release());
+        }
+        CompletableFuture.allOf(calls).join();
+    }
+
+    /**
+     * WireMock serves a self-signed certificate; trusts it without checking the host name.
+     */
+    private static SSLContext trustAll() throws Exception {
+        X509ExtendedTrustManager trustAll = new X509ExtendedTrustManager() {
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain, String authType, Socket socket) {
+            }
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain, String authType, Socket socket) {
+            }
+
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain, String authType, SSLEngine engine) {
+            }
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain, String authType, SSLEngine engine) {
+            }
+
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain, String authType) {
+            }
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain, String authType) {
+            }
+
+            @Override
+            public X509Certificate[] getAcceptedIssuers() {
+                return new X509Certificate[0];
+            }
+        };
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(null, new TrustManager[]{trustAll}, null);
+        return sslContext;
+    }
+}
@@ -0,0 +1,27 @@
+package com.codechallenge.loginprocessingservice.adapter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MeteredSslContextTest {
+
+    @Test
+    void createSSLEngine_shouldCountEveryEngine_andDelegate() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SSLContext delegate = SSLContext.getDefault();
+        SSLContext sslContext = new MeteredSslContext(delegate, meterRegistry);
+
+        SSLEngine engine = sslContext.createSSLEngine("customer-tracking", 443);
+        sslContext.createSSLEngine();
+
+        assertEquals(2.0, meterRegistry.get("customer.tracking.http.connections").counter().count());
+        assertEquals("customer-tracking", engine.getPeerHost());
+        assertEquals(443, engine.getPeerPort());
+        assertEquals(delegate.getProtocol(), sslContext.getProtocol());
+    }
+}
@@ -0,0 +1,130 @@
+package com.codechallenge.loginprocessingservice.it;
+
+import com.codechallenge.loginprocessingservice.AbstractTest;
+import com.codechallenge.loginprocessingservice.config.KafkaTestProducerConfig;
+import com.codechallenge.loginprocessingservice.dto.CustomerLoginEvent;
+import com.codechallenge.loginprocessingservice.model.PublicationStatus;
+import com.codechallenge.loginprocessingservice.model.RequestResult;
+import com.codechallenge.loginprocessingservice.repository.LoginTrackingResultRepository;
+import com.codechallenge.loginprocessingservice.repository.OutboxRepository;
+import com.codechallenge.loginprocessingservice.service.LoginProcessingServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+@Import(KafkaTestProducerConfig.class)
+@TestPropertySource(properties = {
+        "app.kafka.listener.mode=batch"
+})
+public class LoginProcessingBatchFlowIT extends AbstractTest {
+
+    @Autowired
+    private KafkaTemplate<String, CustomerLoginEvent> customerLoginKafkaTemplate;
+
+    @Autowired
+    private LoginTrackingResultRepository resultRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private LoginProcessingServiceImpl processingService;
+
+    @BeforeEach
+    void setUp() {
+        configureFor(wireMockContainer.getHost(), wireMockContainer.getFirstMappedPort());
+        outboxRepository.deleteAll();
+        resultRepository.deleteAll();
+    }
+
+    @Test
+    void shouldProcessBurstOfEvents_andWriteOneResultAndOneOutboxRowPerMessage() {
+        UUID customerId = UUID.randomUUID();
+        stubFor(get(urlEqualTo("/v1/api/trackLoging/" + customerId)).willReturn(aResponse().withStatus(204)));
+
+        List<UUID> messageIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            UUID messageId = UUID.randomUUID();
+            messageIds.add(messageId);
+            CustomerLoginEvent in = new CustomerLoginEvent(
+                    customerId, "Samira", "web", Instant.now(), messageId, "10.0.0.1"
+            );
+            customerLoginKafkaTemplate.send("customer-login", customerId.toString(), in);
+            if (i % 5 == 0) {
+                customerLoginKafkaTemplate.send("customer-login", customerId.toString(), in);
+            }
+        }
+
+        await().atMost(15, SECONDS).untilAsserted(() -> {
+            var results = resultRepository.findAll();
+            assertEquals(messageIds.size(), results.size());
+            assertTrue(results.stream().allMatch(r -> r.getRequestResult() == RequestResult.SUCCESSFUL));
+
+            var outboxRows = outboxRepository.findAll();
+            assertEquals(messageIds.size(), outboxRows.size());
+            assertTrue(outboxRows.stream().allMatch(o -> o.getStatus() == PublicationStatus.NEW));
+        });
+
+        verify(messageIds.size(), getRequestedFor(urlEqualTo("/v1/api/trackLoging/" + customerId)));
+    }
+
+    @Test
+    void shouldSkipOnlyThePoisonRecord_whenBatchWriteFails() {
+        UUID customerId = UUID.randomUUID();
+        stubFor(get(urlEqualTo("/v1/api/trackLoging/" + customerId)).willReturn(aResponse().withStatus(204)));
+
+        UUID before = UUID.randomUUID();
+        UUID poison = UUID.randomUUID();
+        UUID after = UUID.randomUUID();
+        customerLoginKafkaTemplate.send("customer-login", customerId.toString(),
+                new CustomerLoginEvent(customerId, "Samira", "web", Instant.now(), before, "10.0.0.1"));
+        // username longer than the column: the set-based write of any poll holding it fails
+        customerLoginKafkaTemplate.send("customer-login", customerId.toString(),
+                new CustomerLoginEvent(customerId, "S".repeat(200), "web", Instant.now(), poison, "10.0.0.1"));
+        customerLoginKafkaTemplate.send("customer-login", customerId.toString(),
+                new CustomerLoginEvent(customerId, "Samira", "web", Instant.now(), after, "10.0.0.1"));
+
+        await().atMost(30, SECONDS).untilAsserted(() -> {
+            assertTrue(resultRepository.findByMessageId(before).isPresent());
+            assertTrue(resultRepository.findByMessageId(after).isPresent());
+        });
+        assertTrue(resultRepository.findByMessageId(poison).isEmpty());
+        assertEquals(2L, outboxRepository.count());
+    }
+
+    @Test
+    void processBatch_shouldBeIdempotent_whenSameBatchIsProcessedTwice() {
+        UUID customerId = UUID.randomUUID();
+        stubFor(get(urlEqualTo("/v1/api/trackLoging/" + customerId)).willReturn(aResponse().withStatus(400)));
+
+        List<CustomerLoginEvent> batch = List.of(
+                new CustomerLoginEvent(customerId, "Samira", "web", Instant.now(), UUID.randomUUID(), "10.0.0.1"),
+                new CustomerLoginEvent(customerId, "Samira", "ios", Instant.now(), UUID.randomUUID(), "10.0.0.2")
+        );
+
+        var first = processingService.processBatch(batch);
+        var second = processingService.processBatch(batch);
+
+        assertEquals(2, first.size());
+        assertTrue(second.isEmpty());
+        assertTrue(first.stream().allMatch(e -> e.requestResult() == RequestResult.UNSUCCESSFUL));
+
+        assertEquals(2L, resultRepository.count());
+        assertEquals(2L, outboxRepository.count());
+
+        verify(2, getRequestedFor(urlEqualTo("/v1/api/trackLoging/" + customerId)));
+    }
+}
@@ -0,0 +1,89 @@
+package com.codechallenge.loginprocessingservice.it;
+
+import com.codechallenge.loginprocessingservice.AbstractTest;
+import com.codechallenge.loginprocessingservice.dto.CustomerLoginEvent;
+import com.codechallenge.loginprocessingservice.model.RequestResult;
+import com.codechallenge.loginprocessingservice.repository.LoginTrackingResultRepository;
+import com.codechallenge.loginprocessingservice.repository.OutboxRepository;
+import com.codechallenge.loginprocessingservice.service.LoginProcessingServiceImpl;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestPropertySource(properties = {
+        "app.customer-tracking.circuit-breaker.enabled=true",
+        "resilience4j.circuitbreaker.instances.customerTracking.wait-duration-in-open-state=1s"
+})
+public class LoginProcessingCircuitBreakerFlowIT extends AbstractTest {
+
+    @Autowired
+    private LoginTrackingResultRepository resultRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private LoginProcessingServiceImpl processingService;
+
+    @Autowired
+    @Qualifier("customerTrackingCircuitBreaker")
+    private CircuitBreaker circuitBreaker;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        configureFor(wireMockContainer.getHost(), wireMockContainer.getFirstMappedPort());
+        reset();
+        outboxRepository.deleteAll();
+        resultRepository.deleteAll();
+    }
+
+    @Test
+    void processBatch_whenTrackingIsDown_shouldOpenCircuit_failFast_andCloseAfterProbes() {
+        stubFor(get(urlPathMatching("/v1/api/trackLoging/.*")).willReturn(aResponse().withStatus(503)));
+
+        var out = processingService.processBatch(events(10));
+
+        assertTrue(out.stream().allMatch(e -> e.requestResult() == RequestResult.UNSUCCESSFUL));
+        assertEquals(10L, resultRepository.count(), "every event is still recorded");
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        // 10 failed attempts open the breaker; without it 10 events would make 40 requests
+        verify(10, getRequestedFor(urlPathMatching("/v1/api/trackLoging/.*")));
+
+        stubFor(get(urlPathMatching("/v1/api/trackLoging/.*")).willReturn(aResponse().withStatus(204)));
+        await().atMost(10, SECONDS).until(() -> circuitBreaker.getState() == CircuitBreaker.State.HALF_OPEN);
+
+        var recovered = processingService.processBatch(events(5));
+
+        assertTrue(recovered.stream().allMatch(e -> e.requestResult() == RequestResult.SUCCESSFUL));
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        for (String[] transition : new String[][]{{"CLOSED", "OPEN"}, {"OPEN", "HALF_OPEN"}, {"HALF_OPEN", "CLOSED"}}) {
+            assertEquals(1.0, meterRegistry.get("customer.tracking.circuit-breaker.transitions")
+                    .tag("from", transition[0]).tag("to", transition[1]).counter().count());
+        }
+    }
+
+    private static List<CustomerLoginEvent> events(int count) {
+        List<CustomerLoginEvent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(new CustomerLoginEvent(UUID.randomUUID(), "Samira", "web", Instant.now(), UUID.randomUUID(), "10.0.0.1"));
+        }
+        return events;
+    }
+}
@@ -0,0 +1,96 @@
+package com.codechallenge.loginprocessingservice.it;
+
+import com.codechallenge.loginprocessingservice.AbstractTest;
+import com.codechallenge.loginprocessingservice.dto.CustomerLoginEvent;
+import com.codechallenge.loginprocessingservice.model.RequestResult;
+import com.codechallenge.loginprocessingservice.repository.LoginTrackingResultRepository;
+import com.codechallenge.loginprocessingservice.repository.OutboxRepository;
+import com.codechallenge.loginprocessingservice.service.LoginProcessingServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestPropertySource(properties = {
+        "app.customer-tracking.client-mode=async",
+        "app.customer-tracking.coalescing.enabled=true"
+})
+public class LoginProcessingCoalescingFlowIT extends AbstractTest {
+
+    @Autowired
+    private LoginTrackingResultRepository resultRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private LoginProcessingServiceImpl processingService;
+
+    @BeforeEach
+    void setUp() {
+        configureFor(wireMockContainer.getHost(), wireMockContainer.getFirstMappedPort());
+        outboxRepository.deleteAll();
+        resultRepository.deleteAll();
+    }
+
+    @Test
+    void processBatch_shouldSendOneRequestPerCustomer_andStoreResultPerMessage() {
+        UUID customerId = UUID.randomUUID();
+        UUID otherCustomerId = UUID.randomUUID();
+        for (UUID id : List.of(customerId, otherCustomerId)) {
+            stubFor(get(urlEqualTo("/v1/api/trackLoging/" + id))
+                    .willReturn(aResponse().withStatus(204).withFixedDelay(500)));
+        }
+
+        List<CustomerLoginEvent> batch = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            batch.add(event(customerId));
+        }
+        batch.add(event(otherCustomerId));
+
+        var out = processingService.processBatch(batch);
+
+        assertEquals(6, out.size());
+        assertTrue(out.stream().allMatch(e -> e.requestResult() == RequestResult.SUCCESSFUL));
+        for (CustomerLoginEvent event : batch) {
+            assertEquals(RequestResult.SUCCESSFUL,
+                    resultRepository.findByMessageId(event.messageId()).orElseThrow().getRequestResult());
+        }
+        assertEquals(6L, outboxRepository.count());
+
+        verify(1, getRequestedFor(urlEqualTo("/v1/api/trackLoging/" + customerId)));
+        verify(1, getRequestedFor(urlEqualTo("/v1/api/trackLoging/" + otherCustomerId)));
+    }
+
+    @Test
+    void processBatch_whenSharedRequestFails_shouldRetryTogether_andNotReuseTheFailure() {
+        UUID customerId = UUID.randomUUID();
+        stubFor(get(urlEqualTo("/v1/api/trackLoging/" + customerId))
+                .inScenario("coalesced-retry")
+                .whenScenarioStateIs(STARTED)
+                .willSetStateTo("second")
+                .willReturn(aResponse().withStatus(500).withFixedDelay(300)));
+        stubFor(get(urlEqualTo("/v1/api/trackLoging/" + customerId))
+                .inScenario("coalesced-retry")
+                .whenScenarioStateIs("second")
+                .willReturn(aResponse().withStatus(204).withFixedDelay(300)));
+
+        var out = processingService.processBatch(List.of(event(customerId), event(customerId), event(customerId)));
+
+        assertTrue(out.stream().allMatch(e -> e.requestResult() == RequestResult.SUCCESSFUL));
+        verify(2, getRequestedFor(urlEqualTo("/v1/api/trackLoging/" + customerId)));
+    }
+
+    private static CustomerLoginEvent event(UUID customerId) {
+        return new CustomerLoginEvent(customerId, "Samira", "web", Instant.now(), UUID.randomUUID(), "10.0.0.1");
+    }
+}
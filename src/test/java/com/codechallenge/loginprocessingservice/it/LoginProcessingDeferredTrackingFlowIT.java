@@ -0,0 +1,149 @@
+package com.codechallenge.loginprocessingservice.it;
+
+import com.codechallenge.loginprocessingservice.AbstractTest;
+import com.codechallenge.loginprocessingservice.dto.CustomerLoginEvent;
+import com.codechallenge.loginprocessingservice.model.LoginTrackingResultEntity;
+import com.codechallenge.loginprocessingservice.model.OutboxEntity;
+import com.codechallenge.loginprocessingservice.model.RequestResult;
+import com.codechallenge.loginprocessingservice.repository.LoginTrackingResultRepository;
+import com.codechallenge.loginprocessingservice.repository.OutboxRepository;
+import com.codechallenge.loginprocessingservice.service.LoginProcessingServiceImpl;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestPropertySource(properties = {
+        "app.customer-tracking.deferred.enabled=true",
+        "app.customer-tracking.deferred.poll-ms=100",
+        "app.customer-tracking.deferred.max-attempts=10",
+        "app.customer-tracking.deferred.retry-backoff-ms=100",
+        "app.customer-tracking.deferred.max-retry-backoff-ms=200"
+})
+public class LoginProcessingDeferredTrackingFlowIT extends AbstractTest {
+
+    @Autowired
+    private LoginTrackingResultRepository resultRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private LoginProcessingServiceImpl processingService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("customerTrackingCircuitBreaker")
+    private CircuitBreaker circuitBreaker;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        configureFor(wireMockContainer.getHost(), wireMockContainer.getFirstMappedPort());
+        reset();
+        outboxRepository.deleteAll();
+        resultRepository.deleteAll();
+    }
+
+    @Test
+    void processBatch_whenTrackingFails_shouldStorePending_andPublishOnceReTrackingSucceeds() {
+        stubFor(get(urlPathMatching("/v1/api/trackLoging/.*")).willReturn(aResponse().withStatus(503)));
+
+        var out = processingService.processBatch(events(3));
+
+        assertTrue(out.stream().allMatch(e -> e.requestResult() == RequestResult.PENDING));
+        // one attempt per event on the consumer thread instead of four
+        verify(moreThanOrExactly(3), getRequestedFor(urlPathMatching("/v1/api/trackLoging/.*")));
+
+        stubFor(get(urlPathMatching("/v1/api/trackLoging/.*")).willReturn(aResponse().withStatus(204)));
+
+        await().atMost(15, SECONDS).untilAsserted(() -> {
+            assertTrue(resultRepository.findAll().stream()
+                    .allMatch(row -> row.getRequestResult() == RequestResult.SUCCESSFUL));
+            assertEquals(3L, outboxRepository.count());
+        });
+        for (OutboxEntity outbox : outboxRepository.findAll()) {
+            assertTrue(new String(outbox.getPayload(), StandardCharsets.UTF_8).contains("\"SUCCESSFUL\""));
+        }
+        assertTrue(meterRegistry.get("customer.tracking.deferred.attempts").tag("result", "successful")
+                .counter().count() >= 3);
+    }
+
+    @Test
+    void process_whenTrackingStaysDown_shouldGiveUpAfterMaxAttempts_andPublishUnsuccessful() {
+        stubFor(get(urlPathMatching("/v1/api/trackLoging/.*")).willReturn(aResponse().withStatus(503)));
+        CustomerLoginEvent event = events(1).get(0);
+
+        assertEquals(RequestResult.PENDING, processingService.process(event).requestResult());
+
+        await().atMost(15, SECONDS).untilAsserted(() -> {
+            LoginTrackingResultEntity row = resultRepository.findByMessageId(event.messageId()).orElseThrow();
+            assertEquals(RequestResult.UNSUCCESSFUL, row.getRequestResult());
+            assertEquals(1L, outboxRepository.count());
+        });
+        verify(10, getRequestedFor(urlPathEqualTo("/v1/api/trackLoging/" + event.customerId())));
+        assertTrue(meterRegistry.get("customer.tracking.deferred.exhausted").counter().count() >= 1);
+
+        // a redelivery finds the final result
+        assertEquals(RequestResult.UNSUCCESSFUL, processingService.process(event).requestResult());
+    }
+
+    @Test
+    void retry_whenCircuitIsOpen_shouldRescheduleWithoutCountingAttempts() {
+        stubFor(get(urlPathMatching("/v1/api/trackLoging/.*")).willReturn(aResponse().withStatus(204)));
+        CustomerLoginEvent event = events(1).get(0);
+        double refused = meterRegistry.get("customer.tracking.deferred.refused").counter().count();
+
+        circuitBreaker.transitionToForcedOpenState();
+        try {
+            assertEquals(RequestResult.PENDING, processingService.process(event).requestResult());
+
+            // more refusals than max-attempts, yet the row is still waiting for its first real re-attempt
+            await().atMost(15, SECONDS).until(() ->
+                    meterRegistry.get("customer.tracking.deferred.refused").counter().count() >= refused + 12);
+            assertEquals(RequestResult.PENDING,
+                    resultRepository.findByMessageId(event.messageId()).orElseThrow().getRequestResult());
+            assertEquals(1, trackingAttempts(event));
+            verify(0, getRequestedFor(urlPathMatching("/v1/api/trackLoging/.*")));
+        } finally {
+            circuitBreaker.transitionToDisabledState();
+        }
+
+        await().atMost(15, SECONDS).untilAsserted(() -> assertEquals(RequestResult.SUCCESSFUL,
+                resultRepository.findByMessageId(event.messageId()).orElseThrow().getRequestResult()));
+        assertEquals(2, trackingAttempts(event));
+    }
+
+    private int trackingAttempts(CustomerLoginEvent event) {
+        return jdbcTemplate.queryForObject(
+                "select tracking_attempts from login_processing.login_tracking_result where message_id = ?",
+                Integer.class, event.messageId());
+    }
+
+    private static List<CustomerLoginEvent> events(int count) {
+        List<CustomerLoginEvent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(new CustomerLoginEvent(UUID.randomUUID(), "Samira", "web", Instant.now(), UUID.randomUUID(), "10.0.0.1"));
+        }
+        return events;
+    }
+}
@@ -8,6 +8,8 @@ import com.codechallenge.loginprocessingservice.model.RequestResult;
 import com.codechallenge.loginprocessingservice.repository.LoginTrackingResultRepository;
 import com.codechallenge.loginprocessingservice.repository.OutboxRepository;
 import com.codechallenge.loginprocessingservice.service.LoginProcessingServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -39,6 +41,9 @@ public class LoginProcessingFlowIT extends AbstractTest {
     @Autowired
     private LoginProcessingServiceImpl processingService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @BeforeEach
     void setUp() {
         configureFor(wireMockContainer.getHost(), wireMockContainer.getFirstMappedPort());
@@ -314,4 +319,29 @@ public class LoginProcessingFlowIT extends AbstractTest {
 
         verify(3, getRequestedFor(urlEqualTo("/v1/api/trackLoging/" + customerId)));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldNotHoldDatabaseConnection_whileTrackingCallIsInFlight() {
+        UUID customerId = UUID.randomUUID();
+        UUID messageId = UUID.randomUUID();
+
+        stubFor(get(urlEqualTo("/v1/api/trackLoging/" + customerId))
+                .willReturn(aResponse().withStatus(204).withFixedDelay(1500)));
+
+        CustomerLoginEvent in = new CustomerLoginEvent(
+                customerId, "Samira", "web", Instant.now(), messageId, "10.0.0.1"
+        );
+
+        var out = processingService.process(in);
+        assertEquals(RequestResult.SUCCESSFUL, out.requestResult());
+
+        Timer tracking = meterRegistry.find("login.processing.phase").tag("phase", "tracking").timer();
+        assertNotNull(tracking);
+        assertTrue(tracking.max(TimeUnit.MILLISECONDS) >= 1500);
+
+        Timer connectionUsage = meterRegistry.find("hikaricp.connections.usage").timer();
+        assertNotNull(connectionUsage);
+        assertTrue(connectionUsage.max(TimeUnit.MILLISECONDS) < 1500,
+                "a pooled connection must not be held while the tracking call is in flight");
+    }
+}
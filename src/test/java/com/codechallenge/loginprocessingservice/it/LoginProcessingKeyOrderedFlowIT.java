@@ -0,0 +1,92 @@
+package com.codechallenge.loginprocessingservice.it;
+
+import com.codechallenge.loginprocessingservice.AbstractTest;
+import com.codechallenge.loginprocessingservice.config.KafkaTestProducerConfig;
+import com.codechallenge.loginprocessingservice.dto.CustomerLoginEvent;
+import com.codechallenge.loginprocessingservice.model.LoginTrackingResultEntity;
+import com.codechallenge.loginprocessingservice.model.PublicationStatus;
+import com.codechallenge.loginprocessingservice.model.RequestResult;
+import com.codechallenge.loginprocessingservice.repository.LoginTrackingResultRepository;
+import com.codechallenge.loginprocessingservice.repository.OutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+@Import(KafkaTestProducerConfig.class)
+@TestPropertySource(properties = {
+        "app.kafka.listener.mode=key-ordered",
+        "app.kafka.listener.key-ordered.lanes=4"
+})
+public class LoginProcessingKeyOrderedFlowIT extends AbstractTest {
+
+    @Autowired
+    private KafkaTemplate<String, CustomerLoginEvent> customerLoginKafkaTemplate;
+
+    @Autowired
+    private LoginTrackingResultRepository resultRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @BeforeEach
+    void setUp() {
+        configureFor(wireMockContainer.getHost(), wireMockContainer.getFirstMappedPort());
+        outboxRepository.deleteAll();
+        resultRepository.deleteAll();
+    }
+
+    @Test
+    void shouldProcessEventsOfManyCustomers_andKeepPerCustomerOrder() {
+        List<UUID> customerIds = new ArrayList<>();
+        for (int c = 0; c < 8; c++) {
+            UUID customerId = UUID.randomUUID();
+            customerIds.add(customerId);
+            stubFor(get(urlEqualTo("/v1/api/trackLoging/" + customerId))
+                    .willReturn(aResponse().withStatus(204).withFixedDelay(50)));
+        }
+
+        Instant base = Instant.parse("2026-01-20T12:00:00Z");
+        int perCustomer = 5;
+        for (int i = 0; i < perCustomer; i++) {
+            for (UUID customerId : customerIds) {
+                CustomerLoginEvent in = new CustomerLoginEvent(
+                        customerId, "Samira", "web", base.plusSeconds(i), UUID.randomUUID(), "10.0.0.1"
+                );
+                customerLoginKafkaTemplate.send("customer-login", customerId.toString(), in);
+            }
+        }
+
+        int expected = customerIds.size() * perCustomer;
+        await().atMost(20, SECONDS).untilAsserted(() -> {
+            assertEquals(expected, resultRepository.count());
+            assertEquals(expected, outboxRepository.count());
+        });
+
+        assertTrue(resultRepository.findAll().stream().allMatch(r -> r.getRequestResult() == RequestResult.SUCCESSFUL));
+        assertTrue(outboxRepository.findAll().stream().allMatch(o -> o.getStatus() == PublicationStatus.NEW));
+
+        // per customer, results are written in the order the events were produced
+        for (UUID customerId : customerIds) {
+            List<Instant> eventTimestamps = resultRepository.findAll().stream()
+                    .filter(r -> r.getCustomerId().equals(customerId))
+                    .sorted(Comparator.comparing(LoginTrackingResultEntity::getCreatedAt))
+                    .map(LoginTrackingResultEntity::getEventTimestamp)
+                    .toList();
+            assertEquals(eventTimestamps.stream().sorted().toList(), eventTimestamps);
+        }
+    }
+}
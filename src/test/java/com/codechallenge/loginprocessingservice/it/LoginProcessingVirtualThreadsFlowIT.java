@@ -0,0 +1,95 @@
+package com.codechallenge.loginprocessingservice.it;
+
+import com.codechallenge.loginprocessingservice.AbstractTest;
+import com.codechallenge.loginprocessingservice.config.KafkaTestProducerConfig;
+import com.codechallenge.loginprocessingservice.dto.CustomerLoginEvent;
+import com.codechallenge.loginprocessingservice.model.RequestResult;
+import com.codechallenge.loginprocessingservice.repository.LoginTrackingResultRepository;
+import com.codechallenge.loginprocessingservice.repository.OutboxRepository;
+import com.codechallenge.loginprocessingservice.service.LoginProcessingServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+@Import(KafkaTestProducerConfig.class)
+@TestPropertySource(properties = {
+        "app.kafka.listener.mode=batch",
+        "app.processing.virtual-threads.enabled=true",
+        "app.processing.virtual-threads.max-concurrency=64"
+})
+public class LoginProcessingVirtualThreadsFlowIT extends AbstractTest {
+
+    @Autowired
+    private KafkaTemplate<String, CustomerLoginEvent> customerLoginKafkaTemplate;
+
+    @Autowired
+    private LoginTrackingResultRepository resultRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private LoginProcessingServiceImpl processingService;
+
+    @BeforeEach
+    void setUp() {
+        configureFor(wireMockContainer.getHost(), wireMockContainer.getFirstMappedPort());
+        outboxRepository.deleteAll();
+        resultRepository.deleteAll();
+    }
+
+    @Test
+    void processBatch_shouldOverlapSlowTrackingCalls() {
+        List<CustomerLoginEvent> batch = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            UUID customerId = UUID.randomUUID();
+            stubFor(get(urlEqualTo("/v1/api/trackLoging/" + customerId))
+                    .willReturn(aResponse().withStatus(204).withFixedDelay(1000)));
+            batch.add(new CustomerLoginEvent(customerId, "Samira", "web", Instant.now(), UUID.randomUUID(), "10.0.0.1"));
+        }
+
+        long started = System.nanoTime();
+        var out = processingService.processBatch(batch);
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+        assertEquals(20, out.size());
+        assertTrue(out.stream().allMatch(e -> e.requestResult() == RequestResult.SUCCESSFUL));
+        // 20 sequential calls would take at least 20s
+        assertTrue(elapsedMs < 10_000, "batch took " + elapsedMs + " ms");
+
+        assertEquals(20L, resultRepository.count());
+        assertEquals(20L, outboxRepository.count());
+    }
+
+    @Test
+    void shouldConsumeAndProcessEvents_onVirtualThreadListener() {
+        List<UUID> messageIds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            UUID customerId = UUID.randomUUID();
+            stubFor(get(urlEqualTo("/v1/api/trackLoging/" + customerId))
+                    .willReturn(aResponse().withStatus(204).withFixedDelay(500)));
+            UUID messageId = UUID.randomUUID();
+            messageIds.add(messageId);
+            customerLoginKafkaTemplate.send("customer-login", customerId.toString(),
+                    new CustomerLoginEvent(customerId, "Samira", "web", Instant.now(), messageId, "10.0.0.1"));
+        }
+
+        await().atMost(15, SECONDS).untilAsserted(() -> {
+            assertEquals(messageIds.size(), resultRepository.count());
+            assertEquals(messageIds.size(), outboxRepository.count());
+        });
+    }
+}
@@ -0,0 +1,165 @@
+package com.codechallenge.loginprocessingservice.it;
+
+import com.codechallenge.loginprocessingservice.AbstractTest;
+import com.codechallenge.loginprocessingservice.dto.CustomerLoginEvent;
+import com.codechallenge.loginprocessingservice.model.RequestResult;
+import com.codechallenge.loginprocessingservice.repository.LoginTrackingResultRepository;
+import com.codechallenge.loginprocessingservice.repository.OutboxRepository;
+import com.codechallenge.loginprocessingservice.service.LoginTrackingResultPartitionMaintainer;
+import com.codechallenge.loginprocessingservice.service.LoginTrackingResultWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestPropertySource(properties = {
+        "app.partitioning.enabled=true",
+        "app.partitioning.premake-months=5",
+        "app.partitioning.retention-months=3",
+        "app.partitioning.expire=drop",
+        "app.partitioning.check-ms=999999",
+        "app.partitioning.delete-batch-size=2"
+})
+public class LoginTrackingResultPartitionIT extends AbstractTest {
+
+    @Autowired
+    private LoginTrackingResultPartitionMaintainer maintainer;
+
+    @Autowired
+    private LoginTrackingResultWriter resultWriter;
+
+    @Autowired
+    private LoginTrackingResultRepository resultRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository.deleteAll();
+        resultRepository.deleteAll();
+    }
+
+    @Test
+    void maintain_shouldPremakeFuturePartitions_andMoveRowsOutOfDefaultPartition() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        for (int i = 0; i <= 5; i++) {
+            assertTrue(exists(partition(current.plusMonths(i))), "missing " + partition(current.plusMonths(i)));
+        }
+
+        YearMonth last = current.plusMonths(5);
+        jdbcTemplate.execute("drop table login_processing." + partition(last));
+        UUID messageId = write(last.atDay(10).atStartOfDay().toInstant(ZoneOffset.UTC));
+        assertEquals("login_tracking_result_default", partitionOf(messageId));
+
+        maintainer.maintain();
+
+        assertTrue(exists(partition(last)));
+        assertEquals(partition(last), partitionOf(messageId));
+        assertEquals(1L, resultRepository.count());
+        assertTrue(resultRepository.findByMessageId(messageId).isPresent());
+    }
+
+    @Test
+    void maintain_shouldDropPartitionsAndDefaultRowsOlderThanRetention() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        YearMonth expired = current.minusMonths(4);
+        YearMonth kept = current.minusMonths(3);
+        createPartition(expired);
+        createPartition(kept);
+
+        write(expired.atDay(15).atStartOfDay().toInstant(ZoneOffset.UTC));
+        UUID keptMessageId = write(kept.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC));
+        write(Instant.parse("2001-01-01T00:00:00Z"));
+        UUID currentMessageId = write(Instant.now());
+
+        maintainer.maintain();
+
+        assertFalse(exists(partition(expired)));
+        assertTrue(exists(partition(kept)));
+        assertEquals(2L, resultRepository.count());
+        assertTrue(resultRepository.findByMessageId(keptMessageId).isPresent());
+        assertTrue(resultRepository.findByMessageId(currentMessageId).isPresent());
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "select count(*) from login_processing.processed_message", Integer.class));
+    }
+
+    @Test
+    void maintain_whenAnotherReplicaHoldsTheLock_shouldSkipTheRun() throws Exception {
+        YearMonth last = YearMonth.now(ZoneOffset.UTC).plusMonths(5);
+        jdbcTemplate.execute("drop table login_processing." + partition(last));
+
+        try (Connection other = dataSource.getConnection()) {
+            try (Statement statement = other.createStatement()) {
+                statement.execute("select pg_advisory_lock(hashtext('login_processing.login_tracking_result.maintenance'))");
+            }
+            maintainer.maintain();
+            assertFalse(exists(partition(last)));
+        }
+
+        maintainer.maintain();
+        assertTrue(exists(partition(last)));
+    }
+
+    @Test
+    void maintain_shouldDeleteExpiredDefaultRowsInChunks() {
+        for (int i = 0; i < 5; i++) {
+            write(Instant.parse("2001-01-01T00:00:00Z").plusSeconds(i));
+        }
+        UUID currentMessageId = write(Instant.now());
+
+        maintainer.maintain();
+
+        assertEquals(1L, resultRepository.count());
+        assertTrue(resultRepository.findByMessageId(currentMessageId).isPresent());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from login_processing.processed_message", Integer.class));
+    }
+
+    private UUID write(Instant eventTimestamp) {
+        UUID messageId = UUID.randomUUID();
+        resultWriter.write(
+                new CustomerLoginEvent(UUID.randomUUID(), "Samira", "web", eventTimestamp, messageId, "10.0.0.1"),
+                RequestResult.SUCCESSFUL);
+        return messageId;
+    }
+
+    private void createPartition(YearMonth month) {
+        jdbcTemplate.execute("create table login_processing." + partition(month)
+                + " partition of login_processing.login_tracking_result for values from ('"
+                + month.atDay(1) + " 00:00:00+00') to ('" + month.plusMonths(1).atDay(1) + " 00:00:00+00')");
+    }
+
+    private String partitionOf(UUID messageId) {
+        return jdbcTemplate.queryForObject(
+                "select c.relname from login_processing.login_tracking_result r join pg_class c on c.oid = r.tableoid"
+                        + " where r.message_id = ?",
+                String.class, messageId);
+    }
+
+    private boolean exists(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "select to_regclass(?) is not null", Boolean.class, "login_processing." + table));
+    }
+
+    private static String partition(YearMonth month) {
+        return String.format("login_tracking_result_p%04d%02d", month.getYear(), month.getMonthValue());
+    }
+}
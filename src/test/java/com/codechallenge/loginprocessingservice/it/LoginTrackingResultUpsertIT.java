@@ -0,0 +1,155 @@
+package com.codechallenge.loginprocessingservice.it;
+
+import com.codechallenge.loginprocessingservice.AbstractTest;
+import com.codechallenge.loginprocessingservice.dto.CustomerLoginEvent;
+import com.codechallenge.loginprocessingservice.model.*;
+import com.codechallenge.loginprocessingservice.repository.LoginTrackingResultRepository;
+import com.codechallenge.loginprocessingservice.repository.OutboxRepository;
+import com.codechallenge.loginprocessingservice.service.LoginTrackingResultWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static com.codechallenge.loginprocessingservice.mapper.LoginTrackingResultMapper.toEntity;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoginTrackingResultUpsertIT extends AbstractTest {
+
+    @Autowired
+    private LoginTrackingResultRepository resultRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private LoginTrackingResultWriter resultWriter;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository.deleteAll();
+        resultRepository.deleteAll();
+    }
+
+    @Test
+    void insertIgnoreWithOutbox_shouldReportInsertedRow_andExistingRowOnConflict_andWriteOutboxOnce() {
+        UUID messageId = UUID.randomUUID();
+        UUID firstId = UUID.randomUUID();
+        Instant eventTimestamp = Instant.now();
+
+        var first = insert(firstId, messageId, eventTimestamp).orElseThrow();
+        assertTrue(first.isInserted());
+        assertEquals(firstId, first.getId());
+
+        var second = insert(UUID.randomUUID(), messageId, eventTimestamp).orElseThrow();
+        assertFalse(second.isInserted());
+        assertEquals(firstId, second.getId());
+
+        assertEquals(1L, resultRepository.count());
+
+        var outbox = outboxRepository.findAll();
+        assertEquals(1, outbox.size());
+        assertEquals(firstId, outbox.get(0).getAggregateId());
+        assertEquals(PublicationStatus.NEW, outbox.get(0).getStatus());
+    }
+
+    @Test
+    void insertIgnoreWithOutbox_whenRedeliveryCarriesAnotherTimestamp_shouldStillDedupOnMessageId() {
+        UUID messageId = UUID.randomUUID();
+        UUID firstId = UUID.randomUUID();
+        Instant eventTimestamp = Instant.now();
+
+        assertTrue(insert(firstId, messageId, eventTimestamp).orElseThrow().isInserted());
+        var redelivery = insert(UUID.randomUUID(), messageId, eventTimestamp.minusSeconds(86_400 * 62)).orElseThrow();
+
+        assertFalse(redelivery.isInserted());
+        assertEquals(firstId, redelivery.getId());
+        assertEquals(1L, resultRepository.count());
+        assertEquals(1L, outboxRepository.count());
+        assertEquals(firstId, resultRepository.findByMessageId(messageId).orElseThrow().getId());
+    }
+
+    @Test
+    void writeAll_whenRedeliveryCarriesAnotherTimestamp_shouldSkipKnownMessageId() {
+        CustomerLoginEvent event = new CustomerLoginEvent(
+                UUID.randomUUID(), "Samira", "web", Instant.now(), UUID.randomUUID(), "10.0.0.1");
+        LoginTrackingResultEntity first = resultWriter.write(event, RequestResult.SUCCESSFUL);
+
+        LoginTrackingResultEntity redelivery = toEntity(new CustomerLoginEvent(event.customerId(), event.username(),
+                event.client(), event.timestamp().plusSeconds(5), event.messageId(), event.customerIp()),
+                RequestResult.UNSUCCESSFUL);
+        redelivery.setId(UUID.randomUUID());
+
+        assertEquals(List.of(), resultWriter.writeAll(List.of(redelivery)));
+        assertEquals(1L, resultRepository.count());
+        assertEquals(1L, outboxRepository.count());
+        assertEquals(first.getId(), resultRepository.findByMessageId(event.messageId()).orElseThrow().getId());
+        assertEquals(List.of(event.messageId()), resultRepository.findExistingMessageIds(List.of(event.messageId())));
+    }
+
+    @Test
+    void writeAll_shouldWriteOutboxRowsForInsertedResultsOnly() {
+        CustomerLoginEvent known = new CustomerLoginEvent(
+                UUID.randomUUID(), "Samira", "web", Instant.now(), UUID.randomUUID(), "10.0.0.1");
+        CustomerLoginEvent fresh = new CustomerLoginEvent(
+                UUID.randomUUID(), "davod", "ios", Instant.now(), UUID.randomUUID(), "10.0.0.2");
+
+        LoginTrackingResultEntity first = resultWriter.write(known, RequestResult.SUCCESSFUL);
+
+        LoginTrackingResultEntity knownAgain = toEntity(known, RequestResult.SUCCESSFUL);
+        knownAgain.setId(UUID.randomUUID());
+        LoginTrackingResultEntity freshRow = toEntity(fresh, RequestResult.SUCCESSFUL);
+        freshRow.setId(UUID.randomUUID());
+
+        var inserted = resultWriter.writeAll(List.of(knownAgain, freshRow));
+
+        assertEquals(List.of(freshRow), inserted);
+        assertEquals(
+                Set.of(first.getId(), freshRow.getId()),
+                outboxRepository.findAll().stream().map(OutboxEntity::getAggregateId).collect(Collectors.toSet())
+        );
+    }
+
+    @Test
+    void write_shouldWriteOutboxRowForInsertedResultOnly() {
+        CustomerLoginEvent event = new CustomerLoginEvent(
+                UUID.randomUUID(), "Samira", "web", Instant.now(), UUID.randomUUID(), "10.0.0.1");
+
+        LoginTrackingResultEntity first = resultWriter.write(event, RequestResult.SUCCESSFUL);
+        LoginTrackingResultEntity second = resultWriter.write(event, RequestResult.UNSUCCESSFUL);
+
+        assertEquals(first.getId(), second.getId());
+        assertEquals(RequestResult.SUCCESSFUL, second.getRequestResult());
+
+        var outbox = outboxRepository.findAll();
+        assertEquals(1, outbox.size());
+        assertEquals(first.getId(), outbox.get(0).getAggregateId());
+    }
+
+    private Optional<LoginTrackingResultRepository.InsertOutcome> insert(UUID id, UUID messageId, Instant eventTimestamp) {
+        UUID customerId = UUID.randomUUID();
+        return resultRepository.insertIgnoreWithOutbox(
+                id,
+                messageId,
+                customerId,
+                "Samira",
+                Client.WEB.name(),
+                eventTimestamp,
+                "10.0.0.1",
+                RequestResult.SUCCESSFUL.name(),
+                UUID.randomUUID(),
+                AggregateType.LOGIN_TRACKING_RESULT.name(),
+                IntegrationEventType.LOGIN_TRACKING_RESULT_CREATED.name(),
+                "login-tracking-result",
+                customerId.toString(),
+                "{}".getBytes(),
+                0
+        );
+    }
+}
@@ -0,0 +1,140 @@
+package com.codechallenge.loginprocessingservice.it;
+
+import com.codechallenge.loginprocessingservice.AbstractTest;
+import com.codechallenge.loginprocessingservice.model.AggregateType;
+import com.codechallenge.loginprocessingservice.model.IntegrationEventType;
+import com.codechallenge.loginprocessingservice.model.OutboxEntity;
+import com.codechallenge.loginprocessingservice.model.PublicationStatus;
+import com.codechallenge.loginprocessingservice.repository.OutboxRepository;
+import com.codechallenge.loginprocessingservice.service.OutboxDrainer;
+import com.codechallenge.loginprocessingservice.service.OutboxPublisher;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+
+@TestPropertySource(properties = {
+        "app.outbox.drain.mode=adaptive",
+        "app.outbox.batch-size=20",
+        "app.outbox.drain.min-batch-size=10",
+        "app.outbox.drain.max-batch-size=200",
+        "app.outbox.drain.target-batch-latency-ms=5000",
+        "app.outbox.drain.time-budget-ms=1500",
+        "app.outbox.drain.backlog-count-limit=25"
+})
+public class OutboxAdaptiveDrainIT extends AbstractTest {
+
+    @Autowired
+    private OutboxDrainer outboxDrainer;
+
+    @MockitoSpyBean
+    private OutboxPublisher outboxPublisher;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void drain_shouldPublishSeveralGrowingBatchesPerCall_untilBacklogIsEmpty() {
+        insertNewRows(1000);
+
+        int firstDrain = outboxDrainer.drain();
+        assertTrue(firstDrain > 20, "one drain published only " + firstDrain + " rows");
+        assertTrue(outboxDrainer.currentBatchSize() > 20, "batch size did not grow");
+
+        int total = firstDrain;
+        int published;
+        while ((published = outboxDrainer.drain()) > 0) {
+            total += published;
+        }
+
+        assertEquals(1000, total);
+        assertEquals(1000, countByStatus(PublicationStatus.SENT));
+        assertTrue(meterRegistry.get("outbox.drain.rows").counter().count() >= 1000);
+    }
+
+    @Test
+    void drain_shouldStopAtTimeBudget_andLeaveRestForNextWakeup() {
+        insertNewRows(1000);
+
+        Mockito.doAnswer(inv -> {
+            Thread.sleep(600);
+            return inv.callRealMethod();
+        }).when(outboxPublisher).publishBatch(anyInt());
+
+        long started = System.nanoTime();
+        int published = outboxDrainer.drain();
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+        assertTrue(published > 0);
+        assertTrue(published < 1000);
+        // the budget is checked between batches, so one batch may run past it
+        assertTrue(elapsedMs < 1500 + 1500, "drain took " + elapsedMs + " ms");
+        assertEquals(1000 - published, countByStatus(PublicationStatus.NEW));
+    }
+
+    @Test
+    void drain_whenNothingIsDue_shouldMakeOneClaim() {
+        Mockito.clearInvocations(outboxPublisher);
+
+        int published = outboxDrainer.drain();
+
+        assertEquals(0, published);
+        Mockito.verify(outboxPublisher, Mockito.times(1)).publishBatch(anyInt());
+    }
+
+    @Test
+    void refreshBacklog_shouldCountDueNewRows_upToTheLimit() {
+        insertNewRows(30);
+
+        outboxDrainer.refreshBacklog();
+        assertEquals(25, outboxDrainer.backlog());
+        assertEquals(25.0, meterRegistry.get("outbox.backlog").gauge().value());
+
+        outboxRepository.deleteAll();
+        outboxDrainer.refreshBacklog();
+        assertEquals(0, outboxDrainer.backlog());
+    }
+
+    private long countByStatus(PublicationStatus status) {
+        return outboxRepository.findAll().stream().filter(row -> row.getStatus() == status).count();
+    }
+
+    private void insertNewRows(int count) {
+        List<OutboxEntity> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(OutboxEntity.newEvent(
+                    AggregateType.LOGIN_TRACKING_RESULT,
+                    UUID.randomUUID(),
+                    IntegrationEventType.LOGIN_TRACKING_RESULT_CREATED,
+                    "login-tracking-result",
+                    "drain-it-" + i,
+                    "{}".getBytes()
+            ));
+        }
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> outboxRepository.saveAll(rows));
+    }
+}
@@ -0,0 +1,155 @@
+package com.codechallenge.loginprocessingservice.it;
+
+import com.codechallenge.loginprocessingservice.AbstractTest;
+import com.codechallenge.loginprocessingservice.dto.CustomerLoginEvent;
+import com.codechallenge.loginprocessingservice.model.OutboxEntity;
+import com.codechallenge.loginprocessingservice.model.PublicationStatus;
+import com.codechallenge.loginprocessingservice.model.RequestResult;
+import com.codechallenge.loginprocessingservice.repository.LoginTrackingResultRepository;
+import com.codechallenge.loginprocessingservice.repository.OutboxRepository;
+import com.codechallenge.loginprocessingservice.service.LoginTrackingResultWriter;
+import com.codechallenge.loginprocessingservice.service.OutboxPublisher;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+
+@TestPropertySource(properties = {
+        "app.outbox.direct-publish.enabled=true",
+        "app.outbox.direct-publish.claim-delay-ms=2000"
+})
+public class OutboxDirectPublishIT extends AbstractTest {
+
+    @Autowired
+    private LoginTrackingResultWriter resultWriter;
+
+    @Autowired
+    private OutboxPublisher outboxPublisher;
+
+    @Autowired
+    private LoginTrackingResultRepository resultRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockitoSpyBean
+    private KafkaTemplate<String, byte[]> outboxKafkaTemplate;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository.deleteAll();
+        resultRepository.deleteAll();
+    }
+
+    @Test
+    void write_shouldPublishAfterCommit_andMarkSent_withoutOutboxPublisher() {
+        UUID customerId = UUID.randomUUID();
+        double acked = events("acked");
+        long lagged = meterRegistry.get("outbox.direct-publish.lag").timer().count();
+        write(customerId);
+
+        await().atMost(10, SECONDS).untilAsserted(() -> {
+            OutboxEntity row = outboxRepository.findAll().get(0);
+            assertEquals(PublicationStatus.SENT, row.getStatus());
+            assertNotNull(row.getSentAt());
+        });
+
+        Mockito.verify(outboxKafkaTemplate, Mockito.times(1))
+                .send(eq("login-tracking-result"), eq(customerId.toString()), any(byte[].class));
+        assertEquals(acked + 1, events("acked"));
+        assertEquals(lagged + 1, meterRegistry.get("outbox.direct-publish.lag").timer().count());
+        assertEquals(0, outboxPublisher.publishBatch(), "nothing left for the scheduled publisher");
+    }
+
+    @Test
+    void write_whenDirectSendFails_shouldLeaveRowToOutboxPublisher_afterClaimDelay() {
+        CompletableFuture failed = new CompletableFuture<>();
+        failed.completeExceptionally(new RuntimeException("boom"));
+        Mockito.doReturn(failed)
+                .when(outboxKafkaTemplate)
+                .send(anyString(), anyString(), any(byte[].class));
+        double failedEvents = events("failed");
+
+        write(UUID.randomUUID());
+
+        await().atMost(10, SECONDS).untilAsserted(() -> assertEquals(failedEvents + 1, events("failed")));
+        OutboxEntity row = outboxRepository.findAll().get(0);
+        assertEquals(PublicationStatus.NEW, row.getStatus());
+        assertEquals(0, row.getRetryCount(), "a failed direct send is not a publish attempt");
+        assertEquals(0, outboxPublisher.publishBatch(), "the row is not claimable before the claim delay");
+
+        Mockito.reset(outboxKafkaTemplate);
+
+        await().atMost(10, SECONDS).until(() -> outboxPublisher.publishBatch() == 1);
+        assertEquals(PublicationStatus.SENT, outboxRepository.findAll().get(0).getStatus());
+    }
+
+    @Test
+    void write_afterFailedDirectSend_shouldLeaveLaterRowsOfSameKeyToOutboxPublisher_untilEarlierRowIsSent() {
+        UUID customerId = UUID.randomUUID();
+        CompletableFuture failed = new CompletableFuture<>();
+        failed.completeExceptionally(new RuntimeException("boom"));
+        Mockito.doReturn(failed)
+                .when(outboxKafkaTemplate)
+                .send(anyString(), anyString(), any(byte[].class));
+        double failedEvents = events("failed");
+        double deferred = events("deferred");
+
+        write(customerId);
+        await().atMost(10, SECONDS).untilAsserted(() -> assertEquals(failedEvents + 1, events("failed")));
+        Mockito.reset(outboxKafkaTemplate);
+
+        write(customerId);
+        await().atMost(10, SECONDS).untilAsserted(() -> assertEquals(deferred + 1, events("deferred")));
+        Mockito.verify(outboxKafkaTemplate, Mockito.never()).send(anyString(), anyString(), any(byte[].class));
+
+        // both rows come due after the claim delay and are published in creation order
+        await().atMost(10, SECONDS).untilAsserted(() -> {
+            outboxPublisher.publishBatch();
+            assertTrue(outboxRepository.findAll().stream().allMatch(row -> row.getStatus() == PublicationStatus.SENT));
+        });
+        ArgumentCaptor<byte[]> sent = ArgumentCaptor.forClass(byte[].class);
+        Mockito.verify(outboxKafkaTemplate, Mockito.times(2)).send(anyString(), eq(customerId.toString()), sent.capture());
+        List<byte[]> created = outboxRepository.findAll().stream()
+                .sorted(Comparator.comparing(OutboxEntity::getCreatedAt))
+                .map(OutboxEntity::getPayload)
+                .toList();
+        assertArrayEquals(created.get(0), sent.getAllValues().get(0));
+        assertArrayEquals(created.get(1), sent.getAllValues().get(1));
+
+        // nothing of the key is left: the next row takes the fast path again
+        write(customerId);
+        await().atMost(10, SECONDS).untilAsserted(() -> assertTrue(outboxRepository.findAll().stream()
+                .allMatch(row -> row.getStatus() == PublicationStatus.SENT)));
+        assertEquals(deferred + 1, events("deferred"));
+    }
+
+    private double events(String result) {
+        return meterRegistry.get("outbox.direct-publish.events").tag("result", result).counter().count();
+    }
+
+    private void write(UUID customerId) {
+        resultWriter.write(
+                new CustomerLoginEvent(customerId, "Samira", "web", Instant.now(), UUID.randomUUID(), "10.0.0.1"),
+                RequestResult.SUCCESSFUL);
+    }
+}
@@ -0,0 +1,99 @@
+package com.codechallenge.loginprocessingservice.it;
+
+import com.codechallenge.loginprocessingservice.AbstractTest;
+import com.codechallenge.loginprocessingservice.model.*;
+import com.codechallenge.loginprocessingservice.repository.OutboxRepository;
+import com.codechallenge.loginprocessingservice.service.OutboxJanitor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestPropertySource(properties = {
+        "app.outbox.janitor.enabled=true",
+        "app.outbox.janitor.mode=delete",
+        "app.outbox.janitor.retention-ms=3600000",
+        "app.outbox.janitor.chunk-size=2",
+        "app.outbox.janitor.max-chunks-per-run=2",
+        "app.outbox.janitor.interval-ms=999999"
+})
+public class OutboxJanitorIT extends AbstractTest {
+
+    @Autowired
+    private OutboxJanitor outboxJanitor;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository.deleteAll();
+        jdbcTemplate.update("delete from login_processing.outbox_event_archive");
+    }
+
+    @Test
+    void clean_shouldDeleteExpiredSentRowsInBoundedChunks_andKeepEverythingElse() {
+        Instant expired = Instant.now().minus(Duration.ofHours(2));
+        for (int i = 0; i < 5; i++) {
+            save(PublicationStatus.SENT, expired);
+        }
+        OutboxEntity recentSent = save(PublicationStatus.SENT, Instant.now());
+        OutboxEntity pending = save(PublicationStatus.NEW, null);
+        OutboxEntity failed = save(PublicationStatus.FAILED, null);
+
+        // two chunks of two per run
+        assertEquals(4, outboxJanitor.clean());
+        assertEquals(1, outboxJanitor.clean());
+        assertEquals(0, outboxJanitor.clean());
+
+        assertEquals(3L, outboxRepository.count());
+        assertTrue(outboxRepository.existsById(recentSent.getId()));
+        assertTrue(outboxRepository.existsById(pending.getId()));
+        assertTrue(outboxRepository.existsById(failed.getId()));
+
+        assertEquals(5.0, meterRegistry.get("outbox.janitor.rows").counter().count());
+        assertEquals(3.0, meterRegistry.get("outbox.janitor.chunks").counter().count());
+        assertEquals(3L, meterRegistry.get("outbox.janitor.run").timer().count());
+    }
+
+    @Test
+    void archiveSentBefore_shouldMoveRowsToArchiveTable() {
+        OutboxEntity expired = save(PublicationStatus.SENT, Instant.now().minus(Duration.ofHours(2)));
+        save(PublicationStatus.SENT, Instant.now());
+
+        assertEquals(1, outboxRepository.archiveSentBefore(Instant.now().minus(Duration.ofHours(1)), 10));
+
+        assertFalse(outboxRepository.existsById(expired.getId()));
+        assertEquals(1L, outboxRepository.count());
+        assertEquals(expired.getId(), jdbcTemplate.queryForObject(
+                "select id from login_processing.outbox_event_archive", UUID.class));
+    }
+
+    private OutboxEntity save(PublicationStatus status, Instant sentAt) {
+        OutboxEntity e = OutboxEntity.newEvent(
+                AggregateType.LOGIN_TRACKING_RESULT,
+                UUID.randomUUID(),
+                IntegrationEventType.LOGIN_TRACKING_RESULT_CREATED,
+                "login-tracking-result",
+                UUID.randomUUID().toString(),
+                "payload".getBytes()
+        );
+        e.setStatus(status);
+        e.setSentAt(sentAt);
+        return outboxRepository.save(e);
+    }
+}
@@ -0,0 +1,110 @@
+package com.codechallenge.loginprocessingservice.it;
+
+import com.codechallenge.loginprocessingservice.AbstractTest;
+import com.codechallenge.loginprocessingservice.config.KafkaTestProducerConfig;
+import com.codechallenge.loginprocessingservice.dto.CustomerLoginEvent;
+import com.codechallenge.loginprocessingservice.model.AggregateType;
+import com.codechallenge.loginprocessingservice.model.IntegrationEventType;
+import com.codechallenge.loginprocessingservice.model.OutboxEntity;
+import com.codechallenge.loginprocessingservice.model.PublicationStatus;
+import com.codechallenge.loginprocessingservice.repository.LoginTrackingResultRepository;
+import com.codechallenge.loginprocessingservice.repository.OutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Polling is effectively off ({@code app.outbox.poll-ms=999999} from {@link AbstractTest}),
+ * so rows can only be published through the LISTEN/NOTIFY wakeup.
+ */
+@Import(KafkaTestProducerConfig.class)
+@TestPropertySource(properties = {
+        "app.outbox.notify.enabled=true",
+        "app.outbox.batch-size=50"
+})
+public class OutboxNotifyIT extends AbstractTest {
+
+    @Autowired
+    private KafkaTemplate<String, CustomerLoginEvent> customerLoginKafkaTemplate;
+
+    @Autowired
+    private LoginTrackingResultRepository resultRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        configureFor(wireMockContainer.getHost(), wireMockContainer.getFirstMappedPort());
+        outboxRepository.deleteAll();
+        resultRepository.deleteAll();
+    }
+
+    @Test
+    void shouldPublishOutboxRow_onCommitNotification_withoutWaitingForPoll() {
+        UUID customerId = UUID.randomUUID();
+        UUID messageId = UUID.randomUUID();
+
+        stubFor(get(urlEqualTo("/v1/api/trackLoging/" + customerId))
+                .willReturn(aResponse().withStatus(204)));
+
+        customerLoginKafkaTemplate.send("customer-login", customerId.toString(),
+                new CustomerLoginEvent(customerId, "Samira", "web", Instant.now(), messageId, "10.0.0.1"));
+
+        await().atMost(15, SECONDS).untilAsserted(() -> {
+            var rows = outboxRepository.findAll();
+            assertEquals(1, rows.size());
+            assertEquals(PublicationStatus.SENT, rows.get(0).getStatus());
+            assertNotNull(rows.get(0).getSentAt());
+        });
+
+        assertTrue(meterRegistry.get("outbox.publish.lag").timer().count() >= 1);
+    }
+
+    @Test
+    void shouldDrainWholeBacklog_afterOneNotification() {
+        int count = 180;
+        List<OutboxEntity> backlog = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            backlog.add(OutboxEntity.newEvent(
+                    AggregateType.LOGIN_TRACKING_RESULT,
+                    UUID.randomUUID(),
+                    IntegrationEventType.LOGIN_TRACKING_RESULT_CREATED,
+                    "login-tracking-result",
+                    "notify-it-" + i,
+                    "{}".getBytes()
+            ));
+        }
+
+        // one transaction -> its notifications are folded into one, for more rows than one batch holds
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> outboxRepository.saveAll(backlog));
+
+        await().atMost(15, SECONDS).untilAsserted(() -> {
+            var rows = outboxRepository.findAll();
+            assertEquals(count, rows.size());
+            assertTrue(rows.stream().allMatch(r -> r.getStatus() == PublicationStatus.SENT));
+        });
+    }
+}
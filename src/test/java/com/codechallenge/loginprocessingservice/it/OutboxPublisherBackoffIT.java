@@ -0,0 +1,116 @@
+package com.codechallenge.loginprocessingservice.it;
+
+import com.codechallenge.loginprocessingservice.AbstractTest;
+import com.codechallenge.loginprocessingservice.model.*;
+import com.codechallenge.loginprocessingservice.repository.OutboxRepository;
+import com.codechallenge.loginprocessingservice.service.OutboxPublisher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+
+@TestPropertySource(properties = {
+        "app.outbox.max-retries=20",
+        "app.outbox.retry-backoff-ms=2000",
+        "app.outbox.max-retry-backoff-ms=60000"
+})
+public class OutboxPublisherBackoffIT extends AbstractTest {
+
+    // database and JVM clocks are compared, and the claim transaction starts before attemptAt is taken
+    private static final long SLACK_MS = 500;
+
+    @Autowired
+    private OutboxPublisher outboxPublisher;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @MockitoSpyBean
+    private KafkaTemplate<String, byte[]> outboxKafkaTemplate;
+
+    @BeforeEach
+    void clean() {
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void failedRow_shouldNotBeClaimedBeforeBackoff_andBeRetriedOnceDue() {
+        OutboxEntity row = save(0);
+
+        CompletableFuture<Object> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new RuntimeException("broker down"));
+        Mockito.doReturn(failed)
+                .doReturn(CompletableFuture.completedFuture(null))
+                .when(outboxKafkaTemplate)
+                .send(anyString(), anyString(), any(byte[].class));
+
+        assertEquals(0, outboxPublisher.publishBatch());
+
+        OutboxEntity afterFailure = outboxRepository.findById(row.getId()).orElseThrow();
+        assertEquals(PublicationStatus.NEW, afterFailure.getStatus());
+        assertEquals(1, afterFailure.getRetryCount());
+        assertBackoffWithin(afterFailure, 1000, 2000);
+
+        // not due yet: nothing is claimed, so an outage does not turn into a send loop
+        assertEquals(0, outboxPublisher.publishBatch());
+        Mockito.verify(outboxKafkaTemplate, Mockito.times(1)).send(anyString(), anyString(), any(byte[].class));
+
+        await().atMost(5, SECONDS).pollInterval(Duration.ofMillis(200))
+                .until(() -> outboxPublisher.publishBatch() == 1);
+
+        OutboxEntity afterRetry = outboxRepository.findById(row.getId()).orElseThrow();
+        assertEquals(PublicationStatus.SENT, afterRetry.getStatus());
+        assertEquals(1, afterRetry.getRetryCount());
+        Mockito.verify(outboxKafkaTemplate, Mockito.times(2)).send(anyString(), anyString(), any(byte[].class));
+    }
+
+    @Test
+    void backoff_shouldGrowExponentially_andBeCapped() {
+        OutboxEntity third = save(3);
+        OutboxEntity tenth = save(9);
+
+        CompletableFuture<Object> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new RuntimeException("broker down"));
+        Mockito.doReturn(failed)
+                .when(outboxKafkaTemplate)
+                .send(anyString(), anyString(), any(byte[].class));
+
+        outboxPublisher.publishBatch();
+
+        // 2000 * 2^3 = 16s, jittered to 8-16s
+        assertBackoffWithin(outboxRepository.findById(third.getId()).orElseThrow(), 8_000, 16_000);
+        // 2000 * 2^9 is above the 60s cap, jittered to 30-60s
+        assertBackoffWithin(outboxRepository.findById(tenth.getId()).orElseThrow(), 30_000, 60_000);
+    }
+
+    private OutboxEntity save(int retryCount) {
+        OutboxEntity e = OutboxEntity.newEvent(
+                AggregateType.LOGIN_TRACKING_RESULT,
+                UUID.randomUUID(),
+                IntegrationEventType.LOGIN_TRACKING_RESULT_CREATED,
+                "login-tracking-result",
+                UUID.randomUUID().toString(),
+                "payload".getBytes()
+        );
+        e.setRetryCount(retryCount);
+        return outboxRepository.save(e);
+    }
+
+    private static void assertBackoffWithin(OutboxEntity row, long minMs, long maxMs) {
+        long backoffMs = Duration.between(row.getLastAttemptAt(), row.getNextAttemptAt()).toMillis();
+        assertTrue(backoffMs >= minMs - SLACK_MS && backoffMs <= maxMs + SLACK_MS,
+                "backoff " + backoffMs + " ms not within [" + minMs + ", " + maxMs + "]");
+    }
+}
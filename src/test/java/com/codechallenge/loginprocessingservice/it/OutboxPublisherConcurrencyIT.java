@@ -0,0 +1,174 @@
+package com.codechallenge.loginprocessingservice.it;
+
+import com.codechallenge.loginprocessingservice.AbstractTest;
+import com.codechallenge.loginprocessingservice.model.AggregateType;
+import com.codechallenge.loginprocessingservice.model.IntegrationEventType;
+import com.codechallenge.loginprocessingservice.model.OutboxEntity;
+import com.codechallenge.loginprocessingservice.model.PublicationStatus;
+import com.codechallenge.loginprocessingservice.repository.OutboxRepository;
+import com.codechallenge.loginprocessingservice.service.OutboxPublisher;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestPropertySource(properties = {
+        "app.outbox.batch-size=20"
+})
+public class OutboxPublisherConcurrencyIT extends AbstractTest {
+
+    private static final String TOPIC = "login-tracking-result";
+
+    @Autowired
+    private OutboxPublisher outboxPublisher;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentPublishers_shouldPublishDisjointBatches_andEveryRowExactlyOnce() throws Exception {
+        Set<String> keys = insertNewRows(200);
+
+        int publishers = 4;
+        ExecutorService pool = Executors.newFixedThreadPool(publishers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < publishers; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                while (!outboxRepository.findByStatusOrderByCreatedAtAsc(PublicationStatus.NEW, PageRequest.of(0, 1)).isEmpty()) {
+                    outboxPublisher.publishBatch();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        List<OutboxEntity> rows = outboxRepository.findAll();
+        assertEquals(200, rows.size());
+        assertTrue(rows.stream().allMatch(r -> r.getStatus() == PublicationStatus.SENT));
+        assertTrue(rows.stream().allMatch(r -> r.getRetryCount() == 0));
+
+        Map<String, Integer> published = pollPublishedKeys(keys, 200);
+        assertEquals(keys, published.keySet());
+        assertTrue(published.values().stream().allMatch(count -> count == 1), "duplicates published: " + published);
+    }
+
+    @Test
+    void publishBatch_shouldSkipRowsClaimedByAnotherPublisher_andPickThemUpAfterItsRollback() throws Exception {
+        insertNewRows(30);
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        CountDownLatch claimed = new CountDownLatch(1);
+        CountDownLatch crash = new CountDownLatch(1);
+
+        // a publisher that claims 10 rows and then "crashes" (rolls back) without publishing
+        ExecutorService crashingPublisher = Executors.newSingleThreadExecutor();
+        Future<Integer> claimedByCrashed = crashingPublisher.submit(() -> tx.execute(status -> {
+            int size = outboxRepository.claimNextBatch(10).size();
+            claimed.countDown();
+            try {
+                crash.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            status.setRollbackOnly();
+            return size;
+        }));
+
+        assertTrue(claimed.await(10, TimeUnit.SECONDS));
+
+        outboxPublisher.publishBatch();
+        assertEquals(20, countByStatus(PublicationStatus.SENT));
+        assertEquals(10, countByStatus(PublicationStatus.NEW));
+
+        outboxPublisher.publishBatch();
+        assertEquals(20, countByStatus(PublicationStatus.SENT), "locked rows must not be claimed twice");
+
+        crash.countDown();
+        assertEquals(10, claimedByCrashed.get(10, TimeUnit.SECONDS));
+        crashingPublisher.shutdown();
+
+        outboxPublisher.publishBatch();
+        assertEquals(30, countByStatus(PublicationStatus.SENT));
+    }
+
+    private Set<String> insertNewRows(int count) {
+        Set<String> keys = new LinkedHashSet<>();
+        List<OutboxEntity> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String key = "claim-it-" + UUID.randomUUID();
+            keys.add(key);
+            rows.add(OutboxEntity.newEvent(
+                    AggregateType.LOGIN_TRACKING_RESULT,
+                    UUID.randomUUID(),
+                    IntegrationEventType.LOGIN_TRACKING_RESULT_CREATED,
+                    TOPIC,
+                    key,
+                    "{}".getBytes()
+            ));
+        }
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> outboxRepository.saveAll(rows));
+        return keys;
+    }
+
+    private long countByStatus(PublicationStatus status) {
+        return outboxRepository.findAll().stream().filter(r -> r.getStatus() == status).count();
+    }
+
+    private Map<String, Integer> pollPublishedKeys(Set<String> expectedKeys, int expectedRecords) {
+        Properties props = new Properties();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaContainer.getBootstrapServers());
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, "it-claim-" + UUID.randomUUID());
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+
+        Map<String, Integer> published = new HashMap<>();
+        try (KafkaConsumer<String, byte[]> consumer = new KafkaConsumer<>(props)) {
+            consumer.subscribe(Collections.singletonList(TOPIC));
+
+            // keep polling a little after reaching the expected count so duplicates would show up
+            long deadline = System.currentTimeMillis() + 15_000;
+            long settleUntil = Long.MAX_VALUE;
+            while (System.currentTimeMillis() < Math.min(deadline, settleUntil)) {
+                for (var r : consumer.poll(Duration.ofMillis(500))) {
+                    if (expectedKeys.contains(r.key())) {
+                        published.merge(r.key(), 1, Integer::sum);
+                    }
+                }
+                if (settleUntil == Long.MAX_VALUE
+                        && published.values().stream().mapToInt(Integer::intValue).sum() >= expectedRecords) {
+                    settleUntil = System.currentTimeMillis() + 2_000;
+                }
+            }
+        }
+        return published;
+    }
+}
@@ -20,7 +20,8 @@ import static org.mockito.ArgumentMatchers.*;
 
 @TestPropertySource(properties = {
         "app.outbox.max-retries=2",
-        "app.outbox.batch-size=50"
+        "app.outbox.batch-size=50",
+        "app.outbox.retry-backoff-ms=0"
 })
 public class OutboxPublisherFailureIT extends AbstractTest {
 
@@ -0,0 +1,118 @@
+package com.codechallenge.loginprocessingservice.it;
+
+import com.codechallenge.loginprocessingservice.AbstractTest;
+import com.codechallenge.loginprocessingservice.model.*;
+import com.codechallenge.loginprocessingservice.repository.OutboxRepository;
+import com.codechallenge.loginprocessingservice.service.OutboxPublisher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+
+@TestPropertySource(properties = {
+        "app.outbox.max-retries=3",
+        "app.outbox.batch-size=50",
+        "app.outbox.send-timeout-ms=3000"
+})
+public class OutboxPublisherPipeliningIT extends AbstractTest {
+
+    @Autowired
+    private OutboxPublisher outboxPublisher;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @MockitoSpyBean
+    private KafkaTemplate<String, byte[]> outboxKafkaTemplate;
+
+    @BeforeEach
+    void clean() {
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void shouldSendWholeBatchBeforeAwaitingAcks_andApplyStatusPerRow() {
+        List<OutboxEntity> rows = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            rows.add(outboxRepository.save(OutboxEntity.newEvent(
+                    AggregateType.LOGIN_TRACKING_RESULT,
+                    UUID.randomUUID(),
+                    IntegrationEventType.LOGIN_TRACKING_RESULT_CREATED,
+                    "login-tracking-result",
+                    "pipelined-" + i,
+                    ("payload-" + i).getBytes()
+            )));
+        }
+
+        // acks are only released once the last send of the batch has been issued;
+        // a publisher that waits for each ack before the next send would time out on the first row
+        List<CompletableFuture<Object>> acks = new ArrayList<>();
+        Mockito.doAnswer(inv -> {
+            CompletableFuture<Object> ack = new CompletableFuture<>();
+            acks.add(ack);
+            if (acks.size() == rows.size()) {
+                acks.get(0).complete(null);
+                acks.get(1).completeExceptionally(new RuntimeException("broker rejected"));
+                acks.get(2).complete(null);
+            }
+            return ack;
+        }).when(outboxKafkaTemplate).send(anyString(), anyString(), any(byte[].class));
+
+        outboxPublisher.publishBatch();
+
+        OutboxEntity first = outboxRepository.findById(rows.get(0).getId()).orElseThrow();
+        OutboxEntity second = outboxRepository.findById(rows.get(1).getId()).orElseThrow();
+        OutboxEntity third = outboxRepository.findById(rows.get(2).getId()).orElseThrow();
+
+        assertEquals(PublicationStatus.SENT, first.getStatus());
+        assertNotNull(first.getSentAt());
+        assertEquals(0, first.getRetryCount());
+
+        assertEquals(PublicationStatus.NEW, second.getStatus());
+        assertEquals(1, second.getRetryCount());
+        assertEquals("broker rejected", second.getLastError());
+        assertNotNull(second.getLastAttemptAt());
+        assertNull(second.getSentAt());
+
+        assertEquals(PublicationStatus.SENT, third.getStatus());
+        assertNotNull(third.getSentAt());
+
+        Mockito.verify(outboxKafkaTemplate, Mockito.times(3))
+                .send(eq("login-tracking-result"), startsWith("pipelined-"), any(byte[].class));
+    }
+
+    @Test
+    void shouldMarkAttemptFailed_whenAckDoesNotArriveBeforeDeadline() {
+        OutboxEntity row = outboxRepository.save(OutboxEntity.newEvent(
+                AggregateType.LOGIN_TRACKING_RESULT,
+                UUID.randomUUID(),
+                IntegrationEventType.LOGIN_TRACKING_RESULT_CREATED,
+                "login-tracking-result",
+                "never-acked",
+                "payload".getBytes()
+        ));
+
+        Mockito.doReturn(new CompletableFuture<>())
+                .when(outboxKafkaTemplate)
+                .send(anyString(), anyString(), any(byte[].class));
+
+        outboxPublisher.publishBatch();
+
+        OutboxEntity after = outboxRepository.findById(row.getId()).orElseThrow();
+        assertEquals(PublicationStatus.NEW, after.getStatus());
+        assertEquals(1, after.getRetryCount());
+        assertNotNull(after.getLastError());
+        assertNull(after.getSentAt());
+    }
+}
@@ -0,0 +1,149 @@
+package com.codechallenge.loginprocessingservice.it;
+
+import com.codechallenge.loginprocessingservice.AbstractTest;
+import com.codechallenge.loginprocessingservice.model.*;
+import com.codechallenge.loginprocessingservice.repository.OutboxRepository;
+import com.codechallenge.loginprocessingservice.service.OutboxPublisher;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+
+@TestPropertySource(properties = {
+        "app.outbox.producer.mode=transactional",
+        "app.outbox.producer.transaction-id-prefix=it-outbox-tx-",
+        "app.outbox.retry-backoff-ms=0"
+})
+public class OutboxTransactionalPublishIT extends AbstractTest {
+
+    private static final String TOPIC = "login-tracking-result";
+
+    @Autowired
+    private OutboxPublisher outboxPublisher;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @MockitoSpyBean
+    private KafkaTemplate<String, byte[]> outboxKafkaTemplate;
+
+    @BeforeEach
+    void clean() {
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void publishBatch_shouldCommitWholeBatch_andMarkSent() {
+        List<String> keys = List.of(key(), key(), key());
+        List<UUID> ids = keys.stream().map(k -> save(k).getId()).toList();
+
+        assertEquals(3, outboxPublisher.publishBatch());
+
+        for (UUID id : ids) {
+            OutboxEntity row = outboxRepository.findById(id).orElseThrow();
+            assertEquals(PublicationStatus.SENT, row.getStatus());
+            assertNotNull(row.getSentAt());
+        }
+
+        Map<String, Integer> committed = pollCommitted(keys);
+        for (String key : keys) {
+            assertEquals(1, committed.getOrDefault(key, 0), "committed copies of " + key);
+        }
+    }
+
+    @Test
+    void publishBatch_whenOneSendFails_shouldBisectAbortedBatch_andChargeOnlyFailingRow() {
+        List<String> okKeys = List.of(key(), key(), key());
+        String failing = key();
+        List<UUID> okIds = new ArrayList<>();
+        okIds.add(save(okKeys.get(0)).getId());
+        okIds.add(save(okKeys.get(1)).getId());
+        UUID failingId = save(failing).getId();
+        okIds.add(save(okKeys.get(2)).getId());
+
+        CompletableFuture failed = new CompletableFuture<>();
+        failed.completeExceptionally(new RuntimeException("boom"));
+        Mockito.doReturn(failed)
+                .when(outboxKafkaTemplate)
+                .send(anyString(), eq(failing), any(byte[].class));
+
+        assertEquals(3, outboxPublisher.publishBatch());
+
+        for (UUID id : okIds) {
+            OutboxEntity row = outboxRepository.findById(id).orElseThrow();
+            assertEquals(PublicationStatus.SENT, row.getStatus());
+            assertEquals(0, row.getRetryCount(), "rows that share a transaction with the poison row are not charged");
+        }
+        OutboxEntity poison = outboxRepository.findById(failingId).orElseThrow();
+        assertEquals(PublicationStatus.NEW, poison.getStatus());
+        assertEquals(1, poison.getRetryCount());
+        assertEquals("boom", poison.getLastError());
+        assertNull(poison.getSentAt());
+
+        Mockito.reset(outboxKafkaTemplate);
+        assertEquals(1, outboxPublisher.publishBatch());
+
+        // the aborted transactions did reach the broker, but read_committed consumers skip them;
+        // only the committed copies are visible
+        List<String> keys = new ArrayList<>(okKeys);
+        keys.add(failing);
+        Map<String, Integer> committed = pollCommitted(keys);
+        for (String key : keys) {
+            assertEquals(1, committed.getOrDefault(key, 0), "committed copies of " + key);
+        }
+    }
+
+    private Map<String, Integer> pollCommitted(List<String> expectedKeys) {
+        Properties props = new Properties();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaContainer.getBootstrapServers());
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, "it-tx-output-" + UUID.randomUUID());
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+
+        Map<String, Integer> seen = new HashMap<>();
+        try (KafkaConsumer<String, byte[]> consumer = new KafkaConsumer<>(props)) {
+            consumer.subscribe(Collections.singletonList(TOPIC));
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (System.currentTimeMillis() < deadline && !seen.keySet().containsAll(expectedKeys)) {
+                for (var r : consumer.poll(Duration.ofMillis(500))) {
+                    if (expectedKeys.contains(r.key())) {
+                        seen.merge(r.key(), 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        return seen;
+    }
+
+    private OutboxEntity save(String key) {
+        return outboxRepository.save(OutboxEntity.newEvent(
+                AggregateType.LOGIN_TRACKING_RESULT,
+                UUID.randomUUID(),
+                IntegrationEventType.LOGIN_TRACKING_RESULT_CREATED,
+                TOPIC,
+                key,
+                "payload".getBytes()
+        ));
+    }
+
+    private static String key() {
+        return UUID.randomUUID().toString();
+    }
+}
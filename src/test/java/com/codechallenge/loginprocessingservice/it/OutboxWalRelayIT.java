@@ -0,0 +1,164 @@
+package com.codechallenge.loginprocessingservice.it;
+
+import com.codechallenge.loginprocessingservice.AbstractTest;
+import com.codechallenge.loginprocessingservice.dto.CustomerLoginEvent;
+import com.codechallenge.loginprocessingservice.model.OutboxEntity;
+import com.codechallenge.loginprocessingservice.model.PublicationStatus;
+import com.codechallenge.loginprocessingservice.model.RequestResult;
+import com.codechallenge.loginprocessingservice.repository.LoginTrackingResultRepository;
+import com.codechallenge.loginprocessingservice.repository.OutboxRepository;
+import com.codechallenge.loginprocessingservice.service.LoginTrackingResultWriter;
+import com.codechallenge.loginprocessingservice.service.OutboxWalRelay;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+
+@TestPropertySource(properties = {
+        "app.outbox.relay.mode=wal",
+        "app.outbox.relay.slot-name=it_outbox_wal_relay",
+        "app.outbox.relay.publication-name=it_outbox_wal_pub",
+        "app.outbox.relay.reconnect-backoff-ms=200"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class OutboxWalRelayIT extends AbstractTest {
+
+    private static final String TOPIC = "login-tracking-result";
+    private static final String SLOT = "it_outbox_wal_relay";
+
+    @Autowired
+    private LoginTrackingResultWriter resultWriter;
+
+    @Autowired
+    private LoginTrackingResultRepository resultRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private OutboxWalRelay relay;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockitoSpyBean
+    private KafkaTemplate<String, byte[]> outboxKafkaTemplate;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository.deleteAll();
+        resultRepository.deleteAll();
+        await().atMost(20, SECONDS).until(() -> Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "select active from pg_replication_slots where slot_name = ?", Boolean.class, SLOT)));
+    }
+
+    @AfterAll
+    void dropSlotAndPublication() {
+        relay.stop();
+        await().atMost(20, SECONDS).ignoreExceptions().until(() -> {
+            jdbcTemplate.queryForObject("select pg_drop_replication_slot(?)", Object.class, SLOT);
+            return true;
+        });
+        jdbcTemplate.execute("drop publication if exists it_outbox_wal_pub");
+    }
+
+    @Test
+    void write_shouldRelayInsertFromWal_withoutTouchingOutboxRow() {
+        double relayedBefore = relayedEvents();
+        List<String> keys = List.of(write(), write(), write());
+
+        Map<String, Integer> seen = poll(keys);
+        for (String key : keys) {
+            assertEquals(1, seen.getOrDefault(key, 0), "copies of " + key);
+        }
+
+        await().atMost(10, SECONDS).until(() -> relayedEvents() >= relayedBefore + 3);
+        for (OutboxEntity row : outboxRepository.findAll()) {
+            assertEquals(PublicationStatus.NEW, row.getStatus(), "the slot tracks progress, not the row");
+            assertEquals(0, row.getRetryCount());
+            assertNull(row.getSentAt());
+        }
+    }
+
+    @Test
+    void write_whenSendFails_shouldRestartFromSlot_andStillDeliver() {
+        double restartsBefore = meterRegistry.get("outbox.relay.restarts").counter().count();
+        String failingKey = UUID.randomUUID().toString();
+
+        CompletableFuture failed = new CompletableFuture<>();
+        failed.completeExceptionally(new RuntimeException("boom"));
+        Mockito.doReturn(failed).doCallRealMethod()
+                .when(outboxKafkaTemplate)
+                .send(anyString(), eq(failingKey), any(byte[].class));
+
+        write(UUID.fromString(failingKey));
+
+        await().atMost(10, SECONDS).until(() ->
+                meterRegistry.get("outbox.relay.restarts").counter().count() >= restartsBefore + 1);
+        assertTrue(poll(List.of(failingKey)).getOrDefault(failingKey, 0) >= 1, "replayed after the restart");
+    }
+
+    private double relayedEvents() {
+        return meterRegistry.get("outbox.relay.events").counter().count();
+    }
+
+    private String write() {
+        UUID customerId = UUID.randomUUID();
+        write(customerId);
+        return customerId.toString();
+    }
+
+    private void write(UUID customerId) {
+        resultWriter.write(
+                new CustomerLoginEvent(customerId, "Samira", "web", Instant.now(), UUID.randomUUID(), "10.0.0.1"),
+                RequestResult.SUCCESSFUL);
+    }
+
+    private Map<String, Integer> poll(List<String> expectedKeys) {
+        Properties props = new Properties();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaContainer.getBootstrapServers());
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, "it-wal-output-" + UUID.randomUUID());
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+
+        Map<String, Integer> seen = new HashMap<>();
+        try (KafkaConsumer<String, byte[]> consumer = new KafkaConsumer<>(props)) {
+            consumer.subscribe(Collections.singletonList(TOPIC));
+
+            long deadline = System.currentTimeMillis() + 15_000;
+            while (System.currentTimeMillis() < deadline && !seen.keySet().containsAll(expectedKeys)) {
+                for (var r : consumer.poll(Duration.ofMillis(500))) {
+                    if (expectedKeys.contains(r.key())) {
+                        seen.merge(r.key(), 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        return seen;
+    }
+}
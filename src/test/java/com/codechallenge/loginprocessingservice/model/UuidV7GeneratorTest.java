@@ -0,0 +1,64 @@
+package com.codechallenge.loginprocessingservice.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidV7GeneratorTest {
+
+    @Test
+    void next_shouldSetVersionVariantAndCurrentTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID id = UuidV7Generator.next();
+        long after = System.currentTimeMillis();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+
+        long timestamp = id.getMostSignificantBits() >>> 16;
+        // a burst in an earlier test may have borrowed a few milliseconds ahead
+        assertTrue(timestamp >= before && timestamp <= after + 1_000, "timestamp " + timestamp);
+    }
+
+    @Test
+    void next_shouldBeStrictlyIncreasing_evenWithinOneMillisecond() {
+        UUID previous = UuidV7Generator.next();
+        for (int i = 0; i < 100_000; i++) {
+            UUID id = UuidV7Generator.next();
+            assertTrue(id.compareTo(previous) > 0, id + " not after " + previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    void next_shouldBeUniqueAcrossThreads() throws Exception {
+        Set<UUID> ids = ConcurrentHashMap.newKeySet();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    Set<UUID> local = new HashSet<>();
+                    for (int i = 0; i < 20_000; i++) {
+                        local.add(UuidV7Generator.next());
+                    }
+                    ids.addAll(local);
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        }
+
+        assertEquals(8 * 20_000, ids.size());
+    }
+}
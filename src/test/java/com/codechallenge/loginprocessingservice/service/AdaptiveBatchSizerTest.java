@@ -0,0 +1,57 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveBatchSizerTest {
+
+    private static final long FAST = 10_000_000L;   // 10 ms
+    private static final long SLOW = 900_000_000L;  // 900 ms
+
+    @Test
+    void onBatch_shouldDouble_afterFastFullBatch() {
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(50, 10, 1000, 250);
+
+        sizer.onBatch(50, 50, FAST);
+        assertEquals(100, sizer.current());
+
+        sizer.onBatch(100, 100, FAST);
+        assertEquals(200, sizer.current());
+    }
+
+    @Test
+    void onBatch_shouldHalve_afterSlowBatch() {
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(400, 10, 1000, 250);
+
+        sizer.onBatch(400, 400, SLOW);
+        assertEquals(200, sizer.current());
+    }
+
+    @Test
+    void onBatch_shouldKeepSize_whenBatchWasNotFull() {
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(50, 10, 1000, 250);
+
+        sizer.onBatch(50, 20, FAST);
+        assertEquals(50, sizer.current());
+    }
+
+    @Test
+    void onBatch_shouldStayWithinBounds() {
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(600, 10, 1000, 250);
+
+        sizer.onBatch(600, 600, FAST);
+        assertEquals(1000, sizer.current());
+
+        for (int i = 0; i < 10; i++) {
+            sizer.onBatch(sizer.current(), 0, SLOW);
+        }
+        assertEquals(10, sizer.current());
+    }
+
+    @Test
+    void constructor_shouldRejectInvalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveBatchSizer(50, 0, 100, 250));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveBatchSizer(50, 100, 10, 250));
+    }
+}
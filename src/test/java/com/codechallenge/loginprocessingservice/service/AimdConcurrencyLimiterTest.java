@@ -0,0 +1,183 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AimdConcurrencyLimiterTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void call_shouldGrowLimitByOne_afterFastCallWhileLimitIsInUse() {
+        AimdConcurrencyLimiter limiter = limiter(1, 10, 60_000);
+
+        assertTrue(limiter.call(() -> true));
+        assertEquals(2, limiter.limit());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void call_shouldNotGrowLimit_whenMostOfItIsUnused() throws Exception {
+        AimdConcurrencyLimiter limiter = limiter(10, 10, 60_000);
+
+        assertTrue(limiter.callAsync(() -> CompletableFuture.completedFuture(true)).get(5, SECONDS));
+        assertEquals(10, limiter.limit());
+    }
+
+    @Test
+    void call_shouldShrinkLimit_afterDroppedOrSlowCall_butNotAfterClientError() {
+        AimdConcurrencyLimiter limiter = limiter(10, 10, 60_000);
+
+        assertThrows(HttpServerErrorException.class, () -> limiter.call(() -> {
+            throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+        }));
+        assertEquals(9, limiter.limit());
+
+        assertThrows(HttpClientErrorException.class, () -> limiter.call(() -> {
+            throw new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS);
+        }));
+        assertEquals(8, limiter.limit());
+
+        assertThrows(HttpClientErrorException.class, () -> limiter.call(() -> {
+            throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+        }));
+        assertEquals(8, limiter.limit(), "a 4xx says nothing about load");
+
+        AimdConcurrencyLimiter slow = new AimdConcurrencyLimiter(
+                10, 1, 100, 0.5, 0, 10, 60_000, scheduler, new SimpleMeterRegistry());
+        slow.call(() -> true);
+        assertEquals(5, slow.limit(), "slower than the latency threshold");
+    }
+
+    @Test
+    void callAsync_shouldShrinkLimitOnce_whenRequestsInFlightTogetherAreDropped() {
+        AimdConcurrencyLimiter limiter = limiter(10, 10, 60_000);
+        List<CompletableFuture<Boolean>> inFlight = new ArrayList<>();
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            CompletableFuture<Boolean> response = new CompletableFuture<>();
+            inFlight.add(response);
+            results.add(limiter.callAsync(() -> response));
+        }
+
+        inFlight.forEach(response ->
+                response.completeExceptionally(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE)));
+        results.forEach(result -> assertInstanceOf(HttpServerErrorException.class, failureOf(result)));
+        assertEquals(9, limiter.limit(), "one decrease for the whole window");
+
+        // a request sent after the decrease starts a new window
+        CompletableFuture<Boolean> later = limiter.callAsync(() ->
+                CompletableFuture.failedFuture(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE)));
+        assertInstanceOf(HttpServerErrorException.class, failureOf(later));
+        assertEquals(8, limiter.limit());
+    }
+
+    @Test
+    void callAsync_shouldQueueCallsOverLimit_andStartThemInOrderAsPermitsFree() throws Exception {
+        AimdConcurrencyLimiter limiter = limiter(1, 10, 60_000);
+        List<CompletableFuture<Boolean>> inFlight = new ArrayList<>();
+        List<Integer> started = new CopyOnWriteArrayList<>();
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            CompletableFuture<Boolean> response = new CompletableFuture<>();
+            inFlight.add(response);
+            int index = i;
+            results.add(limiter.callAsync(() -> {
+                started.add(index);
+                return response;
+            }));
+        }
+
+        assertEquals(List.of(0), started);
+        assertEquals(2, limiter.queued());
+
+        inFlight.get(0).complete(true);
+        // the limit grew to 2 after the fast call, so both waiters start
+        assertEquals(List.of(0, 1, 2), started);
+        assertEquals(0, limiter.queued());
+
+        inFlight.get(1).complete(true);
+        inFlight.get(2).complete(true);
+        for (CompletableFuture<Boolean> result : results) {
+            assertTrue(result.get(5, SECONDS));
+        }
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void callAsync_shouldReject_whenQueueIsFull_orWaitTimesOut() {
+        AimdConcurrencyLimiter limiter = limiter(1, 1, 100);
+        CompletableFuture<Boolean> response = new CompletableFuture<>();
+
+        limiter.callAsync(() -> response);
+        CompletableFuture<Boolean> queued = limiter.callAsync(() -> CompletableFuture.completedFuture(true));
+        CompletableFuture<Boolean> overflow = limiter.callAsync(() -> CompletableFuture.completedFuture(true));
+
+        assertInstanceOf(RejectedExecutionException.class, failureOf(overflow));
+        assertInstanceOf(RejectedExecutionException.class, failureOf(queued));
+        assertEquals(2.0, meterRegistry.get("customer.tracking.concurrency.rejected").counter().count());
+        assertEquals(1.0, meterRegistry.get("customer.tracking.concurrency.in-flight").gauge().value());
+
+        response.complete(true);
+        assertEquals(0.0, meterRegistry.get("customer.tracking.concurrency.in-flight").gauge().value());
+        assertEquals(2.0, meterRegistry.get("customer.tracking.concurrency.limit").gauge().value());
+    }
+
+    @Test
+    void call_shouldBlockCallerUntilPermitIsFree() throws Exception {
+        AimdConcurrencyLimiter limiter = limiter(1, 10, 60_000);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<Boolean> first = callers.submit(() -> limiter.call(() -> {
+                try {
+                    return release.await(5, SECONDS);
+                } catch (InterruptedException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }));
+            while (limiter.inFlight() == 0) {
+                Thread.onSpinWait();
+            }
+            Future<Boolean> second = callers.submit(() -> limiter.call(() -> true));
+            while (limiter.queued() == 0) {
+                Thread.onSpinWait();
+            }
+            assertFalse(second.isDone());
+
+            release.countDown();
+            assertTrue(first.get(5, SECONDS));
+            assertTrue(second.get(5, SECONDS));
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    private AimdConcurrencyLimiter limiter(int initialLimit, int maxQueue, long maxWaitMs) {
+        return new AimdConcurrencyLimiter(initialLimit, 1, 100, 0.9, 60_000, maxQueue, maxWaitMs, scheduler, meterRegistry);
+    }
+
+    private static Throwable failureOf(CompletableFuture<Boolean> future) {
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> future.get(5, SECONDS));
+        return ex.getCause();
+    }
+}
@@ -0,0 +1,73 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomMessageIdFilterTest {
+
+    @Test
+    void mightContain_shouldNeverMissAnInsertedId() {
+        BloomMessageIdFilter filter = new BloomMessageIdFilter(10_000, 0.01);
+
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            filter.put(id);
+        }
+
+        assertTrue(ids.stream().allMatch(filter::mightContain));
+    }
+
+    @Test
+    void falsePositiveRate_shouldStayNearConfiguredFpp_atCapacity() {
+        BloomMessageIdFilter filter = new BloomMessageIdFilter(20_000, 0.01);
+        for (int i = 0; i < 19_999; i++) {
+            filter.put(UUID.randomUUID());
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(UUID.randomUUID())) {
+                falsePositives++;
+            }
+        }
+
+        double observed = (double) falsePositives / probes;
+        assertTrue(observed < 0.02, "observed fpp " + observed);
+        assertEquals(0.01, filter.expectedFpp(), 0.005);
+    }
+
+    @Test
+    void put_shouldRotateGenerations_andKeepMemoryBounded() {
+        BloomMessageIdFilter filter = new BloomMessageIdFilter(1_000, 0.01);
+        long oneGeneration = filter.memoryBytes();
+
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            filter.put(id);
+        }
+
+        assertEquals(2 * oneGeneration, filter.memoryBytes());
+        assertTrue(filter.approximateEntries() <= 2_000);
+        // the latest generation is still remembered
+        assertTrue(ids.subList(4_000, 5_000).stream().allMatch(filter::mightContain));
+        // the oldest ids were dropped with their generation
+        long stillKnown = ids.subList(0, 1_000).stream().filter(filter::mightContain).count();
+        assertTrue(stillKnown < 100, "old ids still reported: " + stillKnown);
+    }
+
+    @Test
+    void constructor_shouldRejectInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomMessageIdFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomMessageIdFilter(1_000, 1.0));
+    }
+}
@@ -0,0 +1,77 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import com.codechallenge.loginprocessingservice.dto.CustomerLoginEvent;
+import com.codechallenge.loginprocessingservice.mapper.LoginTrackingResultMapper;
+import com.codechallenge.loginprocessingservice.model.LoginTrackingResultEntity;
+import com.codechallenge.loginprocessingservice.model.RequestResult;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CustomerLoginBatchConsumerTest {
+
+    private final LoginProcessingServiceImpl processingService = mock(LoginProcessingServiceImpl.class);
+    private final CustomerLoginBatchConsumer consumer =
+            new CustomerLoginBatchConsumer(processingService, new PartitionHandoverTracker());
+
+    @Test
+    void onBatch_whenBatchWriteFails_shouldReportIndexOfFailingRecord_withoutTrackingAgain() {
+        List<ConsumerRecord<String, CustomerLoginEvent>> records = List.of(record(0), record(1), record(2));
+        List<LoginTrackingResultEntity> tracked = tracked(records);
+        Acknowledgment ack = mock(Acknowledgment.class);
+        when(processingService.trackBatch(anyList(), anySet())).thenReturn(tracked);
+        when(processingService.writeTracked(tracked)).thenThrow(new DataIntegrityViolationException("value too long"));
+        when(processingService.writeTracked(List.of(tracked.get(1))))
+                .thenThrow(new DataIntegrityViolationException("value too long"));
+
+        BatchListenerFailedException ex =
+                assertThrows(BatchListenerFailedException.class, () -> consumer.onBatch(records, ack));
+
+        assertEquals(1, ex.getIndex());
+        assertInstanceOf(DataIntegrityViolationException.class, ex.getCause());
+        verify(processingService).trackBatch(anyList(), anySet());
+        verify(processingService).writeTracked(List.of(tracked.get(0)));
+        verify(processingService, never()).writeTracked(List.of(tracked.get(2)));
+        verify(processingService, never()).process(any(CustomerLoginEvent.class), anyBoolean());
+        verify(ack, never()).acknowledge();
+    }
+
+    @Test
+    void onBatch_whenBatchWriteFails_butEveryRowIsWrittenAlone_shouldAcknowledge() {
+        List<ConsumerRecord<String, CustomerLoginEvent>> records = List.of(record(0), record(1), record(2));
+        // the last record is a duplicate already in the database: nothing was tracked for it
+        List<LoginTrackingResultEntity> tracked = tracked(records.subList(0, 2));
+        Acknowledgment ack = mock(Acknowledgment.class);
+        when(processingService.trackBatch(anyList(), anySet())).thenReturn(tracked);
+        when(processingService.writeTracked(tracked)).thenThrow(new DataIntegrityViolationException("deadlock"));
+
+        consumer.onBatch(records, ack);
+
+        verify(processingService).writeTracked(List.of(tracked.get(0)));
+        verify(processingService).writeTracked(List.of(tracked.get(1)));
+        verify(processingService).trackBatch(anyList(), anySet());
+        verify(ack).acknowledge();
+    }
+
+    private static List<LoginTrackingResultEntity> tracked(List<ConsumerRecord<String, CustomerLoginEvent>> records) {
+        return records.stream()
+                .map(record -> LoginTrackingResultMapper.toEntity(record.value(), RequestResult.SUCCESSFUL))
+                .toList();
+    }
+
+    private static ConsumerRecord<String, CustomerLoginEvent> record(long offset) {
+        CustomerLoginEvent event =
+                new CustomerLoginEvent(UUID.randomUUID(), "Samira", "web", Instant.now(), UUID.randomUUID(), "10.0.0.1");
+        return new ConsumerRecord<>("customer-login", 0, offset, event.customerId().toString(), event);
+    }
+}
@@ -0,0 +1,281 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import com.codechallenge.loginprocessingservice.adapter.AsyncCustomerTrackingClient;
+import com.codechallenge.loginprocessingservice.adapter.CustomerTrackingClient;
+import com.codechallenge.loginprocessingservice.dto.CustomerLoginEvent;
+import com.codechallenge.loginprocessingservice.model.RequestResult;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CustomerTrackingServiceTest {
+
+    @Mock
+    private CustomerTrackingClient customerTrackingClient;
+    @Mock
+    private AsyncCustomerTrackingClient asyncCustomerTrackingClient;
+
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private RetryRegistry retryRegistry;
+    private CustomerTrackingService trackingService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        retryRegistry = RetryRegistry.of(RetryConfig.custom()
+                .maxAttempts(4)
+                .waitDuration(Duration.ofMillis(50))
+                .retryExceptions(RestClientException.class)
+                .ignoreExceptions(HttpClientErrorException.class)
+                .build());
+
+        trackingService = new CustomerTrackingService(
+                customerTrackingClient,
+                asyncCustomerTrackingClient,
+                TrackingCallCoalescer.NONE,
+                TrackingConcurrencyLimiter.NONE,
+                CircuitBreaker.ofDefaults("customerTracking-test"),
+                retryRegistry,
+                retryScheduler,
+                CustomerTrackingService.CLIENT_MODE_ASYNC
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        retryScheduler.shutdownNow();
+    }
+
+    @Test
+    void trackAsync_shouldReturnBeforeTheCallCompletes() throws Exception {
+        CustomerLoginEvent event = event();
+        CompletableFuture<Boolean> inFlight = new CompletableFuture<>();
+        when(asyncCustomerTrackingClient.notifyLoginAsync(event.customerId())).thenReturn(inFlight);
+
+        CompletableFuture<RequestResult> result = trackingService.trackAsync(event);
+
+        assertFalse(result.isDone());
+        inFlight.complete(true);
+        assertEquals(RequestResult.SUCCESSFUL, result.get(5, SECONDS));
+    }
+
+    @Test
+    void trackAsync_whenServerErrorThenSuccess_shouldRetryAndReturnSuccessful() throws Exception {
+        CustomerLoginEvent event = event();
+        when(asyncCustomerTrackingClient.notifyLoginAsync(event.customerId()))
+                .thenReturn(CompletableFuture.failedFuture(new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR)))
+                .thenReturn(CompletableFuture.failedFuture(new ResourceAccessException("reset", new IOException("reset"))))
+                .thenReturn(CompletableFuture.completedFuture(true));
+
+        RequestResult result = trackingService.trackAsync(event).get(5, SECONDS);
+
+        assertEquals(RequestResult.SUCCESSFUL, result);
+        verify(asyncCustomerTrackingClient, times(3)).notifyLoginAsync(event.customerId());
+        verifyNoInteractions(customerTrackingClient);
+    }
+
+    @Test
+    void trackAsync_whenClientError_shouldNotRetryAndReturnUnsuccessful() throws Exception {
+        CustomerLoginEvent event = event();
+        when(asyncCustomerTrackingClient.notifyLoginAsync(event.customerId()))
+                .thenReturn(CompletableFuture.failedFuture(new HttpClientErrorException(HttpStatus.UNAUTHORIZED)));
+
+        RequestResult result = trackingService.trackAsync(event).get(5, SECONDS);
+
+        assertEquals(RequestResult.UNSUCCESSFUL, result);
+        verify(asyncCustomerTrackingClient, times(1)).notifyLoginAsync(event.customerId());
+    }
+
+    @Test
+    void trackAsync_whenRetriesAreExhausted_shouldReturnUnsuccessful() throws Exception {
+        CustomerLoginEvent event = event();
+        when(asyncCustomerTrackingClient.notifyLoginAsync(event.customerId()))
+                .thenAnswer(inv -> CompletableFuture.failedFuture(new HttpServerErrorException(HttpStatus.BAD_GATEWAY)));
+
+        RequestResult result = trackingService.trackAsync(event).get(5, SECONDS);
+
+        assertEquals(RequestResult.UNSUCCESSFUL, result);
+        verify(asyncCustomerTrackingClient, times(4)).notifyLoginAsync(event.customerId());
+    }
+
+    @Test
+    void track_inAsyncMode_shouldUseAsyncClient() {
+        CustomerLoginEvent event = event();
+        when(asyncCustomerTrackingClient.notifyLoginAsync(event.customerId()))
+                .thenReturn(CompletableFuture.completedFuture(true));
+
+        assertEquals(RequestResult.SUCCESSFUL, trackingService.track(event));
+        verifyNoInteractions(customerTrackingClient);
+    }
+
+    @Test
+    void trackAsync_whenConcurrencyLimiterRejects_shouldReturnUnsuccessfulWithoutRetry() throws Exception {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(
+                1, 1, 1, 0.9, 60_000, 0, 60_000, retryScheduler, new SimpleMeterRegistry());
+        CustomerTrackingService limited = new CustomerTrackingService(
+                customerTrackingClient,
+                asyncCustomerTrackingClient,
+                TrackingCallCoalescer.NONE,
+                limiter,
+                CircuitBreaker.ofDefaults("customerTracking-test"),
+                retryRegistry,
+                retryScheduler,
+                CustomerTrackingService.CLIENT_MODE_ASYNC
+        );
+        CustomerLoginEvent holder = event();
+        CustomerLoginEvent rejected = event();
+        CompletableFuture<Boolean> inFlight = new CompletableFuture<>();
+        when(asyncCustomerTrackingClient.notifyLoginAsync(holder.customerId())).thenReturn(inFlight);
+
+        CompletableFuture<RequestResult> first = limited.trackAsync(holder);
+
+        assertEquals(RequestResult.UNSUCCESSFUL, limited.trackAsync(rejected).get(5, SECONDS));
+        verify(asyncCustomerTrackingClient, never()).notifyLoginAsync(rejected.customerId());
+
+        inFlight.complete(true);
+        assertEquals(RequestResult.SUCCESSFUL, first.get(5, SECONDS));
+    }
+
+    @Test
+    void trackAsync_whenCircuitOpens_shouldFailFastWithoutCallingClient_andCloseAfterSuccessfulProbe() throws Exception {
+        CircuitBreaker circuitBreaker = circuitBreaker();
+        CustomerTrackingService guarded = service(circuitBreaker, CustomerTrackingService.CLIENT_MODE_ASYNC);
+        CustomerLoginEvent first = event();
+        CustomerLoginEvent second = event();
+        when(asyncCustomerTrackingClient.notifyLoginAsync(any()))
+                .thenAnswer(inv -> CompletableFuture.failedFuture(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE)));
+
+        assertEquals(RequestResult.UNSUCCESSFUL, guarded.trackAsync(first).get(5, SECONDS));
+        // the breaker opened after two failed attempts, the remaining retries were not attempted
+        verify(asyncCustomerTrackingClient, times(2)).notifyLoginAsync(first.customerId());
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        assertEquals(RequestResult.UNSUCCESSFUL, guarded.trackAsync(second).get(5, SECONDS));
+        verify(asyncCustomerTrackingClient, never()).notifyLoginAsync(second.customerId());
+
+        when(asyncCustomerTrackingClient.notifyLoginAsync(any())).thenReturn(CompletableFuture.completedFuture(true));
+        Thread.sleep(300);
+
+        assertEquals(RequestResult.SUCCESSFUL, guarded.trackAsync(second).get(5, SECONDS));
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void track_whenCircuitIsOpen_shouldReturnUnsuccessfulWithoutCallingClient() {
+        CircuitBreaker circuitBreaker = circuitBreaker();
+        CustomerTrackingService guarded = service(circuitBreaker, CustomerTrackingService.CLIENT_MODE_BLOCKING);
+        CustomerLoginEvent event = event();
+        when(customerTrackingClient.notifyLogin(event.customerId()))
+                .thenThrow(new ResourceAccessException("refused", new IOException("refused")));
+
+        assertEquals(RequestResult.UNSUCCESSFUL, guarded.track(event));
+        verify(customerTrackingClient, times(2)).notifyLogin(event.customerId());
+
+        assertEquals(RequestResult.UNSUCCESSFUL, guarded.track(event));
+        verify(customerTrackingClient, times(2)).notifyLogin(event.customerId());
+    }
+
+    @Test
+    void trackOnceAsync_shouldMakeOneAttempt_andReportTransientFailuresAsPending() throws Exception {
+        CustomerLoginEvent down = event();
+        CustomerLoginEvent rejected = event();
+        CustomerLoginEvent ok = event();
+        when(asyncCustomerTrackingClient.notifyLoginAsync(down.customerId()))
+                .thenReturn(CompletableFuture.failedFuture(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE)));
+        when(asyncCustomerTrackingClient.notifyLoginAsync(rejected.customerId()))
+                .thenReturn(CompletableFuture.failedFuture(new HttpClientErrorException(HttpStatus.BAD_REQUEST)));
+        when(asyncCustomerTrackingClient.notifyLoginAsync(ok.customerId())).thenReturn(CompletableFuture.completedFuture(true));
+
+        assertEquals(RequestResult.PENDING, trackingService.trackOnceAsync(down).get(5, SECONDS));
+        assertEquals(RequestResult.UNSUCCESSFUL, trackingService.trackOnceAsync(rejected).get(5, SECONDS),
+                "a non-retryable error is final");
+        assertEquals(RequestResult.SUCCESSFUL, trackingService.trackOnceAsync(ok).get(5, SECONDS));
+        verify(asyncCustomerTrackingClient, times(1)).notifyLoginAsync(down.customerId());
+    }
+
+    @Test
+    void trackOnce_whenCircuitIsOpen_shouldReportPendingWithoutCallingClient() {
+        CircuitBreaker circuitBreaker = circuitBreaker();
+        CustomerTrackingService guarded = service(circuitBreaker, CustomerTrackingService.CLIENT_MODE_BLOCKING);
+        CustomerLoginEvent event = event();
+        when(customerTrackingClient.notifyLogin(event.customerId()))
+                .thenThrow(new ResourceAccessException("refused", new IOException("refused")));
+
+        assertEquals(RequestResult.PENDING, guarded.trackOnce(event));
+        assertEquals(RequestResult.PENDING, guarded.trackOnce(event));
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        assertEquals(RequestResult.PENDING, guarded.trackOnce(event));
+        verify(customerTrackingClient, times(2)).notifyLogin(event.customerId());
+    }
+
+    @Test
+    void attemptOnce_shouldTellRefusedCallsFromFailedOnes() {
+        CircuitBreaker circuitBreaker = circuitBreaker();
+        CustomerTrackingService guarded = service(circuitBreaker, CustomerTrackingService.CLIENT_MODE_BLOCKING);
+        CustomerLoginEvent event = event();
+        when(customerTrackingClient.notifyLogin(event.customerId()))
+                .thenThrow(new ResourceAccessException("refused", new IOException("refused")));
+
+        assertEquals(new CustomerTrackingService.TrackingAttempt(RequestResult.PENDING, true), guarded.attemptOnce(event));
+        assertEquals(new CustomerTrackingService.TrackingAttempt(RequestResult.PENDING, true), guarded.attemptOnce(event));
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        assertEquals(new CustomerTrackingService.TrackingAttempt(RequestResult.PENDING, false), guarded.attemptOnce(event));
+        verify(customerTrackingClient, times(2)).notifyLogin(event.customerId());
+    }
+
+    private CustomerTrackingService service(CircuitBreaker circuitBreaker, String clientMode) {
+        return new CustomerTrackingService(
+                customerTrackingClient,
+                asyncCustomerTrackingClient,
+                TrackingCallCoalescer.NONE,
+                TrackingConcurrencyLimiter.NONE,
+                circuitBreaker,
+                retryRegistry,
+                retryScheduler,
+                clientMode
+        );
+    }
+
+    private static CircuitBreaker circuitBreaker() {
+        return CircuitBreaker.of("customerTracking-test", CircuitBreakerConfig.custom()
+                .slidingWindowSize(2)
+                .minimumNumberOfCalls(2)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofMillis(200))
+                .permittedNumberOfCallsInHalfOpenState(1)
+                .recordExceptions(ResourceAccessException.class, HttpServerErrorException.class)
+                .build());
+    }
+
+    private static CustomerLoginEvent event() {
+        return new CustomerLoginEvent(UUID.randomUUID(), "Samira", "web", Instant.now(), UUID.randomUUID(), "10.0.0.1");
+    }
+}
@@ -0,0 +1,164 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class InFlightTrackingCallCoalescerTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void callAsync_shouldShareInFlightRequestOfSameCustomer_only() throws Exception {
+        InFlightTrackingCallCoalescer coalescer = new InFlightTrackingCallCoalescer(0, scheduler, meterRegistry);
+        UUID customerId = UUID.randomUUID();
+        CompletableFuture<Boolean> inFlight = new CompletableFuture<>();
+        AtomicInteger requests = new AtomicInteger();
+
+        CompletableFuture<Boolean> first = coalescer.callAsync(customerId, () -> {
+            requests.incrementAndGet();
+            return inFlight;
+        });
+        CompletableFuture<Boolean> second = coalescer.callAsync(customerId, () -> {
+            requests.incrementAndGet();
+            return CompletableFuture.completedFuture(true);
+        });
+        CompletableFuture<Boolean> other = coalescer.callAsync(UUID.randomUUID(), () -> {
+            requests.incrementAndGet();
+            return CompletableFuture.completedFuture(true);
+        });
+
+        assertTrue(other.get(5, SECONDS));
+        assertFalse(second.isDone());
+        inFlight.complete(true);
+
+        assertTrue(first.get(5, SECONDS));
+        assertTrue(second.get(5, SECONDS));
+        assertEquals(2, requests.get());
+        assertEquals(2.0, meterRegistry.get("customer.tracking.calls").tag("result", "sent").counter().count());
+        assertEquals(1.0, meterRegistry.get("customer.tracking.calls").tag("result", "coalesced").counter().count());
+    }
+
+    @Test
+    void callAsync_whenSharedRequestFails_shouldFailWaitersWithOriginalException_andNotReuseIt() throws Exception {
+        InFlightTrackingCallCoalescer coalescer = new InFlightTrackingCallCoalescer(60_000, scheduler, meterRegistry);
+        UUID customerId = UUID.randomUUID();
+        CompletableFuture<Boolean> inFlight = new CompletableFuture<>();
+
+        CompletableFuture<Boolean> first = coalescer.callAsync(customerId, () -> inFlight);
+        CompletableFuture<Boolean> second = coalescer.callAsync(customerId, () -> inFlight);
+        HttpServerErrorException error = new HttpServerErrorException(HttpStatus.BAD_GATEWAY);
+        inFlight.completeExceptionally(error);
+
+        for (CompletableFuture<Boolean> waiter : new CompletableFuture[]{first, second}) {
+            ExecutionException ex = assertThrows(ExecutionException.class, () -> waiter.get(5, SECONDS));
+            assertSame(error, ex.getCause());
+        }
+
+        assertTrue(coalescer.callAsync(customerId, () -> CompletableFuture.completedFuture(true)).get(5, SECONDS),
+                "a failure is not shared with later calls");
+    }
+
+    @Test
+    void call_withoutWindow_shouldNotReuseFinishedRequest() {
+        InFlightTrackingCallCoalescer coalescer = new InFlightTrackingCallCoalescer(0, scheduler, meterRegistry);
+        UUID customerId = UUID.randomUUID();
+        AtomicInteger requests = new AtomicInteger();
+
+        assertTrue(coalescer.call(customerId, () -> requests.incrementAndGet() > 0));
+        assertTrue(coalescer.call(customerId, () -> requests.incrementAndGet() > 0));
+
+        assertEquals(2, requests.get());
+        assertEquals(0.0, meterRegistry.get("customer.tracking.calls").tag("result", "coalesced").counter().count());
+    }
+
+    @Test
+    void call_shouldReuseSuccessWithinWindow_andSendAgainAfterIt() {
+        InFlightTrackingCallCoalescer coalescer = new InFlightTrackingCallCoalescer(200, scheduler, meterRegistry);
+        UUID customerId = UUID.randomUUID();
+        AtomicInteger requests = new AtomicInteger();
+
+        assertTrue(coalescer.call(customerId, () -> requests.incrementAndGet() > 0));
+        assertTrue(coalescer.call(customerId, () -> requests.incrementAndGet() > 0));
+        assertEquals(1, requests.get());
+
+        await().atMost(5, SECONDS).until(() -> {
+            coalescer.call(customerId, () -> requests.incrementAndGet() > 0);
+            return requests.get() == 2;
+        });
+    }
+
+    @Test
+    void call_whenRequestThrowsError_shouldForgetIt_andLetNextCallSend() {
+        InFlightTrackingCallCoalescer coalescer = new InFlightTrackingCallCoalescer(0, scheduler, meterRegistry);
+        UUID customerId = UUID.randomUUID();
+        StackOverflowError error = new StackOverflowError();
+
+        assertSame(error, assertThrows(StackOverflowError.class, () -> coalescer.call(customerId, () -> {
+            throw error;
+        })));
+
+        assertTrue(coalescer.call(customerId, () -> true), "the failed request is not left registered");
+    }
+
+    @Test
+    void call_shouldBlockConcurrentCallersOnOneRequest_andRethrowItsException() throws Exception {
+        InFlightTrackingCallCoalescer coalescer = new InFlightTrackingCallCoalescer(0, scheduler, meterRegistry);
+        UUID customerId = UUID.randomUUID();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger requests = new AtomicInteger();
+        HttpServerErrorException error = new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<Boolean> owner = callers.submit(() -> coalescer.call(customerId, () -> {
+                requests.incrementAndGet();
+                started.countDown();
+                awaitQuietly(release);
+                throw error;
+            }));
+            assertTrue(started.await(5, SECONDS));
+            Future<Boolean> waiter = callers.submit(() -> coalescer.call(customerId, () -> {
+                requests.incrementAndGet();
+                return true;
+            }));
+            await().atMost(5, SECONDS).until(() ->
+                    meterRegistry.get("customer.tracking.calls").tag("result", "coalesced").counter().count() == 1.0);
+            release.countDown();
+
+            for (Future<Boolean> caller : List.of(owner, waiter)) {
+                ExecutionException ex = assertThrows(ExecutionException.class, () -> caller.get(5, SECONDS));
+                assertSame(error, ex.getCause());
+            }
+            assertEquals(1, requests.get());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
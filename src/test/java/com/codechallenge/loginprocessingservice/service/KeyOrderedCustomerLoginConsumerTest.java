@@ -0,0 +1,71 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import com.codechallenge.loginprocessingservice.dto.CustomerLoginEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.mockito.Mockito.*;
+
+class KeyOrderedCustomerLoginConsumerTest {
+
+    private final LoginProcessingServiceImpl processingService = mock(LoginProcessingServiceImpl.class);
+    private final KeyOrderedExecutor executor =
+            new KeyOrderedExecutor(1, Thread.ofPlatform().factory(), new SimpleMeterRegistry());
+    private final KeyOrderedCustomerLoginConsumer consumer =
+            new KeyOrderedCustomerLoginConsumer(processingService, executor, new FixedBackOff(10, 2),
+                    new PartitionHandoverTracker());
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void onMessage_whenProcessingFailsTransiently_shouldRetryInLane_andAcknowledgeAfterSuccess() {
+        CustomerLoginEvent event = event();
+        Acknowledgment ack = mock(Acknowledgment.class);
+        when(processingService.process(event, true))
+                .thenThrow(new QueryTimeoutException("pool timeout"))
+                .thenReturn(null);
+
+        consumer.onMessage(event, "customer-login", 0, 0L, ack);
+
+        verify(ack, timeout(5_000)).acknowledge();
+        verify(processingService, times(2)).process(event, true);
+    }
+
+    @Test
+    void onMessage_whenAttemptsAreExhausted_shouldSkipRecord() {
+        CustomerLoginEvent event = event();
+        Acknowledgment ack = mock(Acknowledgment.class);
+        when(processingService.process(event, true)).thenThrow(new QueryTimeoutException("database down"));
+
+        consumer.onMessage(event, "customer-login", 0, 0L, ack);
+
+        verify(ack, timeout(5_000)).acknowledge();
+        verify(processingService, times(3)).process(event, true);
+    }
+
+    @Test
+    void onMessage_whenEventIsInvalid_shouldSkipWithoutRetry() {
+        CustomerLoginEvent event = event();
+        Acknowledgment ack = mock(Acknowledgment.class);
+        when(processingService.process(event, true)).thenThrow(new IllegalArgumentException("Unsupported client: FAX"));
+
+        consumer.onMessage(event, "customer-login", 0, 0L, ack);
+
+        verify(ack, timeout(5_000)).acknowledge();
+        verify(processingService, times(1)).process(event, true);
+    }
+
+    private static CustomerLoginEvent event() {
+        return new CustomerLoginEvent(UUID.randomUUID(), "Samira", "web", Instant.now(), UUID.randomUUID(), "10.0.0.1");
+    }
+}
@@ -0,0 +1,95 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyOrderedExecutorTest {
+
+    private final KeyOrderedExecutor executor =
+            new KeyOrderedExecutor(8, Executors.defaultThreadFactory(), new SimpleMeterRegistry());
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void execute_shouldKeepSubmissionOrderPerKey() throws Exception {
+        List<UUID> keys = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        Map<UUID, List<Integer>> seen = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(keys.size() * 100);
+
+        for (int i = 0; i < 100; i++) {
+            int sequence = i;
+            for (UUID key : keys) {
+                executor.execute(key, () -> {
+                    seen.computeIfAbsent(key, k -> Collections.synchronizedList(new ArrayList<>())).add(sequence);
+                    done.countDown();
+                });
+            }
+        }
+
+        assertTrue(done.await(10, SECONDS));
+        for (UUID key : keys) {
+            List<Integer> sequences = seen.get(key);
+            assertEquals(100, sequences.size());
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, sequences.get(i));
+            }
+        }
+    }
+
+    @Test
+    void execute_shouldRunDifferentLanesConcurrently() throws Exception {
+        Object first = 0;
+        Object second = 1;
+        assertNotEquals(executor.laneFor(first), executor.laneFor(second));
+
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Runnable blocking = () -> {
+            bothRunning.countDown();
+            try {
+                release.await(10, SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        executor.execute(first, blocking);
+        executor.execute(second, blocking);
+
+        assertTrue(bothRunning.await(5, SECONDS), "tasks on different lanes should not wait for each other");
+        assertEquals(2, executor.inFlight());
+
+        release.countDown();
+    }
+
+    @Test
+    void close_shouldFinishQueuedTasks() {
+        UUID key = UUID.randomUUID();
+        List<Integer> seen = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 50; i++) {
+            int sequence = i;
+            executor.execute(key, () -> seen.add(sequence));
+        }
+
+        executor.close();
+
+        assertEquals(50, seen.size());
+        assertEquals(0, executor.inFlight());
+    }
+}
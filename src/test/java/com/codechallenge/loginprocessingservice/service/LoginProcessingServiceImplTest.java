@@ -1,22 +1,32 @@
 package com.codechallenge.loginprocessingservice.service;
 
 import com.codechallenge.loginprocessingservice.dto.CustomerLoginEvent;
+import com.codechallenge.loginprocessingservice.adapter.AsyncCustomerTrackingClient;
 import com.codechallenge.loginprocessingservice.adapter.CustomerTrackingClient;
 import com.codechallenge.loginprocessingservice.model.*;
 import com.codechallenge.loginprocessingservice.repository.LoginTrackingResultRepository;
-import com.codechallenge.loginprocessingservice.repository.OutboxRepository;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.retry.Retry;
 import io.github.resilience4j.retry.RetryConfig;
 import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.web.client.RestClientException;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static com.codechallenge.loginprocessingservice.mapper.LoginTrackingResultMapper.toEntity;
 import static org.junit.jupiter.api.Assertions.*;
@@ -29,12 +39,13 @@ class LoginProcessingServiceImplTest {
     @Mock
     private LoginTrackingResultRepository resultRepository;
     @Mock
-    private OutboxRepository outboxRepository;
-    @Mock
     private IntegrationEventSerializer payloadSerializer;
     @Mock
+    private AsyncCustomerTrackingClient asyncCustomerTrackingClient;
+    @Mock
     private RetryRegistry retryRegistry;
 
+    CustomerTrackingService trackingService;
     LoginProcessingServiceImpl service;
 
     @BeforeEach
@@ -49,14 +60,33 @@ class LoginProcessingServiceImplTest {
 
         when(retryRegistry.retry("customerTracking")).thenReturn(testRetry);
 
-        service = new LoginProcessingServiceImpl(
+        trackingService = new CustomerTrackingService(
                 customerTrackingClient,
+                asyncCustomerTrackingClient,
+                TrackingCallCoalescer.NONE,
+                TrackingConcurrencyLimiter.NONE,
+                CircuitBreaker.ofDefaults("customerTracking-test"),
+                retryRegistry,
+                Executors.newSingleThreadScheduledExecutor(),
+                CustomerTrackingService.CLIENT_MODE_BLOCKING
+        );
+
+        LoginTrackingResultWriter resultWriter = new LoginTrackingResultWriter(
                 resultRepository,
-                outboxRepository,
                 payloadSerializer,
-                retryRegistry,
+                OutboxDirectPublisher.NONE,
                 "login-tracking-result"
         );
+
+        service = new LoginProcessingServiceImpl(
+                trackingService,
+                resultRepository,
+                resultWriter,
+                MessageIdFilter.ALWAYS_CHECK,
+                new SyncTaskExecutor(),
+                false,
+                new SimpleMeterRegistry()
+        );
     }
 
     @Test
@@ -99,7 +129,7 @@ class LoginProcessingServiceImplTest {
 
         when(customerTrackingClient.notifyLogin(customerId)).thenReturn(true);
 
-        when(resultRepository.insertIgnore(
+        when(resultRepository.insertIgnoreWithOutbox(
                 any(UUID.class),
                 eq(messageId),
                 eq(customerId),
@@ -107,28 +137,20 @@ class LoginProcessingServiceImplTest {
                 eq(Client.ANDROID.name()),
                 eq(ts),
                 eq("10.0.0.2"),
-                eq(RequestResult.SUCCESSFUL.name())
-        )).thenReturn(1);
+                eq(RequestResult.SUCCESSFUL.name()),
+                any(), any(), any(), any(), any(), any(),
+                anyLong()
+        )).thenReturn(Optional.of(outcome(saved.getId(), true)));
 
         byte[] payload = "{}".getBytes();
         when(payloadSerializer.serialize(any())).thenReturn(payload);
 
-        when(outboxRepository.insertIgnore(
-                any(UUID.class),
-                eq(AggregateType.LOGIN_TRACKING_RESULT.name()),
-                eq(saved.getId()),
-                eq(IntegrationEventType.LOGIN_TRACKING_RESULT_CREATED.name()),
-                eq("login-tracking-result"),
-                eq(customerId.toString()),
-                eq(payload)
-        )).thenReturn(1);
-
         var out = service.process(in);
 
         assertEquals(RequestResult.SUCCESSFUL, out.requestResult());
         verify(customerTrackingClient, times(1)).notifyLogin(customerId);
 
-        verify(resultRepository, times(1)).insertIgnore(
+        verify(resultRepository, times(1)).insertIgnoreWithOutbox(
                 any(UUID.class),
                 eq(messageId),
                 eq(customerId),
@@ -136,7 +158,14 @@ class LoginProcessingServiceImplTest {
                 eq(Client.ANDROID.name()),
                 eq(ts),
                 eq("10.0.0.2"),
-                eq(RequestResult.SUCCESSFUL.name())
+                eq(RequestResult.SUCCESSFUL.name()),
+                any(UUID.class),
+                eq(AggregateType.LOGIN_TRACKING_RESULT.name()),
+                eq(IntegrationEventType.LOGIN_TRACKING_RESULT_CREATED.name()),
+                eq("login-tracking-result"),
+                eq(customerId.toString()),
+                eq(payload),
+                anyLong()
         );
     }
 
@@ -163,13 +192,12 @@ class LoginProcessingServiceImplTest {
                 .thenThrow(new RestClientException("boom2"))
                 .thenReturn(true);
 
-        when(resultRepository.insertIgnore(any(), eq(messageId), eq(customerId),
-                eq("Samira"), eq(Client.IOS.name()), eq(ts), eq("10.0.0.3"), eq(RequestResult.SUCCESSFUL.name())))
-                .thenReturn(1);
+        when(resultRepository.insertIgnoreWithOutbox(any(), eq(messageId), eq(customerId),
+                eq("Samira"), eq(Client.IOS.name()), eq(ts), eq("10.0.0.3"), eq(RequestResult.SUCCESSFUL.name()),
+                any(), any(), any(), any(), any(), any(), anyLong()))
+                .thenReturn(Optional.of(outcome(saved.getId(), true)));
 
         when(payloadSerializer.serialize(any())).thenReturn("{}".getBytes());
-        when(outboxRepository.insertIgnore(any(), anyString(), any(), anyString(), anyString(), anyString(), any()))
-                .thenReturn(1);
 
         var out = service.process(in);
 
@@ -200,13 +228,12 @@ class LoginProcessingServiceImplTest {
                 .thenThrow(new RestClientException("fail2"))
                 .thenThrow(new RestClientException("fail3"));
 
-        when(resultRepository.insertIgnore(any(), eq(messageId), eq(customerId),
-                eq("davod"), eq(Client.WEB.name()), eq(ts), eq("10.0.0.4"), eq(RequestResult.UNSUCCESSFUL.name())))
-                .thenReturn(1);
+        when(resultRepository.insertIgnoreWithOutbox(any(), eq(messageId), eq(customerId),
+                eq("davod"), eq(Client.WEB.name()), eq(ts), eq("10.0.0.4"), eq(RequestResult.UNSUCCESSFUL.name()),
+                any(), any(), any(), any(), any(), any(), anyLong()))
+                .thenReturn(Optional.of(outcome(saved.getId(), true)));
 
         when(payloadSerializer.serialize(any())).thenReturn("{}".getBytes());
-        when(outboxRepository.insertIgnore(any(), anyString(), any(), anyString(), anyString(), anyString(), any()))
-                .thenReturn(1);
 
         var out = service.process(in);
 
@@ -231,7 +258,7 @@ class LoginProcessingServiceImplTest {
 
         when(customerTrackingClient.notifyLogin(customerId)).thenReturn(true);
 
-        when(resultRepository.insertIgnore(
+        when(resultRepository.insertIgnoreWithOutbox(
                 any(UUID.class),
                 eq(messageId),
                 eq(customerId),
@@ -239,29 +266,21 @@ class LoginProcessingServiceImplTest {
                 eq(Client.WEB.name()),
                 eq(ts),
                 eq("10.0.0.1"),
-                eq(RequestResult.SUCCESSFUL.name())
-        )).thenReturn(0);
+                eq(RequestResult.SUCCESSFUL.name()),
+                any(), any(), any(), any(), any(), any(),
+                anyLong()
+        )).thenReturn(Optional.of(outcome(existing.getId(), false)));
 
         byte[] payload = "{}".getBytes();
         when(payloadSerializer.serialize(any())).thenReturn(payload);
 
-        when(outboxRepository.insertIgnore(
-                any(UUID.class),
-                eq(AggregateType.LOGIN_TRACKING_RESULT.name()),
-                eq(existing.getId()),
-                eq(IntegrationEventType.LOGIN_TRACKING_RESULT_CREATED.name()),
-                eq("login-tracking-result"),
-                eq(customerId.toString()),
-                eq(payload)
-        )).thenReturn(0);
-
         var out = service.process(in);
 
         assertEquals(messageId, out.messageId());
         assertEquals(RequestResult.SUCCESSFUL, out.requestResult());
 
         verify(resultRepository, never()).save(any());
-        verify(resultRepository, times(1)).insertIgnore(
+        verify(resultRepository, times(1)).insertIgnoreWithOutbox(
                 any(UUID.class),
                 eq(messageId),
                 eq(customerId),
@@ -269,7 +288,14 @@ class LoginProcessingServiceImplTest {
                 eq(Client.WEB.name()),
                 eq(ts),
                 eq("10.0.0.1"),
-                eq(RequestResult.SUCCESSFUL.name())
+                eq(RequestResult.SUCCESSFUL.name()),
+                any(UUID.class),
+                eq(AggregateType.LOGIN_TRACKING_RESULT.name()),
+                eq(IntegrationEventType.LOGIN_TRACKING_RESULT_CREATED.name()),
+                eq("login-tracking-result"),
+                eq(customerId.toString()),
+                eq(payload),
+                anyLong()
         );
         verify(resultRepository, times(2)).findByMessageId(messageId);
     }
@@ -313,7 +339,7 @@ class LoginProcessingServiceImplTest {
 
         when(customerTrackingClient.notifyLogin(customerId)).thenReturn(true);
 
-        when(resultRepository.insertIgnore(
+        when(resultRepository.insertIgnoreWithOutbox(
                 any(UUID.class),
                 eq(messageId),
                 eq(customerId),
@@ -321,22 +347,14 @@ class LoginProcessingServiceImplTest {
                 eq(Client.ANDROID.name()),
                 eq(ts),
                 eq("10.0.0.2"),
-                eq(RequestResult.SUCCESSFUL.name())
-        )).thenReturn(1);
+                eq(RequestResult.SUCCESSFUL.name()),
+                any(), any(), any(), any(), any(), any(),
+                anyLong()
+        )).thenReturn(Optional.of(outcome(savedId, true)));
 
         byte[] payload = "{}".getBytes();
         when(payloadSerializer.serialize(any())).thenReturn(payload);
 
-        when(outboxRepository.insertIgnore(
-                any(UUID.class),
-                eq(AggregateType.LOGIN_TRACKING_RESULT.name()),
-                eq(savedId),
-                eq(IntegrationEventType.LOGIN_TRACKING_RESULT_CREATED.name()),
-                eq("login-tracking-result"),
-                eq(customerId.toString()),
-                eq(payload)
-        )).thenReturn(0);
-
         assertDoesNotThrow(() -> {
             var out = service.process(in);
             assertEquals(RequestResult.SUCCESSFUL, out.requestResult());
@@ -344,9 +362,8 @@ class LoginProcessingServiceImplTest {
         });
 
         verify(resultRepository, never()).save(any());
-        verify(outboxRepository, never()).save(any());
 
-        verify(resultRepository, times(1)).insertIgnore(
+        verify(resultRepository, times(1)).insertIgnoreWithOutbox(
                 any(UUID.class),
                 eq(messageId),
                 eq(customerId),
@@ -354,17 +371,14 @@ class LoginProcessingServiceImplTest {
                 eq(Client.ANDROID.name()),
                 eq(ts),
                 eq("10.0.0.2"),
-                eq(RequestResult.SUCCESSFUL.name())
-        );
-
-        verify(outboxRepository, times(1)).insertIgnore(
+                eq(RequestResult.SUCCESSFUL.name()),
                 any(UUID.class),
                 eq(AggregateType.LOGIN_TRACKING_RESULT.name()),
-                eq(savedId),
                 eq(IntegrationEventType.LOGIN_TRACKING_RESULT_CREATED.name()),
                 eq("login-tracking-result"),
                 eq(customerId.toString()),
-                eq(payload)
+                eq(payload),
+                anyLong()
         );
     }
 
@@ -395,7 +409,7 @@ class LoginProcessingServiceImplTest {
                 .thenThrow(new RestClientException("fail2"))
                 .thenThrow(new RestClientException("fail3"));
 
-        when(resultRepository.insertIgnore(
+        when(resultRepository.insertIgnoreWithOutbox(
                 any(UUID.class),
                 eq(messageId),
                 eq(customerId),
@@ -403,31 +417,22 @@ class LoginProcessingServiceImplTest {
                 eq(Client.IOS.name()),
                 eq(ts),
                 eq("10.0.0.3"),
-                eq(RequestResult.UNSUCCESSFUL.name())
-        )).thenReturn(1);
+                eq(RequestResult.UNSUCCESSFUL.name()),
+                any(), any(), any(), any(), any(), any(),
+                anyLong()
+        )).thenReturn(Optional.of(outcome(savedId, true)));
 
         byte[] payload = "{}".getBytes();
         when(payloadSerializer.serialize(any())).thenReturn(payload);
 
-        when(outboxRepository.insertIgnore(
-                any(UUID.class),
-                eq(AggregateType.LOGIN_TRACKING_RESULT.name()),
-                eq(savedId),
-                eq(IntegrationEventType.LOGIN_TRACKING_RESULT_CREATED.name()),
-                eq("login-tracking-result"),
-                eq(customerId.toString()),
-                eq(payload)
-        )).thenReturn(1);
-
         var out = service.process(in);
 
         assertEquals(RequestResult.UNSUCCESSFUL, out.requestResult());
         verify(customerTrackingClient, times(3)).notifyLogin(customerId);
 
         verify(resultRepository, never()).save(any());
-        verify(outboxRepository, never()).save(any());
 
-        verify(resultRepository, times(1)).insertIgnore(
+        verify(resultRepository, times(1)).insertIgnoreWithOutbox(
                 any(UUID.class),
                 eq(messageId),
                 eq(customerId),
@@ -435,21 +440,339 @@ class LoginProcessingServiceImplTest {
                 eq(Client.IOS.name()),
                 eq(ts),
                 eq("10.0.0.3"),
-                eq(RequestResult.UNSUCCESSFUL.name())
-        );
-
-        verify(outboxRepository, times(1)).insertIgnore(
+                eq(RequestResult.UNSUCCESSFUL.name()),
                 any(UUID.class),
                 eq(AggregateType.LOGIN_TRACKING_RESULT.name()),
-                eq(savedId),
                 eq(IntegrationEventType.LOGIN_TRACKING_RESULT_CREATED.name()),
                 eq("login-tracking-result"),
                 eq(customerId.toString()),
-                eq(payload)
+                eq(payload),
+                anyLong()
         );
 
-        verify(resultRepository, times(2)).findByMessageId(messageId);
+        verify(resultRepository, times(1)).findByMessageId(messageId);
     }
 
+    @Test
+    void processBatch_shouldSkipExistingAndDuplicateMessages_andWriteRemainingWithSetBasedInserts() {
+        UUID existingMessageId = UUID.randomUUID();
+        UUID newMessageId = UUID.randomUUID();
+        UUID customerId = UUID.randomUUID();
+        Instant ts = Instant.now();
+
+        CustomerLoginEvent existing = new CustomerLoginEvent(customerId, "u1", "web", ts, existingMessageId, "10.0.0.1");
+        CustomerLoginEvent fresh = new CustomerLoginEvent(customerId, "u2", "ios", ts, newMessageId, "10.0.0.2");
 
-}
\ No newline at end of file
+        when(resultRepository.findExistingMessageIds(any())).thenReturn(List.of(existingMessageId));
+        when(customerTrackingClient.notifyLogin(customerId)).thenReturn(true);
+        when(resultRepository.insertIgnoreAllWithOutbox(any(), any(), any(), any(), any(), any(), any(), any(),
+                any(), any(), any(), any(), any(), any(), anyLong()))
+                .thenAnswer(inv -> List.of(((UUID[]) inv.getArgument(0))[0]));
+        when(payloadSerializer.serialize(any())).thenReturn("{}".getBytes());
+
+        var out = service.processBatch(List.of(existing, fresh, fresh));
+
+        assertEquals(1, out.size());
+        assertEquals(newMessageId, out.get(0).messageId());
+        assertEquals(RequestResult.SUCCESSFUL, out.get(0).requestResult());
+
+        verify(customerTrackingClient, times(1)).notifyLogin(customerId);
+        verify(resultRepository, times(1)).findExistingMessageIds(any());
+        verify(resultRepository, times(1)).insertIgnoreAllWithOutbox(
+                argThat(ids -> ids.length == 1),
+                argThat(messageIds -> messageIds.length == 1 && messageIds[0].equals(newMessageId)),
+                any(), any(),
+                argThat(clients -> clients[0].equals(Client.IOS.name())),
+                any(), any(), any(),
+                argThat(outboxIds -> outboxIds.length == 1),
+                eq(AggregateType.LOGIN_TRACKING_RESULT.name()),
+                eq(IntegrationEventType.LOGIN_TRACKING_RESULT_CREATED.name()),
+                eq("login-tracking-result"),
+                argThat(keys -> keys[0].equals(customerId.toString())),
+                any(),
+                anyLong()
+        );
+        verify(resultRepository, never()).findByMessageId(any());
+    }
+
+    @Test
+    void processBatch_whenEveryMessageIsKnown_shouldNotCallRestNorWrite() {
+        UUID messageId = UUID.randomUUID();
+        CustomerLoginEvent in = new CustomerLoginEvent(UUID.randomUUID(), "u", "web", Instant.now(), messageId, "10.0.0.1");
+
+        when(resultRepository.findExistingMessageIds(any())).thenReturn(List.of(messageId));
+
+        var out = service.processBatch(List.of(in));
+
+        assertTrue(out.isEmpty());
+        verifyNoInteractions(customerTrackingClient);
+        verify(resultRepository, never()).insertIgnoreAllWithOutbox(any(), any(), any(), any(), any(), any(), any(), any(),
+                any(), any(), any(), any(), any(), any(), anyLong());
+    }
+
+    @Test
+    void processBatch_onVirtualThreadExecutor_shouldIssueTrackingCallsConcurrently() {
+        var virtualExecutor = new SimpleAsyncTaskExecutor("tracking-test-");
+        virtualExecutor.setVirtualThreads(true);
+        virtualExecutor.setConcurrencyLimit(8);
+
+        LoginProcessingServiceImpl concurrentService = new LoginProcessingServiceImpl(
+                trackingService,
+                resultRepository,
+                new LoginTrackingResultWriter(resultRepository, payloadSerializer, OutboxDirectPublisher.NONE, "login-tracking-result"),
+                MessageIdFilter.ALWAYS_CHECK,
+                virtualExecutor,
+                false,
+                new SimpleMeterRegistry()
+        );
+
+        List<CustomerLoginEvent> batch = List.of(
+                new CustomerLoginEvent(UUID.randomUUID(), "u1", "web", Instant.now(), UUID.randomUUID(), "10.0.0.1"),
+                new CustomerLoginEvent(UUID.randomUUID(), "u2", "ios", Instant.now(), UUID.randomUUID(), "10.0.0.2"),
+                new CustomerLoginEvent(UUID.randomUUID(), "u3", "android", Instant.now(), UUID.randomUUID(), "10.0.0.3")
+        );
+
+        // every call waits until all three are in flight; run one after another they would time out
+        CountDownLatch allInFlight = new CountDownLatch(batch.size());
+        when(customerTrackingClient.notifyLogin(any())).thenAnswer(inv -> {
+            allInFlight.countDown();
+            return allInFlight.await(5, TimeUnit.SECONDS);
+        });
+        when(resultRepository.findExistingMessageIds(any())).thenReturn(List.of());
+        when(resultRepository.insertIgnoreAllWithOutbox(any(), any(), any(), any(), any(), any(), any(), any(),
+                any(), any(), any(), any(), any(), any(), anyLong()))
+                .thenAnswer(inv -> List.of((UUID[]) inv.getArgument(0)));
+        when(payloadSerializer.serialize(any())).thenReturn("{}".getBytes());
+
+        var out = concurrentService.processBatch(batch);
+
+        assertEquals(3, out.size());
+        assertTrue(out.stream().allMatch(e -> e.requestResult() == RequestResult.SUCCESSFUL));
+        assertEquals(
+                batch.stream().map(CustomerLoginEvent::messageId).toList(),
+                out.stream().map(e -> e.messageId()).toList()
+        );
+
+        virtualExecutor.close();
+    }
+
+    @Test
+    void process_withBloomFilter_shouldSkipDedupReadForNewMessage_andCheckDatabaseOnRedelivery() {
+        LoginProcessingServiceImpl filteredService = new LoginProcessingServiceImpl(
+                trackingService,
+                resultRepository,
+                new LoginTrackingResultWriter(resultRepository, payloadSerializer, OutboxDirectPublisher.NONE, "login-tracking-result"),
+                new BloomMessageIdFilter(1_000, 0.01),
+                new SyncTaskExecutor(),
+                false,
+                new SimpleMeterRegistry()
+        );
+
+        UUID customerId = UUID.randomUUID();
+        UUID messageId = UUID.randomUUID();
+        CustomerLoginEvent in = new CustomerLoginEvent(customerId, "Samira", "web", Instant.now(), messageId, "10.0.0.1");
+
+        LoginTrackingResultEntity saved = toEntity(in, RequestResult.SUCCESSFUL);
+        saved.setId(UUID.randomUUID());
+
+        when(customerTrackingClient.notifyLogin(customerId)).thenReturn(true);
+        when(resultRepository.insertIgnoreWithOutbox(any(), eq(messageId), any(), any(), any(), any(), any(), any(),
+                any(), any(), any(), any(), any(), any(), anyLong()))
+                .thenReturn(Optional.of(outcome(saved.getId(), true)));
+        when(payloadSerializer.serialize(any())).thenReturn("{}".getBytes());
+        when(resultRepository.findByMessageId(messageId)).thenReturn(Optional.of(saved));
+
+        filteredService.process(in);
+        verify(resultRepository, never()).findByMessageId(messageId);
+
+        var redelivered = filteredService.process(in);
+        assertEquals(messageId, redelivered.messageId());
+        verify(resultRepository, times(1)).findByMessageId(messageId);
+        verify(customerTrackingClient, times(1)).notifyLogin(customerId);
+    }
+
+    @Test
+    void process_withBloomFilter_shouldCheckDatabase_whenAnotherReplicaMayHaveProcessedTheRecord() {
+        LoginProcessingServiceImpl filteredService = new LoginProcessingServiceImpl(
+                trackingService,
+                resultRepository,
+                new LoginTrackingResultWriter(resultRepository, payloadSerializer, OutboxDirectPublisher.NONE, "login-tracking-result"),
+                new BloomMessageIdFilter(1_000, 0.01),
+                new SyncTaskExecutor(),
+                false,
+                new SimpleMeterRegistry()
+        );
+
+        UUID customerId = UUID.randomUUID();
+        UUID messageId = UUID.randomUUID();
+        CustomerLoginEvent in = new CustomerLoginEvent(customerId, "Samira", "web", Instant.now(), messageId, "10.0.0.1");
+        LoginTrackingResultEntity processedElsewhere = toEntity(in, RequestResult.SUCCESSFUL);
+        processedElsewhere.setId(UUID.randomUUID());
+        when(resultRepository.findByMessageId(messageId)).thenReturn(Optional.of(processedElsewhere));
+
+        var out = filteredService.process(in, true);
+
+        assertEquals(messageId, out.messageId());
+        verify(resultRepository, times(1)).findByMessageId(messageId);
+        verify(customerTrackingClient, never()).notifyLogin(any());
+    }
+
+    @Test
+    void processBatch_withBloomFilter_shouldNotQueryExistingIds_whenNoMessageWasSeen() {
+        LoginProcessingServiceImpl filteredService = new LoginProcessingServiceImpl(
+                trackingService,
+                resultRepository,
+                new LoginTrackingResultWriter(resultRepository, payloadSerializer, OutboxDirectPublisher.NONE, "login-tracking-result"),
+                new BloomMessageIdFilter(1_000, 0.01),
+                new SyncTaskExecutor(),
+                false,
+                new SimpleMeterRegistry()
+        );
+
+        List<CustomerLoginEvent> batch = List.of(
+                new CustomerLoginEvent(UUID.randomUUID(), "u1", "web", Instant.now(), UUID.randomUUID(), "10.0.0.1"),
+                new CustomerLoginEvent(UUID.randomUUID(), "u2", "ios", Instant.now(), UUID.randomUUID(), "10.0.0.2")
+        );
+
+        when(customerTrackingClient.notifyLogin(any())).thenReturn(true);
+        when(resultRepository.insertIgnoreAllWithOutbox(any(), any(), any(), any(), any(), any(), any(), any(),
+                any(), any(), any(), any(), any(), any(), anyLong()))
+                .thenAnswer(inv -> List.of((UUID[]) inv.getArgument(0)));
+        when(payloadSerializer.serialize(any())).thenReturn("{}".getBytes());
+
+        assertEquals(2, filteredService.processBatch(batch).size());
+        verify(resultRepository, never()).findExistingMessageIds(any());
+
+        when(resultRepository.findExistingMessageIds(any()))
+                .thenReturn(batch.stream().map(CustomerLoginEvent::messageId).toList());
+
+        assertTrue(filteredService.processBatch(batch).isEmpty());
+        verify(resultRepository, times(1)).findExistingMessageIds(any());
+    }
+
+    @Test
+    void processBatch_withBloomFilter_shouldNotCountHandedOverRecordsAsFalsePositives() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        LoginProcessingServiceImpl filteredService = new LoginProcessingServiceImpl(
+                trackingService,
+                resultRepository,
+                new LoginTrackingResultWriter(resultRepository, payloadSerializer, OutboxDirectPublisher.NONE, "login-tracking-result"),
+                new BloomMessageIdFilter(1_000, 0.01),
+                new SyncTaskExecutor(),
+                false,
+                meterRegistry
+        );
+
+        List<CustomerLoginEvent> batch = List.of(
+                new CustomerLoginEvent(UUID.randomUUID(), "u1", "web", Instant.now(), UUID.randomUUID(), "10.0.0.1"),
+                new CustomerLoginEvent(UUID.randomUUID(), "u2", "ios", Instant.now(), UUID.randomUUID(), "10.0.0.2")
+        );
+        Set<UUID> handedOver = batch.stream().map(CustomerLoginEvent::messageId).collect(Collectors.toSet());
+
+        when(customerTrackingClient.notifyLogin(any())).thenReturn(true);
+        when(resultRepository.findExistingMessageIds(any())).thenReturn(List.of());
+        when(resultRepository.insertIgnoreAllWithOutbox(any(), any(), any(), any(), any(), any(), any(), any(),
+                any(), any(), any(), any(), any(), any(), anyLong()))
+                .thenAnswer(inv -> List.of((UUID[]) inv.getArgument(0)));
+        when(payloadSerializer.serialize(any())).thenReturn("{}".getBytes());
+
+        assertEquals(2, filteredService.processBatch(batch, handedOver).size());
+
+        verify(resultRepository, times(1)).findExistingMessageIds(any());
+        assertEquals(0, lookups(meterRegistry, "false-positive"));
+        assertEquals(2, lookups(meterRegistry, "definitely-new"));
+        assertEquals(0.0, meterRegistry.get("login.processing.dedup.filter.false-positive-rate").gauge().value());
+    }
+
+    private static double lookups(SimpleMeterRegistry meterRegistry, String result) {
+        return meterRegistry.get("login.processing.dedup.filter.lookups").tag("result", result).counter().count();
+    }
+
+    @Test
+    void process_withDirectPublisher_shouldDelayOutboxClaim_andHandOverOnlyNewRows() {
+        OutboxDirectPublisher directPublisher = mock(OutboxDirectPublisher.class);
+        when(directPublisher.claimDelayMs()).thenReturn(10_000L);
+        LoginProcessingServiceImpl directService = new LoginProcessingServiceImpl(
+                trackingService,
+                resultRepository,
+                new LoginTrackingResultWriter(resultRepository, payloadSerializer, directPublisher, "login-tracking-result"),
+                MessageIdFilter.ALWAYS_CHECK,
+                new SyncTaskExecutor(),
+                false,
+                new SimpleMeterRegistry()
+        );
+
+        UUID customerId = UUID.randomUUID();
+        UUID messageId = UUID.randomUUID();
+        CustomerLoginEvent in = new CustomerLoginEvent(customerId, "Samira", "web", Instant.now(), messageId, "10.0.0.1");
+        LoginTrackingResultEntity saved = toEntity(in, RequestResult.SUCCESSFUL);
+        saved.setId(UUID.randomUUID());
+
+        byte[] payload = "{}".getBytes();
+        when(customerTrackingClient.notifyLogin(customerId)).thenReturn(true);
+        when(payloadSerializer.serialize(any())).thenReturn(payload);
+        when(resultRepository.findByMessageId(messageId)).thenReturn(Optional.empty(), Optional.empty(), Optional.of(saved));
+        when(resultRepository.insertIgnoreWithOutbox(any(), eq(messageId), any(), any(), any(), any(), any(), any(),
+                any(), any(), any(), any(), any(), any(), eq(10_000L)))
+                .thenReturn(Optional.of(outcome(saved.getId(), true)), Optional.of(outcome(saved.getId(), false)));
+
+        directService.process(in);
+
+        ArgumentCaptor<List<OutboxDirectPublisher.Pending>> handedOver = ArgumentCaptor.captor();
+        verify(directPublisher, times(1)).publishAfterCommit(handedOver.capture());
+        assertEquals(1, handedOver.getValue().size());
+        OutboxDirectPublisher.Pending pending = handedOver.getValue().get(0);
+        assertEquals("login-tracking-result", pending.topic());
+        assertEquals(customerId.toString(), pending.key());
+        assertSame(payload, pending.payload());
+
+        // a concurrent duplicate that lost the insert already has its outbox row; nothing to send
+        directService.process(in);
+        verify(directPublisher, times(1)).publishAfterCommit(any());
+    }
+
+    @Test
+    void process_withDeferredTracking_shouldNotRetry_andStorePendingWithoutPublishing() {
+        OutboxDirectPublisher directPublisher = mock(OutboxDirectPublisher.class);
+        LoginProcessingServiceImpl deferredService = new LoginProcessingServiceImpl(
+                trackingService,
+                resultRepository,
+                new LoginTrackingResultWriter(resultRepository, payloadSerializer, directPublisher, "login-tracking-result"),
+                MessageIdFilter.ALWAYS_CHECK,
+                new SyncTaskExecutor(),
+                true,
+                new SimpleMeterRegistry()
+        );
+
+        UUID customerId = UUID.randomUUID();
+        UUID messageId = UUID.randomUUID();
+        CustomerLoginEvent in = new CustomerLoginEvent(customerId, "Samira", "web", Instant.now(), messageId, "10.0.0.1");
+
+        when(customerTrackingClient.notifyLogin(customerId)).thenThrow(new RestClientException("Service unavailable"));
+        when(payloadSerializer.serialize(any())).thenReturn("{}".getBytes());
+        when(resultRepository.findByMessageId(messageId)).thenReturn(Optional.empty());
+        when(resultRepository.insertIgnoreWithOutbox(any(), eq(messageId), any(), any(), any(), any(), any(),
+                eq(RequestResult.PENDING.name()), any(), any(), any(), any(), any(), any(), anyLong()))
+                .thenReturn(Optional.of(outcome(UUID.randomUUID(), true)));
+
+        var out = deferredService.process(in);
+
+        assertEquals(RequestResult.PENDING, out.requestResult());
+        verify(customerTrackingClient, times(1)).notifyLogin(customerId);
+        verify(directPublisher, never()).publishAfterCommit(any());
+    }
+
+    private static LoginTrackingResultRepository.InsertOutcome outcome(UUID id, boolean inserted) {
+        return new LoginTrackingResultRepository.InsertOutcome() {
+            @Override
+            public UUID getId() {
+                return id;
+            }
+
+            @Override
+            public boolean isInserted() {
+                return inserted;
+            }
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionHandoverTrackerTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("customer-login", 0);
+
+    private final PartitionHandoverTracker tracker = new PartitionHandoverTracker();
+
+    @Test
+    void mayBeRedelivery_shouldFlagRecordsThatWereInTheLogBeforeAssignment_only() {
+        MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.updateEndOffsets(Map.of(PARTITION, 42L));
+
+        tracker.onPartitionsAssigned(consumer, List.of(PARTITION));
+
+        assertTrue(tracker.mayBeRedelivery("customer-login", 0, 41));
+        assertFalse(tracker.mayBeRedelivery("customer-login", 0, 42));
+    }
+
+    @Test
+    void mayBeRedelivery_shouldFlagEveryRecord_whenPartitionIsNotKnownToBeAssigned() {
+        MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.updateEndOffsets(Map.of(PARTITION, 42L));
+        tracker.onPartitionsAssigned(consumer, List.of(PARTITION));
+
+        tracker.onPartitionsLost(consumer, List.of(PARTITION));
+
+        assertTrue(tracker.mayBeRedelivery("customer-login", 0, 1_000));
+        assertTrue(tracker.mayBeRedelivery("customer-login", 1, 1_000));
+    }
+}
@@ -0,0 +1,115 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import com.codechallenge.loginprocessingservice.service.PgOutputDecoder.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PgOutputDecoderTest {
+
+    // 2026-10-17T10:00:00.123456Z in microseconds since 2000-01-01
+    private static final long PG_MICROS = 845_546_400_123_456L;
+    private static final Instant TIME = Instant.parse("2026-10-17T10:00:00.123456Z");
+
+    @Test
+    void decode_shouldReadBeginAndCommit() throws IOException {
+        PgOutputDecoder decoder = new PgOutputDecoder();
+
+        Begin begin = (Begin) decoder.decode(message(out -> {
+            out.writeByte('B');
+            out.writeLong(0x16B3748L);
+            out.writeLong(PG_MICROS);
+            out.writeInt(742);
+        }));
+        assertEquals(new Begin(0x16B3748L, TIME, 742), begin);
+
+        Commit commit = (Commit) decoder.decode(message(out -> {
+            out.writeByte('C');
+            out.writeByte(0);
+            out.writeLong(0x16B3748L);
+            out.writeLong(0x16B3780L);
+            out.writeLong(PG_MICROS);
+        }));
+        assertEquals(new Commit(0x16B3748L, 0x16B3780L, TIME), commit);
+    }
+
+    @Test
+    void decode_shouldResolveInsertColumnsThroughCachedRelation() throws IOException {
+        PgOutputDecoder decoder = new PgOutputDecoder();
+
+        Relation relation = (Relation) decoder.decode(message(out -> {
+            out.writeByte('R');
+            out.writeInt(16_401);
+            cstring(out, "login_processing");
+            cstring(out, "outbox_event");
+            out.writeByte('d');
+            out.writeShort(3);
+            for (String column : List.of("id", "key", "payload")) {
+                out.writeByte(0);
+                cstring(out, column);
+                out.writeInt(25);
+                out.writeInt(-1);
+            }
+        }));
+        assertEquals(List.of("id", "key", "payload"), relation.columns());
+
+        Insert insert = (Insert) decoder.decode(message(out -> {
+            out.writeByte('I');
+            out.writeInt(16_401);
+            out.writeByte('N');
+            out.writeShort(3);
+            out.writeByte('n');
+            text(out, "customer-1");
+            text(out, "\\x7b7d");
+        }));
+
+        assertEquals("outbox_event", insert.relation().name());
+        assertNull(insert.value("id"));
+        assertEquals("customer-1", insert.value("key"));
+        assertArrayEquals("{}".getBytes(StandardCharsets.UTF_8), PgOutputDecoder.bytea(insert.value("payload")));
+        assertThrows(IllegalStateException.class, () -> insert.value("topic"));
+    }
+
+    @Test
+    void decode_shouldRejectInsertForUnknownRelation_andSkipOtherMessages() throws IOException {
+        PgOutputDecoder decoder = new PgOutputDecoder();
+
+        assertEquals(new Other('Y'), decoder.decode(message(out -> out.writeByte('Y'))));
+        assertThrows(IllegalStateException.class, () -> decoder.decode(message(out -> {
+            out.writeByte('I');
+            out.writeInt(99);
+            out.writeByte('N');
+            out.writeShort(0);
+        })));
+    }
+
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static ByteBuffer message(Writer writer) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writer.write(new DataOutputStream(bytes));
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    private static void cstring(DataOutputStream out, String value) throws IOException {
+        out.write(value.getBytes(StandardCharsets.UTF_8));
+        out.writeByte(0);
+    }
+
+    private static void text(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeByte('t');
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
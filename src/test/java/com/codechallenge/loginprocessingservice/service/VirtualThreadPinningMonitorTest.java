@@ -0,0 +1,45 @@
+package com.codechallenge.loginprocessingservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadPinningMonitorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(meterRegistry, 10);
+
+    private final Object lock = new Object();
+
+    @BeforeEach
+    void setUp() {
+        monitor.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.stop();
+    }
+
+    @Test
+    void shouldCountVirtualThreadBlockingInsideSynchronized() throws Exception {
+        Thread pinned = Thread.ofVirtual().start(() -> {
+            synchronized (lock) {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        pinned.join();
+
+        await().atMost(10, SECONDS).untilAsserted(() -> assertTrue(monitor.pinnedCount() >= 1));
+        assertEquals(monitor.pinnedCount(), meterRegistry.get("login.processing.virtual-threads.pinned").counter().count());
+    }
+}